@@ -0,0 +1,54 @@
+package cs1302.game;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the whole-board adjacency kernel, on the calling thread and
+ * split into parallel row stripes, against counting the neighbours of
+ * every square one by one with {@link MineBoard#countAdjacentMines}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class AdjacencyBenchmark {
+    @Param({"100", "1000", "3000", "10000"})
+    int size;
+    MineBoard board;
+    byte[] counts;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.board = BenchBoards.randomBoard(this.size);
+        this.counts = new byte[this.board.size()];
+    }
+
+    @Benchmark
+    public MineBoard kernel() {
+        this.board.computeAdjacency(false);
+        return this.board;
+    }
+
+    @Benchmark
+    public MineBoard kernelParallel() {
+        this.board.computeAdjacency(true);
+        return this.board;
+    }
+
+    @Benchmark
+    public byte[] scalar() {
+        int cols = this.board.getCols();
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] = (byte) this.board.countAdjacentMines(i / cols, i % cols);
+        }
+        return this.counts;
+    }
+} //AdjacencyBenchmark
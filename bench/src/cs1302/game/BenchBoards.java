@@ -0,0 +1,101 @@
+package cs1302.game;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Builds the boards, seed files and command scripts used by the benchmarks.
+ * Everything is generated from a fixed random seed so that runs compare
+ * like with like.
+ */
+final class BenchBoards {
+    /** Fraction of squares holding a mine on generated boards. */
+    static final double DENSITY = 0.15;
+    /** Random seed shared by every generated board. */
+    static final long SEED = 1302;
+
+    private BenchBoards() {
+    }
+
+    /**
+     * Builds a square board with about {@link #DENSITY} of its squares mined
+     * and its adjacency counts computed.
+     *
+     * @param size the number of rows and columns.
+     * @return the board.
+     */
+    static MineBoard randomBoard(int size) {
+        Random random = new Random(SEED);
+        MineBoard board = new MineBoard(size, size);
+        int mines = mineCount(size);
+        while (board.getMineCount() < mines) {
+            board.setMine(random.nextInt(size), random.nextInt(size));
+        }
+        board.computeAdjacency();
+        return board;
+    }
+
+    /**
+     * Builds a square board with a single mine in the top left corner, so
+     * that revealing the opposite corner floods almost the whole board.
+     *
+     * @param size the number of rows and columns.
+     * @return the board.
+     */
+    static MineBoard openBoard(int size) {
+        MineBoard board = new MineBoard(size, size);
+        board.setMine(0, 0);
+        board.computeAdjacency();
+        return board;
+    }
+
+    /**
+     * Returns the number of mines placed on a generated board.
+     *
+     * @param size the number of rows and columns.
+     * @return the mine count, at least one.
+     */
+    static int mineCount(int size) {
+        return Math.max(1, (int) (DENSITY * size * size));
+    }
+
+    /**
+     * Writes a seed file for a generated square board to a temporary file
+     * that is deleted when the JVM exits.
+     *
+     * @param size the number of rows and columns.
+     * @return the seed file.
+     * @throws IOException if the file cannot be written.
+     */
+    static File seedFile(int size) throws IOException {
+        File seed = File.createTempFile("bench-" + size + "-", ".seed.txt");
+        seed.deleteOnExit();
+        SeedParserBenchmark.writeSeed(seed, size, size, mineCount(size), new Random(SEED));
+        return seed;
+    }
+
+    /**
+     * Builds a command script that wins the game on a board: every mine is
+     * marked, then every safe square is revealed in row-major order.
+     *
+     * @param board the board the script is for.
+     * @return the script, one command per line.
+     */
+    static String winningScript(MineBoard board) {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < board.size(); i++) {
+            if (board.isMine(i)) {
+                script.append("m ").append(i / board.getCols()).append(' ')
+                    .append(i % board.getCols()).append('\n');
+            }
+        }
+        for (int i = 0; i < board.size(); i++) {
+            if (!board.isMine(i)) {
+                script.append("r ").append(i / board.getCols()).append(' ')
+                    .append(i % board.getCols()).append('\n');
+            }
+        }
+        return script.toString();
+    }
+} //BenchBoards
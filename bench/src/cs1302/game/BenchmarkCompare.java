@@ -0,0 +1,85 @@
+package cs1302.game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written with {@code -rf csv} and reports
+ * the change of every benchmark present in both. Exits with status 1 if any
+ * benchmark got slower by more than the threshold.
+ *
+ * <p>Usage: {@code BenchmarkCompare BASELINE.csv CURRENT.csv [THRESHOLD_PERCENT]}
+ */
+public class BenchmarkCompare {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println();
+            System.err.println("Usage: BenchmarkCompare BASELINE.csv CURRENT.csv [THRESHOLD_PERCENT]");
+            System.exit(1);
+        }
+        double threshold = (args.length > 2) ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, String[]> baseline = read(args[0]);
+        Map<String, String[]> current = read(args[1]);
+        int regressions = 0;
+        System.out.printf("%-60s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, String[]> entry : current.entrySet()) {
+            String[] before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            String[] after = entry.getValue();
+            double old = Double.parseDouble(before[4]);
+            double now = Double.parseDouble(after[4]);
+            //Lower is better for time modes, higher is better for throughput.
+            boolean throughput = unquote(after[1]).equals("thrpt");
+            double slowdown = 100.0 * (throughput ? (old - now) / old : (now - old) / old);
+            boolean regressed = slowdown > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-60s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), old, now,
+                throughput ? -slowdown : slowdown, regressed ? "  REGRESSION" : "");
+        }
+        System.out.printf("%d regression(s) over %.1f%%%n", regressions, threshold);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads a JMH CSV result file keyed by benchmark name and parameters.
+     *
+     * @param path the result file.
+     * @return the rows of the file, split into columns.
+     * @throws IOException if the file cannot be read.
+     */
+    private static Map<String, String[]> read(String path) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(path));
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] cols = line.split(",");
+            StringBuilder key = new StringBuilder(unquote(cols[0]));
+            //Parameter columns follow the unit column.
+            for (int k = 7; k < cols.length; k++) {
+                key.append(' ').append(unquote(cols[k]));
+            }
+            rows.put(key.toString(), cols);
+        }
+        return rows;
+    }
+
+    /**
+     * Removes the double quotes JMH puts around text columns.
+     *
+     * @param s the column.
+     * @return the column without quotes.
+     */
+    private static String unquote(String s) {
+        return s.replace("\"", "");
+    }
+} //BenchmarkCompare
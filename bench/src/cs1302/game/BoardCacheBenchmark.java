@@ -0,0 +1,53 @@
+package cs1302.game;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures starting a game from the board cache, with and without the
+ * first move that copies the shared squares, against parsing the seed file
+ * and counting its adjacency as {@link ReadSeedBenchmark#readSeed} does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class BoardCacheBenchmark {
+    @Param({"10", "100", "1000", "3000"})
+    int size;
+    String seed;
+    BoardCache cache;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.seed = BenchBoards.seedFile(this.size).getPath();
+        this.cache = new BoardCache(BoardCache.DEFAULT_LIMIT);
+        this.cache.load(this.seed, this.size);
+    }
+
+    @Benchmark
+    public MineBoard cached() throws Exception {
+        return this.cache.load(this.seed, this.size);
+    }
+
+    @Benchmark
+    public MineBoard cachedFirstMove() throws Exception {
+        MineBoard board = this.cache.load(this.seed, this.size);
+        board.setCell(0, MineBoard.FLAG);
+        return board;
+    }
+
+    @Benchmark
+    public MineBoard parsed() throws Exception {
+        MineBoard board = SeedParser.parse(this.seed, this.size);
+        board.computeAdjacency();
+        return board;
+    }
+} //BoardCacheBenchmark
@@ -0,0 +1,94 @@
+package cs1302.game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measures the leaderboard: recording wins from several threads at once,
+ * listing the best scores of a board size, and opening a log of a million
+ * wins with and without its index snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class LeaderboardBenchmark {
+    Path dir;
+    String log;
+    Leaderboard leaderboard;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.dir = Files.createTempDirectory("leaderboard");
+        this.log = this.dir.resolve("scores").toString();
+        this.leaderboard = Leaderboard.open(this.log);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 1_000_000; i++) {
+            int size = 5 + random.nextInt(6);
+            this.leaderboard.add(random.nextLong(), size, size, 1 + random.nextInt(500),
+                random.nextInt(10001) / 100.0);
+        }
+        this.leaderboard.close();
+        this.leaderboard = Leaderboard.open(this.log);
+    }
+
+    /** Whether the log is opened with its index snapshot or rebuilt from scratch. */
+    @State(Scope.Thread)
+    public static class Reopen {
+        @Param({"false", "true"})
+        boolean snapshot;
+
+        @Setup(Level.Invocation)
+        public void setup(LeaderboardBenchmark bench) throws IOException {
+            //Opening a long log without a snapshot writes one, so drop it every time.
+            if (this.snapshot == false) {
+                Files.deleteIfExists(Path.of(bench.log + ".index"));
+            }
+        }
+    } //Reopen
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.leaderboard.close();
+        try (Stream<Path> files = Files.list(this.dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(this.dir);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void add() {
+        this.leaderboard.add(7L, 9, 9, 60, 90.0);
+    }
+
+    @Benchmark
+    public List<Leaderboard.Entry> top() {
+        return this.leaderboard.top(9, 9);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Leaderboard open(Reopen reopen) throws IOException {
+        try (Leaderboard opened = Leaderboard.open(this.log)) {
+            return opened;
+        }
+    }
+} //LeaderboardBenchmark
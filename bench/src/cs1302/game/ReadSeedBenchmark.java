@@ -0,0 +1,42 @@
+package cs1302.game;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures loading a seed file the way readSeed() does: parsing alone, and
+ * parsing plus the adjacency precomputation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ReadSeedBenchmark {
+    @Param({"5", "10", "100", "1000", "3000"})
+    int size;
+    String seed;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        File file = BenchBoards.seedFile(this.size);
+        this.seed = file.getPath();
+    }
+
+    @Benchmark
+    public MineBoard parse() throws Exception {
+        return SeedParser.parse(this.seed, this.size);
+    }
+
+    @Benchmark
+    public MinesweeperEngine readSeed() throws Exception {
+        return MinesweeperEngine.load(this.seed, this.size);
+    }
+} //ReadSeedBenchmark
@@ -0,0 +1,45 @@
+package cs1302.game;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures drawing a full frame of the minefield, as printMineField() does,
+ * to a stream that discards its output.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class RenderBenchmark {
+    @Param({"5", "10", "100", "1000", "3000"})
+    int size;
+    MineBoard board;
+    MineFieldRenderer renderer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.board = BenchBoards.randomBoard(this.size);
+        //Reveal roughly every other safe square so the frame is mixed.
+        for (int i = 0; i < this.board.size(); i += 2) {
+            if (!this.board.isMine(i)) {
+                this.board.setCell(i, (byte) this.board.getAdjacent(i));
+            }
+        }
+        this.renderer = new MineFieldRenderer(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Benchmark
+    public void printMineField() {
+        this.renderer.printMineField(this.board, 42);
+    }
+} //RenderBenchmark
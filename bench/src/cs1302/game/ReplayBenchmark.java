@@ -0,0 +1,45 @@
+package cs1302.game;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures a complete headless game: loading the seed file, then executing
+ * a winning command script until the game is won.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ReplayBenchmark {
+    @Param({"5", "10", "100", "300"})
+    int size;
+    String seed;
+    String script;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        File file = BenchBoards.seedFile(this.size);
+        this.seed = file.getPath();
+        this.script = BenchBoards.winningScript(SeedParser.parse(this.seed, this.size));
+    }
+
+    @Benchmark
+    public MinesweeperEngine.Status replay() throws Exception {
+        MinesweeperEngine engine = MinesweeperEngine.load(this.seed, this.size);
+        CommandTokenizer commands = new CommandTokenizer(new StringReader(this.script));
+        while ((engine.getStatus() == MinesweeperEngine.Status.PLAYING) && commands.nextLine()) {
+            engine.execute(commands);
+        }
+        return engine.getStatus();
+    }
+} //ReplayBenchmark
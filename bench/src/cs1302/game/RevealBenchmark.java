@@ -0,0 +1,70 @@
+package cs1302.game;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link MineBoard#reveal(int)}: revealing a single numbered square,
+ * and revealing a square whose zero-cascade floods almost the whole board.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RevealBenchmark {
+
+    /** A random board and the numbered safe squares on it. */
+    @State(Scope.Thread)
+    public static class Numbered {
+        @Param({"5", "10", "100", "1000", "3000"})
+        int size;
+        MineBoard board;
+        int[] squares = new int[1024];
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.board = BenchBoards.randomBoard(this.size);
+            int found = 0;
+            for (int i = 0; (i < this.board.size()) && (found < this.squares.length); i++) {
+                if (!this.board.isMine(i) && (this.board.getAdjacent(i) > 0)) {
+                    this.squares[found++] = i;
+                }
+            }
+            //Repeat the squares found if the board is small.
+            for (int k = found; k < this.squares.length; k++) {
+                this.squares[k] = this.squares[k % found];
+            }
+        }
+    }
+
+    /** A board with one mine, rebuilt before every flood. */
+    @State(Scope.Thread)
+    public static class Open {
+        @Param({"5", "10", "100", "1000", "3000"})
+        int size;
+        MineBoard board;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            this.board = BenchBoards.openBoard(this.size);
+        }
+    }
+
+    @Benchmark
+    public int revealNumber(Numbered state) {
+        int i = state.squares[state.next++ & (state.squares.length - 1)];
+        return state.board.reveal(i);
+    }
+
+    @Benchmark
+    public int revealFlood(Open state) {
+        return state.board.reveal(state.board.size() - 1);
+    }
+} //RevealBenchmark
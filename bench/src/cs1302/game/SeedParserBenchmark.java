@@ -0,0 +1,93 @@
+package cs1302.game;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Measures how fast {@link SeedParser} loads a large generated seed file and
+ * compares it with a plain {@link Scanner} loop like the one the original
+ * {@code readSeed()} used. By default the seed file holds 10 million mines
+ * on a 4000 by 4000 grid.
+ *
+ * <p>Usage: {@code SeedParserBenchmark [MINES] [ROWS COLS]}
+ */
+public class SeedParserBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int mines = (args.length > 0) ? Integer.parseInt(args[0]) : 10_000_000;
+        int rows = (args.length > 2) ? Integer.parseInt(args[1]) : 4000;
+        int cols = (args.length > 2) ? Integer.parseInt(args[2]) : 4000;
+        File seed = File.createTempFile("seed-bench", ".txt");
+        seed.deleteOnExit();
+        writeSeed(seed, rows, cols, mines, new Random(1302));
+        int maxSize = Math.max(rows, cols);
+        System.out.printf("seed file: %,d mines, %,d bytes%n", mines, seed.length());
+
+        //Warm up, then time the NIO parser.
+        for (int i = 0; i < 3; i++) {
+            SeedParser.parse(seed.getPath(), maxSize);
+        }
+        int runs = 5;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            SeedParser.parse(seed.getPath(), maxSize);
+        }
+        report("SeedParser", (System.nanoTime() - start) / runs, mines, seed.length());
+
+        //A single Scanner pass is slow enough that one run is representative.
+        start = System.nanoTime();
+        try (Scanner input = new Scanner(seed)) {
+            int r = input.nextInt(), c = input.nextInt(), n = input.nextInt();
+            boolean[][] mineGrid = new boolean[r][c];
+            for (int k = 0; k < n; k++) {
+                mineGrid[input.nextInt()][input.nextInt()] = true;
+            }
+        }
+        report("Scanner", System.nanoTime() - start, mines, seed.length());
+    }
+
+    /**
+     * Writes a seed file with exactly {@code mines} distinct mines, in row-major
+     * order, using selection sampling.
+     *
+     * @param seed the file to write.
+     * @param rows the number of rows.
+     * @param cols the number of columns.
+     * @param mines the number of mines.
+     * @param random the source of randomness.
+     * @throws IOException if the file cannot be written.
+     */
+    static void writeSeed(File seed, int rows, int cols, int mines, Random random)
+        throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(seed), 1 << 16)) {
+            out.write((rows + " " + cols + "\n" + mines + "\n").getBytes());
+            long cells = (long) rows * cols;
+            int needed = mines;
+            for (long i = 0; (i < cells) && (needed > 0); i++) {
+                if (random.nextDouble() * (cells - i) < needed) {
+                    out.write(((i / cols) + " " + (i % cols) + "\n").getBytes());
+                    needed--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the time taken and the resulting throughput.
+     *
+     * @param name the parser measured.
+     * @param nanos the time taken for one parse.
+     * @param mines the number of mines parsed.
+     * @param bytes the size of the seed file.
+     */
+    private static void report(String name, long nanos, int mines, long bytes) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-10s %8.1f ms  %,12.0f mines/s  %8.1f MB/s%n", name,
+            seconds * 1e3, mines / seconds, bytes / seconds / 1e6);
+    }
+} //SeedParserBenchmark
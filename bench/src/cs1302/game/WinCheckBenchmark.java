@@ -0,0 +1,52 @@
+package cs1302.game;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the constant-time win check against the full-grid scans it
+ * replaced. The board is one flag short of a win, which is the worst case
+ * for the scans.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class WinCheckBenchmark {
+    @Param({"5", "10", "100", "1000", "3000"})
+    int size;
+    MinesweeperEngine engine;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MineBoard board = BenchBoards.randomBoard(this.size);
+        int lastMine = -1;
+        for (int i = 0; i < board.size(); i++) {
+            if (board.isMine(i)) {
+                board.setCell(i, MineBoard.FLAG);
+                lastMine = i;
+            } else {
+                board.setCell(i, (byte) board.getAdjacent(i));
+            }
+        }
+        board.setCell(lastMine, MineBoard.HIDDEN);
+        this.engine = new MinesweeperEngine(board);
+    }
+
+    @Benchmark
+    public boolean incremental() {
+        return this.engine.getBoard().isWon();
+    }
+
+    @Benchmark
+    public boolean fullScan() {
+        return this.engine.allSquaresRevealed() && this.engine.minesRevealed();
+    }
+} //WinCheckBenchmark
@@ -0,0 +1,193 @@
+package cs1302.game;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * This class computes the number of adjacent mines of every square of a
+ * {@link MineBoard} at once, 64 squares at a time. Each row of the mine
+ * bitset is copied into word-aligned longs; the eight neighbours of a
+ * square are then the row above, the row itself and the row below, each
+ * shifted one column left and right, and the eight bitmaps are added with
+ * bitwise full adders into four bit planes holding the count of every
+ * square in the word. The counts are spread back out eight squares per
+ * write with a lookup table.
+ *
+ * <p>Rows only depend on their two neighbours, so a big board is split
+ * into stripes of rows that are counted in parallel, each stripe writing
+ * only its own squares.
+ */
+final class AdjacencyKernel {
+    /** Boards with at least this many squares are counted in parallel. */
+    static final int PARALLEL_SQUARES = 1 << 20;
+    //Rows in each stripe counted by one task.
+    private static final int STRIPE_ROWS = 64;
+    //Reads and writes eight squares of the cell array as one long.
+    private static final VarHandle EIGHT_CELLS =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    //The states in the low nibble of eight squares.
+    private static final long STATES = 0x0F0F0F0F0F0F0F0FL;
+    //SPREAD[b] holds bit k of b in the lowest bit of byte k.
+    private static final long[] SPREAD = new long[256];
+
+    static {
+        for (int b = 0; b < SPREAD.length; b++) {
+            for (int k = 0; k < 8; k++) {
+                if ((b & (1 << k)) != 0) {
+                    SPREAD[b] |= 1L << (8 * k);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prevents instantiation; the kernel is a set of static methods.
+     */
+    private AdjacencyKernel() {
+    }
+
+    /**
+     * Stores the number of adjacent mines of every square in the high
+     * nibble of its cell, leaving the states in the low nibbles alone.
+     *
+     * @param mines the mine bitset, one bit per square in row-major order.
+     * @param cells the cells of the board.
+     * @param rows the number of rows.
+     * @param cols the number of columns.
+     * @param parallel true to count the stripes of a big board in parallel.
+     */
+    static void compute(long[] mines, byte[] cells, int rows, int cols, boolean parallel) {
+        int stripes = (rows + STRIPE_ROWS - 1) / STRIPE_ROWS;
+        if (parallel && (stripes > 1) && ((long) rows * cols >= PARALLEL_SQUARES)) {
+            IntStream.range(0, stripes).parallel().forEach(stripe -> countRows(mines, cells,
+                rows, cols, stripe * STRIPE_ROWS, Math.min(rows, (stripe + 1) * STRIPE_ROWS)));
+        } else {
+            countRows(mines, cells, rows, cols, 0, rows);
+        }
+    } //compute
+
+    /**
+     * Counts the squares of a stripe of rows, keeping the rows above, at
+     * and below the current one in three reused word buffers.
+     *
+     * @param mines the mine bitset.
+     * @param cells the cells of the board.
+     * @param rows the number of rows.
+     * @param cols the number of columns.
+     * @param first the first row of the stripe.
+     * @param end the row after the last row of the stripe.
+     */
+    private static void countRows(long[] mines, byte[] cells, int rows, int cols, int first,
+        int end) {
+        int words = (cols + 63) >>> 6;
+        long[] above = new long[words];
+        long[] row = new long[words];
+        long[] below = new long[words];
+        if (first > 0) {
+            copyRow(mines, cols, first - 1, above);
+        }
+        copyRow(mines, cols, first, row);
+        for (int r = first; r < end; r++) {
+            if (r + 1 < rows) {
+                copyRow(mines, cols, r + 1, below);
+            } else {
+                Arrays.fill(below, 0L);
+            }
+            countRow(above, row, below, cells, r * cols, cols);
+            long[] spare = above;
+            above = row;
+            row = below;
+            below = spare;
+        }
+    } //countRows
+
+    /**
+     * Copies one row of the mine bitset into word-aligned longs. Bits past
+     * the last column are cleared.
+     *
+     * @param mines the mine bitset.
+     * @param cols the number of columns.
+     * @param r the row to copy.
+     * @param out the buffer, one long per 64 columns.
+     */
+    private static void copyRow(long[] mines, int cols, int r, long[] out) {
+        int start = r * cols;
+        int word = start >>> 6;
+        int shift = start & 63;
+        for (int k = 0; k < out.length; k++) {
+            long bits = mines[word + k] >>> shift;
+            //Java masks shift counts, so an aligned row must not shift by 64.
+            if ((shift != 0) && (word + k + 1 < mines.length)) {
+                bits |= mines[word + k + 1] << (64 - shift);
+            }
+            out[k] = bits;
+        }
+        if ((cols & 63) != 0) {
+            out[out.length - 1] &= (1L << (cols & 63)) - 1;
+        }
+    } //copyRow
+
+    /**
+     * Counts the adjacent mines of every square in a row and stores them.
+     *
+     * @param above the mines of the row above, or zeros.
+     * @param row the mines of the row.
+     * @param below the mines of the row below, or zeros.
+     * @param cells the cells of the board.
+     * @param offset the index of the row's first square.
+     * @param cols the number of columns.
+     */
+    private static void countRow(long[] above, long[] row, long[] below, byte[] cells,
+        int offset, int cols) {
+        int words = row.length;
+        for (int k = 0; k < words; k++) {
+            //Bit c of a "left" word is column c - 1, of a "right" word column c + 1.
+            long a = above[k], m = row[k], b = below[k];
+            long aLeft = (a << 1) | ((k > 0) ? above[k - 1] >>> 63 : 0);
+            long aRight = (a >>> 1) | ((k + 1 < words) ? above[k + 1] << 63 : 0);
+            long mLeft = (m << 1) | ((k > 0) ? row[k - 1] >>> 63 : 0);
+            long mRight = (m >>> 1) | ((k + 1 < words) ? row[k + 1] << 63 : 0);
+            long bLeft = (b << 1) | ((k > 0) ? below[k - 1] >>> 63 : 0);
+            long bRight = (b >>> 1) | ((k + 1 < words) ? below[k + 1] << 63 : 0);
+
+            //Full adders: three sums of ones and carries of twos...
+            long ones1 = aLeft ^ a ^ aRight;
+            long twos1 = (aLeft & a) | (aRight & (aLeft ^ a));
+            long ones2 = mLeft ^ mRight ^ bLeft;
+            long twos2 = (mLeft & mRight) | (bLeft & (mLeft ^ mRight));
+            long ones3 = b ^ bRight;
+            long twos3 = b & bRight;
+            //...then the ones, the four twos and the fours into bit planes.
+            long bit0 = ones1 ^ ones2 ^ ones3;
+            long twos4 = (ones1 & ones2) | (ones3 & (ones1 ^ ones2));
+            long twos = twos1 ^ twos2 ^ twos3;
+            long fours1 = (twos1 & twos2) | (twos3 & (twos1 ^ twos2));
+            long bit1 = twos ^ twos4;
+            long fours2 = twos & twos4;
+            long bit2 = fours1 ^ fours2;
+            long bit3 = fours1 & fours2;
+
+            int base = k << 6;
+            int count = Math.min(64, cols - base);
+            int j = 0;
+            for (; j + 8 <= count; j += 8) {
+                long counts = SPREAD[(int) (bit0 >>> j) & 0xFF] |
+                    (SPREAD[(int) (bit1 >>> j) & 0xFF] << 1) |
+                    (SPREAD[(int) (bit2 >>> j) & 0xFF] << 2) |
+                    (SPREAD[(int) (bit3 >>> j) & 0xFF] << 3);
+                int at = offset + base + j;
+                long old = (long) EIGHT_CELLS.get(cells, at);
+                EIGHT_CELLS.set(cells, at, (old & STATES) | (counts << 4));
+            }
+            for (; j < count; j++) {
+                int adjacent = (int) (((bit0 >>> j) & 1) | (((bit1 >>> j) & 1) << 1) |
+                    (((bit2 >>> j) & 1) << 2) | (((bit3 >>> j) & 1) << 3));
+                int at = offset + base + j;
+                cells[at] = (byte) ((cells[at] & 0x0F) | (adjacent << 4));
+            }
+        }
+    } //countRow
+} //AdjacencyKernel
@@ -0,0 +1,461 @@
+package cs1302.game;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class keeps seed files compiled into boards, for processes that
+ * start games on the same few seed files over and over, such as
+ * {@link GameRunner} and {@link GameServer}. A compiled board has been
+ * parsed, validated and had its adjacency counted once, and is never
+ * played on; each game gets a {@link MineBoard#share() shared} board,
+ * made in constant time, that copies the squares when the game first
+ * changes one.
+ *
+ * <p>A seed file is looked up by its canonical path, so every name that
+ * reaches the same file, through links or relative paths, shares one
+ * entry. The canonical path of each name is remembered; if the name still
+ * leads to the same file (the same inode, where the platform has one), and
+ * its modification time and size are what they were when it was last
+ * read, the compiled board is used after a single stat, without opening
+ * the file. Otherwise the name is resolved again, and if the file has
+ * changed the file is hashed with SHA-256. Only if no board was compiled
+ * from the same contents is it parsed again, so touching a file, or
+ * copying it, costs a read but not a parse. Boards compiled with a
+ * different size limit are kept apart, since the limit decides which seed
+ * files are valid. A malformed file is remembered by its contents too, and
+ * fails again with the same message without being parsed; a file that
+ * cannot be read is never cached, and fails with the same exception as
+ * {@link SeedParser#parse}.
+ *
+ * <p>Compiled boards are kept in least-recently-used order, and the
+ * coldest are dropped once their squares and mines take more than the
+ * given number of bytes. The cache counts hits, rehashes (the file
+ * changed on disk but not its contents), misses and evictions so its
+ * behaviour can be reported. It may be used by any number of threads.
+ */
+public class BoardCache {
+    /** The default limit on the memory held by compiled boards, in bytes. */
+    public static final long DEFAULT_LIMIT = 64L << 20;
+    //Approximate heap cost of a compiled board besides its squares and mines.
+    private static final int BOARD_BYTES = 256;
+    //How many malformed seed files, and how many names of seed files, to remember.
+    private static final int FAILURES = 256;
+    private static final int NAMES = 4096;
+
+    /** What a seed file looked like when it was last read. */
+    private static final class Stamp {
+        final Object file;
+        final FileTime modified;
+        final long size;
+        final String contents;
+
+        /**
+         * Constructs a stamp.
+         *
+         * @param attributes the attributes of the file when it was read.
+         * @param contents the hash of its contents.
+         */
+        Stamp(BasicFileAttributes attributes, String contents) {
+            this.file = attributes.fileKey();
+            this.modified = attributes.lastModifiedTime();
+            this.size = attributes.size();
+            this.contents = contents;
+        }
+
+        /**
+         * Determines if a file still looks the way it did.
+         *
+         * @param attributes the attributes of the file now.
+         * @return true if it is the same file, and its modification time and
+         *     size are unchanged.
+         */
+        boolean matches(BasicFileAttributes attributes) {
+            return Objects.equals(this.file, attributes.fileKey()) &&
+                this.modified.equals(attributes.lastModifiedTime()) &&
+                (this.size == attributes.size());
+        }
+    } //Stamp
+
+    private final long limit;
+    //The canonical path of each name a seed file was loaded by.
+    private final LinkedHashMap<String, String> paths =
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > NAMES;
+            }
+        };
+    //The stamp of each canonical path, and the compiled boards by contents and size limit.
+    private final Map<String, Stamp> stamps = new HashMap<>();
+    private final LinkedHashMap<String, MineBoard> boards =
+        new LinkedHashMap<>(16, 0.75f, true);
+    //The message of each malformed seed file, by contents and size limit.
+    private final LinkedHashMap<String, String> failures =
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > FAILURES;
+            }
+        };
+    private int pruneAt = 64;
+    private long bytes;
+    private long hits, rehashes, misses, evictions;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param limit the most bytes of squares and mines to keep.
+     */
+    public BoardCache(long limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Returns a board for a new game on a seed file, with adjacency
+     * computed and every square hidden.
+     *
+     * @param seedFileName the path of the seed file.
+     * @param maxSize the largest number of rows or columns allowed.
+     * @return a board of the game's own, sharing its mines and adjacency
+     *     counts with the compiled board.
+     * @throws IOException if the seed file cannot be opened or read.
+     * @throws SeedFormatException if the seed file is malformed.
+     */
+    public MineBoard load(String seedFileName, int maxSize)
+        throws IOException, SeedFormatException {
+        Path path;
+        BasicFileAttributes attributes;
+        try {
+            path = Paths.get(seedFileName);
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException | InvalidPathException e) {
+            //Let the parser report a missing or unreadable file as it always has.
+            return compile(seedFileName, maxSize);
+        }
+        synchronized (this) {
+            MineBoard board = cached(this.paths.get(seedFileName), attributes, maxSize);
+            if (board != null) {
+                return board;
+            }
+        }
+        String real;
+        try {
+            real = path.toRealPath().toString();
+        } catch (IOException ioe) {
+            return compile(seedFileName, maxSize);
+        }
+        synchronized (this) {
+            this.paths.put(seedFileName, real);
+            MineBoard board = cached(real, attributes, maxSize);
+            if (board != null) {
+                return board;
+            }
+        }
+        String contents;
+        try {
+            contents = hash(path);
+        } catch (IOException ioe) {
+            return compile(seedFileName, maxSize);
+        }
+        String key = key(contents, maxSize);
+        synchronized (this) {
+            stamp(real, new Stamp(attributes, contents));
+            MineBoard board = lookup(key);
+            if (board != null) {
+                this.rehashes++;
+                return board.share();
+            }
+        }
+        MineBoard board;
+        try {
+            board = compile(seedFileName, maxSize);
+        } catch (SeedFormatException sfe) {
+            if (unchanged(path, attributes)) {
+                synchronized (this) {
+                    this.failures.put(key, sfe.getMessage());
+                }
+            }
+            throw sfe;
+        }
+        //A file rewritten while it was hashed and parsed may not match its hash.
+        if (unchanged(path, attributes) == false) {
+            return board;
+        }
+        synchronized (this) {
+            admit(key, board);
+            return board.share();
+        }
+    } //load
+
+    /**
+     * Starts a game on the compiled board of a seed file, if the file has
+     * not changed since it was stamped, counting a hit.
+     *
+     * @param real the canonical path of the file, or null if not known.
+     * @param attributes the attributes of the file now.
+     * @param maxSize the largest number of rows or columns allowed.
+     * @return a board shared with the compiled board, or null if there is none.
+     * @throws SeedFormatException if the file is known to be malformed.
+     */
+    private MineBoard cached(String real, BasicFileAttributes attributes, int maxSize)
+        throws SeedFormatException {
+        Stamp stamp = (real == null) ? null : this.stamps.get(real);
+        if ((stamp == null) || (stamp.matches(attributes) == false)) {
+            return null;
+        }
+        MineBoard board = lookup(key(stamp.contents, maxSize));
+        if (board == null) {
+            return null;
+        }
+        this.hits++;
+        return board.share();
+    } //cached
+
+    /**
+     * Finds the compiled board of a seed file's contents, or fails the way
+     * parsing them failed before.
+     *
+     * @param key the key of the board.
+     * @return the compiled board, or null if there is none.
+     * @throws SeedFormatException if the contents are known to be malformed.
+     */
+    private MineBoard lookup(String key) throws SeedFormatException {
+        MineBoard board = this.boards.get(key);
+        if (board == null) {
+            String failure = this.failures.get(key);
+            if (failure != null) {
+                this.hits++;
+                throw new SeedFormatException(failure);
+            }
+        }
+        return board;
+    } //lookup
+
+    /**
+     * Determines if a file has not been modified since it was stamped.
+     *
+     * @param path the file.
+     * @param attributes its attributes when it was stamped.
+     * @return true if its modification time is unchanged.
+     */
+    private static boolean unchanged(Path path, BasicFileAttributes attributes) {
+        try {
+            return attributes.lastModifiedTime().equals(Files.getLastModifiedTime(path));
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses a seed file and counts its adjacency, counting a miss.
+     *
+     * @param seedFileName the path of the seed file.
+     * @param maxSize the largest number of rows or columns allowed.
+     * @return the board.
+     * @throws IOException if the seed file cannot be opened or read.
+     * @throws SeedFormatException if the seed file is malformed.
+     */
+    private MineBoard compile(String seedFileName, int maxSize)
+        throws IOException, SeedFormatException {
+        synchronized (this) {
+            this.misses++;
+        }
+        long start = GameMetrics.start();
+        MineBoard board = SeedParser.parse(seedFileName, maxSize);
+        GameMetrics.parse(start);
+        board.computeAdjacency();
+        return board;
+    } //compile
+
+    /**
+     * Hashes the contents of a file.
+     *
+     * @param path the file.
+     * @return the SHA-256 hash in hexadecimal.
+     * @throws IOException if the file cannot be read.
+     */
+    private static String hash(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsae) {
+            //Every Java platform is required to provide SHA-256.
+            throw new IllegalStateException(nsae);
+        }
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(path)) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >>> 4) & 0xF, 16))
+                .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    } //hash
+
+    /**
+     * Returns the key of a compiled board.
+     *
+     * @param contents the hash of the seed file's contents.
+     * @param maxSize the size limit it was compiled with.
+     * @return the key.
+     */
+    private static String key(String contents, int maxSize) {
+        return contents + "/" + maxSize;
+    }
+
+    /**
+     * Returns the approximate heap used by a compiled board.
+     *
+     * @param board the board.
+     * @return the number of bytes.
+     */
+    private static long footprint(MineBoard board) {
+        return BOARD_BYTES + board.size() + ((board.size() + 63) >>> 6) * (long) Long.BYTES;
+    }
+
+    /**
+     * Adds a compiled board to the cache and evicts the coldest boards while
+     * the cache holds more than its limit. A board bigger than the whole
+     * limit is not kept at all.
+     *
+     * @param key the key of the board.
+     * @param board the board.
+     */
+    private void admit(String key, MineBoard board) {
+        if (footprint(board) > this.limit) {
+            return;
+        }
+        MineBoard old = this.boards.put(key, board);
+        this.bytes += footprint(board) - ((old == null) ? 0 : footprint(old));
+        Iterator<Map.Entry<String, MineBoard>> coldest = this.boards.entrySet().iterator();
+        while (this.bytes > this.limit) {
+            Map.Entry<String, MineBoard> victim = coldest.next();
+            coldest.remove();
+            this.bytes -= footprint(victim.getValue());
+            this.evictions++;
+        }
+    } //admit
+
+    /**
+     * Records how a seed file looked when it was hashed, forgetting the
+     * files whose boards and failures are gone once the stamps outgrow
+     * them, so the stamps stay bounded too.
+     *
+     * @param real the canonical path of the seed file.
+     * @param stamp the stamp.
+     */
+    private void stamp(String real, Stamp stamp) {
+        this.stamps.put(real, stamp);
+        if (this.stamps.size() > this.pruneAt) {
+            Set<String> kept = new HashSet<>();
+            for (String key : this.boards.keySet()) {
+                kept.add(key.substring(0, key.indexOf('/')));
+            }
+            for (String key : this.failures.keySet()) {
+                kept.add(key.substring(0, key.indexOf('/')));
+            }
+            this.stamps.values().removeIf(old -> kept.contains(old.contents) == false);
+            //Prune again only once the stamps have doubled, however many were kept.
+            this.pruneAt = Math.max(64, 2 * this.stamps.size());
+        }
+    } //stamp
+
+    /**
+     * Returns the number of loads that used a compiled board without
+     * reading the seed file.
+     *
+     * @return the hit count.
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of loads of a seed file that changed on disk but
+     * still matched a compiled board once hashed.
+     *
+     * @return the rehash count.
+     */
+    public synchronized long getRehashes() {
+        return this.rehashes;
+    }
+
+    /**
+     * Returns the number of loads that had to parse the seed file.
+     *
+     * @return the miss count.
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Returns the number of compiled boards dropped to stay within the limit.
+     *
+     * @return the eviction count.
+     */
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * Returns the number of compiled boards in the cache.
+     *
+     * @return the board count.
+     */
+    public synchronized int size() {
+        return this.boards.size();
+    }
+
+    /**
+     * Returns the approximate heap used by the compiled boards.
+     *
+     * @return the number of bytes.
+     */
+    public synchronized long getMemoryBytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Returns the fraction of loads that did not parse the seed file.
+     *
+     * @return the hit rate, counting rehashes as hits, or 0 if nothing was loaded.
+     */
+    public synchronized double getHitRate() {
+        long loads = this.hits + this.rehashes + this.misses;
+        return (loads == 0) ? 0.0 : (double) (this.hits + this.rehashes) / loads;
+    }
+
+    /**
+     * Describes the state of the cache in one line.
+     *
+     * @return the board count, memory use, counts and hit rate.
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("Boards: %d cached (%,d KB, limit %,d KB), %d hits, %d rehashed, " +
+            "%d parsed, %d evicted; hit rate %.1f%%", this.boards.size(), this.bytes / 1024,
+            this.limit / 1024, this.hits, this.rehashes, this.misses, this.evictions,
+            100.0 * getHitRate());
+    }
+} //BoardCache
@@ -0,0 +1,349 @@
+package cs1302.game;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+/**
+ * This class creates random boards from a seed, so that the same rows,
+ * columns, mine count and seed always give the same board. Mines are placed
+ * with Floyd's sampling without replacement, which costs time proportional
+ * to the number of mines rather than the size of the board. The first
+ * square revealed is always safe: the mines avoid it and, when there is
+ * room, its eight neighbours too, so the first reveal opens a region.
+ *
+ * <p>In no-guess mode only boards that the {@link MineSolver} can finish
+ * from the first reveal without guessing are accepted. Candidate boards use
+ * the seeds seed, seed + 1, ... and are checked in parallel; the lowest
+ * seed that passes is used, so the result does not depend on the number of
+ * cores.
+ *
+ * <p>Usage: {@code BoardGenerator [--no-guess] [--first ROW COL] [--count N]
+ * [--out DIR] [--max-size N] ROWS COLS MINES SEED} writes seed files named
+ * {@code board-SEED.seed.txt} that {@code readSeed()} accepts with the same
+ * maximum size. Like {@code --generate} in {@link MinesweeperDriver}, it
+ * refuses fewer than 5 or more than the maximum size rows or columns, and
+ * mine counts that do not leave at least one safe square.
+ */
+public class BoardGenerator {
+    /** The number of candidate seeds tried in no-guess mode. */
+    public static final int MAX_ATTEMPTS = 10_000;
+
+    private final int rows, cols, mines;
+    private boolean noGuess;
+
+    /**
+     * Constructs a generator for boards of the given shape.
+     *
+     * @param rows the number of rows.
+     * @param cols the number of columns.
+     * @param mines the number of mines.
+     * @throws IllegalArgumentException if the board has no room for the
+     * mines and one safe square.
+     */
+    public BoardGenerator(int rows, int cols, int mines) {
+        if ((rows < 1) || (cols < 1) || ((long) rows * cols > Integer.MAX_VALUE - 8) ||
+            (mines < 0) || (mines >= (long) rows * cols)) {
+            throw new IllegalArgumentException("Cannot place " + mines + " mines on a " +
+                rows + "x" + cols + " board");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.mines = mines;
+    }
+
+    /**
+     * Enables or disables no-guess mode.
+     *
+     * @param noGuess true to accept only boards solvable without guessing.
+     */
+    public void setNoGuess(boolean noGuess) {
+        this.noGuess = noGuess;
+    }
+
+    /**
+     * Determines if no-guess mode is enabled.
+     *
+     * @return true if only boards solvable without guessing are generated.
+     */
+    public boolean isNoGuess() {
+        return this.noGuess;
+    }
+
+    /**
+     * Returns the number of rows of the generated boards.
+     *
+     * @return the number of rows.
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the number of columns of the generated boards.
+     *
+     * @return the number of columns.
+     */
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * Creates a board whose first reveal at the given square is safe. In
+     * no-guess mode the board is also solvable from there without guessing,
+     * unless no such board was found in {@value #MAX_ATTEMPTS} attempts.
+     *
+     * @param seed the random seed.
+     * @param safeRow the row of the first square to be revealed.
+     * @param safeCol the column of the first square to be revealed.
+     * @return a board with its adjacency computed.
+     * @throws IndexOutOfBoundsException if the square is not on the board.
+     */
+    public MineBoard generate(long seed, int safeRow, int safeCol) {
+        MineBoard board = new MineBoard(this.rows, this.cols);
+        int safeIndex = board.index(safeRow, safeCol);
+        if (this.noGuess) {
+            seed = noGuessSeed(seed, safeIndex);
+        }
+        place(board, seed, safeIndex);
+        board.computeAdjacency();
+        return board;
+    } //generate
+
+    /**
+     * Places the mines on an empty board, keeping them off the safe square
+     * and, when there is room, off its neighbours. The adjacency counts are
+     * not computed.
+     *
+     * @param board an empty board of this generator's shape.
+     * @param seed the random seed.
+     * @param safeIndex the flat index of the first square to be revealed.
+     */
+    public void place(MineBoard board, long seed, int safeIndex) {
+        int n = board.size();
+        int[] excluded = safeZone(safeIndex);
+        int space = n - excluded.length;
+        //Excluded squares below space stand in for the free squares at or above it.
+        int[] from = new int[excluded.length];
+        int[] to = new int[excluded.length];
+        int pairs = 0;
+        int tail = space;
+        for (int e : excluded) {
+            if (e < space) {
+                while (Arrays.binarySearch(excluded, tail) >= 0) {
+                    tail++;
+                }
+                from[pairs] = e;
+                to[pairs] = tail++;
+                pairs++;
+            }
+        }
+        //Floyd: each step adds exactly one new square from [0, space).
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int j = space - this.mines; j < space; j++) {
+            int cell = remap(random.nextInt(j + 1), from, to, pairs);
+            if (board.isMine(cell)) {
+                cell = remap(j, from, to, pairs);
+            }
+            board.setMine(cell / this.cols, cell % this.cols);
+        }
+    } //place
+
+    /**
+     * Finds the first seed, starting from the given one, whose board can be
+     * solved from the safe square without guessing. Candidates are checked
+     * in parallel on the fork/join pool.
+     *
+     * @param seed the first seed to try.
+     * @param safeIndex the flat index of the first square to be revealed.
+     * @return the seed found, or the given seed if none of the
+     * {@value #MAX_ATTEMPTS} candidates passed.
+     */
+    public long noGuessSeed(long seed, int safeIndex) {
+        return LongStream.range(0, MAX_ATTEMPTS).parallel()
+            .map(k -> seed + k)
+            .filter(candidate -> isNoGuess(candidate, safeIndex))
+            .findFirst()
+            .orElse(seed);
+    } //noGuessSeed
+
+    /**
+     * Determines if the board for a seed can be won from the safe square
+     * without guessing.
+     *
+     * @param seed the random seed.
+     * @param safeIndex the flat index of the first square to be revealed.
+     * @return true if the solver wins without a guess.
+     */
+    private boolean isNoGuess(long seed, int safeIndex) {
+        MineBoard board = new MineBoard(this.rows, this.cols);
+        place(board, seed, safeIndex);
+        board.computeAdjacency();
+        MinesweeperEngine engine = new MinesweeperEngine(board);
+        engine.reveal(safeIndex / this.cols, safeIndex % this.cols);
+        if (engine.getStatus() == MinesweeperEngine.Status.WON) {
+            return true;
+        }
+        MineSolver.Result result = MineSolver.solve(engine);
+        return (result.getStatus() == MinesweeperEngine.Status.WON) &&
+            (result.getGuesses() == 0);
+    } //isNoGuess
+
+    /**
+     * Returns the squares kept free of mines: the safe square and its
+     * neighbours if the remaining squares can hold every mine, otherwise
+     * just the safe square.
+     *
+     * @param safeIndex the flat index of the safe square.
+     * @return the excluded squares in ascending order.
+     */
+    private int[] safeZone(int safeIndex) {
+        int r = safeIndex / this.cols, c = safeIndex % this.cols;
+        int[] zone = new int[9];
+        int size = 0;
+        for (int nr = Math.max(r - 1, 0); nr <= Math.min(r + 1, this.rows - 1); nr++) {
+            for (int nc = Math.max(c - 1, 0); nc <= Math.min(c + 1, this.cols - 1); nc++) {
+                zone[size++] = nr * this.cols + nc;
+            }
+        }
+        if ((long) this.rows * this.cols - size < this.mines) {
+            return new int[] {safeIndex};
+        }
+        return Arrays.copyOf(zone, size);
+    } //safeZone
+
+    /**
+     * Maps a position in the sampling range to a square on the board.
+     *
+     * @param x the position.
+     * @param from the excluded squares that stand in for free squares.
+     * @param to the free squares they stand in for.
+     * @param pairs the number of entries in use.
+     * @return the flat index of the square.
+     */
+    private static int remap(int x, int[] from, int[] to, int pairs) {
+        for (int k = 0; k < pairs; k++) {
+            if (from[k] == x) {
+                return to[k];
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Writes a board as a seed file: the dimensions, the mine count, then
+     * one mine coordinate per line in row-major order. The board is written
+     * as it is; {@code readSeed()} only accepts it if it has at least 5 rows
+     * and columns, no more than the maximum size, and at least one mine.
+     *
+     * @param board the board to write.
+     * @param seedFileName the path of the file to create.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeSeed(MineBoard board, String seedFileName) throws IOException {
+        StringBuilder text = new StringBuilder(16 + board.getMineCount() * 10);
+        text.append(board.getRows()).append(' ').append(board.getCols()).append('\n');
+        text.append(board.getMineCount()).append('\n');
+        for (int i = 0; i < board.size(); i++) {
+            if (board.isMine(i)) {
+                text.append(i / board.getCols()).append(' ')
+                    .append(i % board.getCols()).append('\n');
+            }
+        }
+        byte[] bytes = new byte[text.length()];
+        for (int k = 0; k < bytes.length; k++) {
+            bytes[k] = (byte) text.charAt(k);
+        }
+        try (FileOutputStream out = new FileOutputStream(seedFileName);
+             FileChannel channel = out.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    } //writeSeed
+
+    public static void main(String[] args) throws Exception {
+        boolean noGuess = false;
+        int firstRow = -1, firstCol = -1;
+        long count = 1;
+        String outDir = ".";
+        int maxSize = MinesweeperGame.DEFAULT_MAX_SIZE;
+        long[] shape = new long[4];
+        int shapeArgs = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--no-guess")) {
+                    noGuess = true;
+                } else if (args[i].equals("--first") && (i + 2 < args.length)) {
+                    firstRow = Integer.parseInt(args[++i]);
+                    firstCol = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--count") && (i + 1 < args.length)) {
+                    count = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--out") && (i + 1 < args.length)) {
+                    outDir = args[++i];
+                } else if (args[i].equals("--max-size") && (i + 1 < args.length)) {
+                    maxSize = Integer.parseInt(args[++i]);
+                } else if (shapeArgs < shape.length) {
+                    shape[shapeArgs++] = Long.parseLong(args[i]);
+                } else {
+                    shapeArgs = -1;
+                    break;
+                }
+            }
+        } catch (NumberFormatException nfe) {
+            shapeArgs = -1;
+        }
+        BoardGenerator generator = null;
+        //Only boards that readSeed() accepts with the same maximum size.
+        if ((shapeArgs == shape.length) && (count > 0) && (shape[0] >= 5) &&
+            (shape[1] >= 5) && (shape[0] <= maxSize) && (shape[1] <= maxSize) &&
+            (shape[2] >= 1) && (shape[2] < shape[0] * shape[1])) {
+            try {
+                generator = new BoardGenerator((int) shape[0], (int) shape[1], (int) shape[2]);
+            } catch (IllegalArgumentException iae) {
+                System.err.println();
+                System.err.println(iae.getMessage());
+                System.exit(1);
+            }
+        }
+        if (generator == null) {
+            System.err.println();
+            System.err.println("Usage: BoardGenerator [--no-guess] [--first ROW COL] " +
+                "[--count N] [--out DIR] [--max-size N] ROWS COLS MINES SEED");
+            System.exit(1);
+        }
+        generator.setNoGuess(noGuess);
+        int safeRow = (firstRow < 0) ? generator.getRows() / 2 : firstRow;
+        int safeCol = (firstCol < 0) ? generator.getCols() / 2 : firstCol;
+        long seed = shape[3];
+        BoardGenerator gen = generator;
+        String dir = outDir;
+
+        long start = System.nanoTime();
+        //In no-guess mode each board already searches its candidates in parallel.
+        LongStream seeds = LongStream.range(seed, seed + count);
+        if (noGuess == false) {
+            seeds = seeds.parallel();
+        }
+        seeds.forEach(s -> {
+            try {
+                writeSeed(gen.generate(s, safeRow, safeCol),
+                    new File(dir, "board-" + s + ".seed.txt").getPath());
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d %s boards (%dx%d, %d mines, first reveal %d %d) in %.2f s%n",
+            count, noGuess ? "no-guess" : "random", generator.getRows(), generator.getCols(),
+            (int) shape[2], safeRow, safeCol, seconds);
+        System.out.printf("%,.1f boards/s%n", count / seconds);
+    } //main
+} //BoardGenerator
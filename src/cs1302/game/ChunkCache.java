@@ -0,0 +1,298 @@
+package cs1302.game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * This class keeps a bounded number of {@link ChunkedBoard} chunks in
+ * memory. Chunks are kept in least-recently-used order; when there are too
+ * many, the coldest one is dropped, and if the player changed it, it is
+ * first written to a fixed-size slot of a spill file through a
+ * {@link FileChannel}. A chunk that is needed again is read back from its
+ * slot with one positional read, and a chunk that was never touched is
+ * created from the board's seed. The cache counts hits, misses (loads plus
+ * creations), evictions and writes of the game's own lookups so its
+ * behaviour can be reported; drawing the board reads chunks through
+ * {@link #peek(long)}, which leaves the counts and the order alone.
+ */
+public class ChunkCache implements AutoCloseable {
+    /** The number of rows and columns in a chunk, as a power of two. */
+    public static final int CHUNK_BITS = 6;
+    /** The number of rows and columns in a chunk. */
+    public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    //Bytes of one spill slot: the mine bits followed by the square bytes.
+    private static final int SLOT_BYTES = CHUNK_SIZE * Long.BYTES + CHUNK_SIZE * CHUNK_SIZE;
+    //Approximate heap cost of one resident chunk, including object headers.
+    private static final int CHUNK_BYTES = SLOT_BYTES + 96;
+
+    /** One square block of the board. */
+    static final class Chunk {
+        /** The chunk row in the high half and the chunk column in the low half. */
+        final long key;
+        /** Bit c of word r is set if square (r, c) of the chunk holds a mine. */
+        final long[] mines = new long[CHUNK_SIZE];
+        /** One byte per square, laid out like {@link MineBoard}'s squares. */
+        final byte[] cells = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        /** True if a square changed since the chunk was created or loaded. */
+        boolean modified;
+        /** True once the chunk has been dropped from the cache. */
+        boolean evicted;
+
+        /**
+         * Constructs an empty chunk.
+         *
+         * @param key the chunk's key.
+         */
+        Chunk(long key) {
+            this.key = key;
+        }
+    } //Chunk
+
+    private final int maxChunks;
+    private final LongFunction<Chunk> creator;
+    private final LinkedHashMap<Long, Chunk> resident;
+    //Spill slot of every chunk that has been written out.
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final Path spillPath;
+    private final FileChannel spill;
+    private final ByteBuffer io = ByteBuffer.allocate(SLOT_BYTES);
+    //Read-only copy of the spilled chunk peeked at last.
+    private Chunk peeked;
+    private long hits, misses, created, loaded, evictions, writes;
+
+    /**
+     * Constructs a cache with a new temporary spill file.
+     *
+     * @param maxChunks the largest number of chunks kept in memory.
+     * @param creator creates a chunk that was never touched, given its key.
+     * @throws IOException if the spill file cannot be created.
+     */
+    public ChunkCache(int maxChunks, LongFunction<Chunk> creator) throws IOException {
+        if (maxChunks < 1) {
+            throw new IllegalArgumentException("The cache must hold at least one chunk");
+        }
+        this.maxChunks = maxChunks;
+        this.creator = creator;
+        //Kept in insertion order; get() moves a chunk to the end itself.
+        this.resident = new LinkedHashMap<>();
+        this.spillPath = Files.createTempFile("minesweeper-chunks", ".bin");
+        this.spill = FileChannel.open(this.spillPath, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    /**
+     * Returns a chunk, loading it from the spill file or creating it if it
+     * is not in memory.
+     *
+     * @param key the chunk's key.
+     * @return the chunk, which is now the most recently used.
+     */
+    Chunk get(long key) {
+        Chunk chunk = lookup(key);
+        if (chunk == null) {
+            chunk = this.creator.apply(key);
+            this.misses++;
+            this.created++;
+            admit(chunk);
+        }
+        return chunk;
+    } //get
+
+    /**
+     * Returns a chunk for reading if it was ever touched, without creating
+     * it. The lookup is not counted and does not make the chunk the most
+     * recently used, and a spilled chunk is read into a copy that is not
+     * admitted, so drawing the board never evicts a chunk the game needs.
+     *
+     * @param key the chunk's key.
+     * @return the chunk, or null if it was never created; a spilled chunk
+     *     must not be changed.
+     */
+    Chunk peek(long key) {
+        Chunk chunk = this.resident.get(key);
+        if (chunk != null) {
+            return chunk;
+        }
+        if ((this.peeked != null) && (this.peeked.key == key)) {
+            return this.peeked;
+        }
+        Integer slot = this.slots.get(key);
+        if (slot == null) {
+            return null;
+        }
+        chunk = new Chunk(key);
+        read(slot, chunk);
+        this.peeked = chunk;
+        return chunk;
+    } //peek
+
+    /**
+     * Finds a resident chunk or loads a spilled one, making it the most
+     * recently used.
+     *
+     * @param key the chunk's key.
+     * @return the chunk, or null if it was never created.
+     */
+    private Chunk lookup(long key) {
+        Chunk chunk = this.resident.remove(key);
+        if (chunk != null) {
+            this.resident.put(key, chunk);
+            this.hits++;
+            return chunk;
+        }
+        Integer slot = this.slots.get(key);
+        if (slot == null) {
+            return null;
+        }
+        this.misses++;
+        chunk = new Chunk(key);
+        read(slot, chunk);
+        this.loaded++;
+        admit(chunk);
+        return chunk;
+    } //lookup
+
+    /**
+     * Reads a chunk from its spill slot.
+     *
+     * @param slot the chunk's slot.
+     * @param chunk the empty chunk to fill.
+     */
+    private void read(int slot, Chunk chunk) {
+        try {
+            this.io.clear();
+            long position = (long) slot * SLOT_BYTES;
+            while (this.io.hasRemaining()) {
+                if (this.spill.read(this.io, position + this.io.position()) < 0) {
+                    throw new IOException("Spill file truncated at slot " + slot);
+                }
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        this.io.flip();
+        this.io.asLongBuffer().get(chunk.mines);
+        this.io.position(CHUNK_SIZE * Long.BYTES);
+        this.io.get(chunk.cells);
+    } //read
+
+    /**
+     * Adds a chunk to the cache and evicts the coldest chunks if it is full.
+     *
+     * @param chunk the chunk to add.
+     */
+    private void admit(Chunk chunk) {
+        this.resident.put(chunk.key, chunk);
+        Iterator<Chunk> coldest = this.resident.values().iterator();
+        while (this.resident.size() > this.maxChunks) {
+            Chunk victim = coldest.next();
+            coldest.remove();
+            victim.evicted = true;
+            this.evictions++;
+            if (victim.modified) {
+                write(victim);
+            }
+        }
+    } //admit
+
+    /**
+     * Writes a chunk to its spill slot, allocating the slot on first use.
+     *
+     * @param chunk the chunk to write.
+     */
+    private void write(Chunk chunk) {
+        if ((this.peeked != null) && (this.peeked.key == chunk.key)) {
+            this.peeked = null;
+        }
+        Integer slot = this.slots.get(chunk.key);
+        if (slot == null) {
+            slot = this.slots.size();
+            this.slots.put(chunk.key, slot);
+        }
+        this.io.clear();
+        this.io.asLongBuffer().put(chunk.mines);
+        this.io.position(CHUNK_SIZE * Long.BYTES);
+        this.io.put(chunk.cells);
+        this.io.flip();
+        try {
+            long position = (long) slot * SLOT_BYTES;
+            while (this.io.hasRemaining()) {
+                this.spill.write(this.io, position + this.io.position());
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        this.writes++;
+    } //write
+
+    /**
+     * Returns the number of chunks in memory.
+     *
+     * @return the resident chunk count.
+     */
+    public int getResident() {
+        return this.resident.size();
+    }
+
+    /**
+     * Returns the approximate heap used by the resident chunks.
+     *
+     * @return the number of bytes.
+     */
+    public long getMemoryBytes() {
+        return (long) this.resident.size() * CHUNK_BYTES;
+    }
+
+    /**
+     * Returns the size of the spill file.
+     *
+     * @return the number of bytes written to disk.
+     */
+    public long getSpillBytes() {
+        return (long) this.slots.size() * SLOT_BYTES;
+    }
+
+    /**
+     * Returns the fraction of lookups that found the chunk in memory.
+     *
+     * @return the hit rate, or 0 if nothing was looked up.
+     */
+    public double getHitRate() {
+        long lookups = this.hits + this.misses;
+        return (lookups == 0) ? 0.0 : (double) this.hits / lookups;
+    }
+
+    /**
+     * Describes the state of the cache in one line.
+     *
+     * @return the chunk counts, memory use and hit rate.
+     */
+    @Override
+    public String toString() {
+        return String.format("Chunks: %d resident (%,d KB, limit %d), %d created, %d loaded, " +
+            "%d evicted, %d written (%,d KB on disk); hit rate %.1f%%",
+            this.resident.size(), getMemoryBytes() / 1024, this.maxChunks, this.created,
+            this.loaded, this.evictions, this.writes, getSpillBytes() / 1024,
+            100.0 * getHitRate());
+    }
+
+    /**
+     * Closes and deletes the spill file.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.spill.close();
+    }
+} //ChunkCache
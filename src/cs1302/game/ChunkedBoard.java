@@ -0,0 +1,430 @@
+package cs1302.game;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * This class is a minefield too large to hold in memory at once. The field
+ * is split into square chunks of {@value ChunkCache#CHUNK_SIZE} rows and
+ * columns that live in a {@link ChunkCache}, so memory use is bounded by the
+ * cache size instead of the board size. A chunk is created the first time
+ * reveal, mark or guess touches one of its squares. Its mines are derived
+ * from the board's seed and the chunk's coordinates, so the same seed always
+ * gives the same field and an untouched chunk never has to be stored.
+ *
+ * <p>Squares use the same byte layout as {@link MineBoard}: the state in the
+ * low nibble and the adjacent mine count in the high nibble. The adjacency
+ * of squares on a chunk's edge is worked out from the neighbouring chunks'
+ * mines, and the flood fill in {@link #reveal(int, int)} crosses chunk
+ * boundaries freely. A region larger than the chunk cache can hold is
+ * opened only that far; the zero squares on its edge are left hidden and
+ * opened with the rest of the region when they come into view, through
+ * {@link #revealPending(int, int, int, int)}.
+ *
+ * <p>The total number of mines is never computed, so a chunked board has no
+ * win condition: the game lasts until a mine is revealed or the player quits.
+ */
+public class ChunkedBoard implements Minefield, AutoCloseable {
+    private static final int MASK = ChunkCache.CHUNK_SIZE - 1;
+    //State of a zero square a flood fill stopped at: hidden until it is opened.
+    private static final byte PENDING = 12;
+
+    private final int rows, cols;
+    private final double density;
+    private final long seed;
+    private final ChunkCache cache;
+    //The most squares one flood fill reveals: as many as the cache holds.
+    private final int fillLimit;
+    private long revealed;
+    //The chunk used last, to skip the cache lookup for neighbouring squares.
+    private ChunkCache.Chunk last;
+    //Mines of the last chunk looked at but not created, for nofog.
+    private long lastMinesKey = -1;
+    private long[] lastMines;
+    //Reusable work queue of packed coordinates for the flood fill.
+    private long[] fillQueue = new long[64];
+
+    /**
+     * Constructs a board with every square hidden.
+     *
+     * @param rows the number of rows on the board.
+     * @param cols the number of columns on the board.
+     * @param density the chance that any square holds a mine.
+     * @param seed the random seed the mines are derived from.
+     * @param maxChunks the largest number of chunks kept in memory.
+     * @throws IOException if the cache's spill file cannot be created.
+     */
+    public ChunkedBoard(int rows, int cols, double density, long seed, int maxChunks)
+        throws IOException {
+        if ((rows < 1) || (cols < 1) || !(density >= 0.0) || (density >= 1.0)) {
+            throw new IllegalArgumentException("Invalid chunked board: " + rows + "x" + cols +
+                " with mine density " + density);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.density = density;
+        this.seed = seed;
+        this.cache = new ChunkCache(maxChunks, this::create);
+        this.fillLimit = (int) Math.min((long) maxChunks * ChunkCache.CHUNK_SIZE *
+            ChunkCache.CHUNK_SIZE, Integer.MAX_VALUE - 8);
+    }
+
+    @Override
+    public int getRows() {
+        return this.rows;
+    }
+
+    @Override
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * Returns the cache holding the chunks, for its statistics.
+     *
+     * @return the chunk cache.
+     */
+    public ChunkCache getCache() {
+        return this.cache;
+    }
+
+    /**
+     * Returns the number of squares revealed so far.
+     *
+     * @return the revealed square count.
+     */
+    public long getRevealed() {
+        return this.revealed;
+    }
+
+    /**
+     * Determines if a square contains a mine. A chunk that was never
+     * touched is not created; its mines are derived on the fly. Like
+     * {@link #getCell(int, int)}, this is how the board is drawn, so it does
+     * not count as a use of the chunk in the cache's statistics.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return true if the square contains a mine.
+     * @throws IndexOutOfBoundsException if the square is not on the board.
+     */
+    @Override
+    public boolean isMine(int r, int c) {
+        checkIndex(r, c);
+        long key = key(r, c);
+        ChunkCache.Chunk chunk = this.cache.peek(key);
+        long[] mines;
+        if (chunk != null) {
+            mines = chunk.mines;
+        } else {
+            if (key != this.lastMinesKey) {
+                this.lastMines = minesOf((int) (key >>> 32), (int) key);
+                this.lastMinesKey = key;
+            }
+            mines = this.lastMines;
+        }
+        return (mines[r & MASK] & (1L << (c & MASK))) != 0;
+    } //isMine
+
+    /**
+     * Returns the state of a square. A chunk that was never touched is
+     * reported as hidden without being created, and the chunk cache's
+     * statistics and order are left alone.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return the state of the square.
+     * @throws IndexOutOfBoundsException if the square is not on the board.
+     */
+    @Override
+    public byte getCell(int r, int c) {
+        checkIndex(r, c);
+        ChunkCache.Chunk chunk = this.cache.peek(key(r, c));
+        if (chunk == null) {
+            return MineBoard.HIDDEN;
+        }
+        byte state = (byte) (chunk.cells[offset(r, c)] & 0x0F);
+        return (state == PENDING) ? MineBoard.HIDDEN : state;
+    }
+
+    /**
+     * Sets the state of a square, creating its chunk if needed.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @param state the new state of the square.
+     * @throws IndexOutOfBoundsException if the square is not on the board.
+     */
+    public void setCell(int r, int c, byte state) {
+        checkIndex(r, c);
+        ChunkCache.Chunk chunk = chunk(r, c);
+        int k = offset(r, c);
+        byte old = (byte) (chunk.cells[k] & 0x0F);
+        if ((old > 8) && (state <= 8)) {
+            this.revealed++;
+        } else if ((old <= 8) && (state > 8)) {
+            this.revealed--;
+        }
+        chunk.cells[k] = (byte) ((chunk.cells[k] & 0xF0) | state);
+        chunk.modified = true;
+    } //setCell
+
+    /**
+     * Reveals a square that does not contain a mine. If the square has no
+     * adjacent mines, every hidden or guessed square connected to it through
+     * other zero squares is revealed as well, across chunk boundaries,
+     * nearest first. Once as many squares as the chunk cache holds have been
+     * revealed the fill stops, and the zero squares still waiting to be
+     * opened are left hidden for {@link #revealPending(int, int, int, int)}.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return the number of squares whose state changed to revealed.
+     * @throws IndexOutOfBoundsException if the square is not on the board.
+     */
+    public long reveal(int r, int c) {
+        checkIndex(r, c);
+        long before = this.revealed;
+        int adjacent = getAdjacent(r, c);
+        setCell(r, c, (byte) adjacent);
+        if (adjacent != 0) {
+            return this.revealed - before;
+        }
+        long[] queue = this.fillQueue;
+        int head = 0, tail = 0;
+        queue[tail++] = pack(r, c);
+        while (head < tail) {
+            if (this.revealed - before >= this.fillLimit) {
+                //Leave the far edge of the region until it comes into view.
+                while (head < tail) {
+                    long cur = queue[head++];
+                    setCell((int) (cur >>> 32), (int) cur, PENDING);
+                }
+                break;
+            }
+            long cur = queue[head++];
+            int cr = (int) (cur >>> 32), cc = (int) cur;
+            int rowStart = Math.max(cr - 1, 0), rowEnd = Math.min(cr + 1, this.rows - 1);
+            int colStart = Math.max(cc - 1, 0), colEnd = Math.min(cc + 1, this.cols - 1);
+            for (int nr = rowStart; nr <= rowEnd; nr++) {
+                for (int nc = colStart; nc <= colEnd; nc++) {
+                    ChunkCache.Chunk chunk = chunk(nr, nc);
+                    int k = offset(nr, nc);
+                    byte state = (byte) (chunk.cells[k] & 0x0F);
+                    if ((state == MineBoard.HIDDEN) || (state == MineBoard.GUESS) ||
+                        (state == PENDING)) {
+                        int count = (chunk.cells[k] >>> 4) & 0x0F;
+                        setCell(nr, nc, (byte) count);
+                        if (count == 0) {
+                            if (tail == queue.length) {
+                                queue = Arrays.copyOf(queue, queue.length * 2);
+                                this.fillQueue = queue;
+                            }
+                            queue[tail++] = pack(nr, nc);
+                        }
+                    }
+                }
+            }
+        }
+        return this.revealed - before;
+    } //reveal
+
+    /**
+     * Opens the regions a flood fill stopped short of wherever they reach a
+     * part of the board about to be drawn: each zero square left hidden in
+     * it, or next to it, is revealed with its region, as far as one fill goes.
+     *
+     * @param top the first row to be drawn.
+     * @param left the first column to be drawn.
+     * @param height the number of rows to be drawn.
+     * @param width the number of columns to be drawn.
+     * @return the number of squares whose state changed to revealed.
+     */
+    public long revealPending(int top, int left, int height, int width) {
+        long before = this.revealed;
+        int rowStart = Math.max(top - 1, 0), rowEnd = Math.min(top + height, this.rows - 1);
+        int colStart = Math.max(left - 1, 0), colEnd = Math.min(left + width, this.cols - 1);
+        for (int r = rowStart; r <= rowEnd; r++) {
+            for (int c = colStart; c <= colEnd; c++) {
+                ChunkCache.Chunk chunk = this.cache.peek(key(r, c));
+                if ((chunk != null) && ((chunk.cells[offset(r, c)] & 0x0F) == PENDING)) {
+                    reveal(r, c);
+                }
+            }
+        }
+        return this.revealed - before;
+    } //revealPending
+
+    /**
+     * Returns the number of mines adjacent to a square, creating its chunk
+     * if needed.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return the number of adjacent mines.
+     */
+    public int getAdjacent(int r, int c) {
+        checkIndex(r, c);
+        return (chunk(r, c).cells[offset(r, c)] >>> 4) & 0x0F;
+    }
+
+    /**
+     * Closes the chunk cache and deletes its spill file.
+     *
+     * @throws IOException if the spill file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.cache.close();
+    }
+
+    /**
+     * Returns the chunk holding a square, going through the cache only when
+     * the square is not in the chunk used last.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return the chunk, created or loaded if needed.
+     */
+    private ChunkCache.Chunk chunk(int r, int c) {
+        long key = key(r, c);
+        ChunkCache.Chunk chunk = this.last;
+        if ((chunk == null) || (chunk.key != key) || chunk.evicted) {
+            chunk = this.cache.get(key);
+            this.last = chunk;
+        }
+        return chunk;
+    }
+
+    /**
+     * Creates a chunk that was never touched: derives its mines and those of
+     * its neighbours, then counts the mines around each of its squares.
+     *
+     * @param key the chunk's key.
+     * @return the new chunk with every square hidden.
+     */
+    private ChunkCache.Chunk create(long key) {
+        int chunkRow = (int) (key >>> 32), chunkCol = (int) key;
+        ChunkCache.Chunk chunk = new ChunkCache.Chunk(key);
+        //Mines of the 3x3 block of chunks centred on this one; null off the board.
+        long[][] around = new long[9][];
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                around[(dr + 1) * 3 + dc + 1] = minesOf(chunkRow + dr, chunkCol + dc);
+            }
+        }
+        System.arraycopy(around[4], 0, chunk.mines, 0, ChunkCache.CHUNK_SIZE);
+        for (int r = 0; r < ChunkCache.CHUNK_SIZE; r++) {
+            for (int c = 0; c < ChunkCache.CHUNK_SIZE; c++) {
+                int count = 0;
+                for (int nr = r - 1; nr <= r + 1; nr++) {
+                    for (int nc = c - 1; nc <= c + 1; nc++) {
+                        if (((nr != r) || (nc != c)) && mineAround(around, nr, nc)) {
+                            count++;
+                        }
+                    }
+                }
+                chunk.cells[(r << ChunkCache.CHUNK_BITS) + c] =
+                    (byte) ((count << 4) | MineBoard.HIDDEN);
+            }
+        }
+        return chunk;
+    } //create
+
+    /**
+     * Determines if a square near a chunk holds a mine, given the mines of
+     * the surrounding 3x3 block of chunks.
+     *
+     * @param around the mines of the 3x3 block of chunks.
+     * @param r the row relative to the centre chunk, from -1 to CHUNK_SIZE.
+     * @param c the column relative to the centre chunk, from -1 to CHUNK_SIZE.
+     * @return true if the square holds a mine.
+     */
+    private static boolean mineAround(long[][] around, int r, int c) {
+        int blockRow = (r < 0) ? 0 : (r >= ChunkCache.CHUNK_SIZE) ? 2 : 1;
+        int blockCol = (c < 0) ? 0 : (c >= ChunkCache.CHUNK_SIZE) ? 2 : 1;
+        long[] mines = around[blockRow * 3 + blockCol];
+        return (mines != null) && ((mines[r & MASK] & (1L << (c & MASK))) != 0);
+    }
+
+    /**
+     * Derives the mines of a chunk from the board's seed and the chunk's
+     * coordinates. Squares beyond the edge of the board never hold a mine.
+     *
+     * @param chunkRow the chunk's row.
+     * @param chunkCol the chunk's column.
+     * @return one word of mine bits per chunk row, or null if the chunk is
+     * off the board.
+     */
+    private long[] minesOf(int chunkRow, int chunkCol) {
+        if ((chunkRow < 0) || (chunkCol < 0) ||
+            ((long) chunkRow << ChunkCache.CHUNK_BITS >= this.rows) ||
+            ((long) chunkCol << ChunkCache.CHUNK_BITS >= this.cols)) {
+            return null;
+        }
+        SplittableRandom random = new SplittableRandom(this.seed ^
+            (chunkRow * 0x9E3779B97F4A7C15L) ^ (chunkCol * 0xC2B2AE3D27D4EB4FL));
+        long[] mines = new long[ChunkCache.CHUNK_SIZE];
+        long firstCol = (long) chunkCol << ChunkCache.CHUNK_BITS;
+        long validCols = Math.min(ChunkCache.CHUNK_SIZE, this.cols - firstCol);
+        long colMask = (validCols == ChunkCache.CHUNK_SIZE) ? -1L : (1L << validCols) - 1;
+        for (int r = 0; r < ChunkCache.CHUNK_SIZE; r++) {
+            long word = 0;
+            for (int c = 0; c < ChunkCache.CHUNK_SIZE; c++) {
+                if (random.nextDouble() < this.density) {
+                    word |= 1L << c;
+                }
+            }
+            boolean onBoard = ((long) chunkRow << ChunkCache.CHUNK_BITS) + r < this.rows;
+            mines[r] = onBoard ? (word & colMask) : 0L;
+        }
+        return mines;
+    } //minesOf
+
+    /**
+     * Checks that a square is on the board, with the same messages as
+     * {@link MineBoard#index(int, int)}.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     */
+    private void checkIndex(int r, int c) {
+        Objects.checkIndex(r, this.rows);
+        Objects.checkIndex(c, this.cols);
+    }
+
+    /**
+     * Returns the key of the chunk holding a square.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return the chunk row in the high half and the chunk column in the low half.
+     */
+    private static long key(int r, int c) {
+        return pack(r >>> ChunkCache.CHUNK_BITS, c >>> ChunkCache.CHUNK_BITS);
+    }
+
+    /**
+     * Returns the position of a square within its chunk.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return the index into the chunk's square bytes.
+     */
+    private static int offset(int r, int c) {
+        return ((r & MASK) << ChunkCache.CHUNK_BITS) | (c & MASK);
+    }
+
+    /**
+     * Packs two non-negative ints into a long.
+     *
+     * @param high the value for the high half.
+     * @param low the value for the low half.
+     * @return the packed value.
+     */
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | low;
+    }
+} //ChunkedBoard
@@ -0,0 +1,202 @@
+package cs1302.game;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is the console front end for a game on a {@link ChunkedBoard}.
+ * It reads the same commands as {@link MinesweeperGame} and prints the same
+ * messages, but since the board may be far too large to print, each frame
+ * shows a window of the board centred on the last square played. The
+ * {@code chunks} command reports the chunk cache's memory use and hit rate.
+ * A chunked board has no win condition, so the game ends when a mine is
+ * revealed or the player quits.
+ */
+public class ChunkedGame {
+    /** The largest number of rows or columns shown in a frame. */
+    public static final int WINDOW_SIZE = 10;
+
+    private final ChunkedBoard board;
+    private final CommandTokenizer commands;
+    private final MineFieldRenderer renderer = new MineFieldRenderer(System.out);
+    private int round;
+    private MinesweeperEngine.Status status = MinesweeperEngine.Status.PLAYING;
+    private boolean batchMode;
+    //The square the window is centred on.
+    private int focusRow, focusCol;
+
+    /**
+     * Constructs a game on a chunked board.
+     *
+     * @param commands the source of user commands.
+     * @param board the board to play on.
+     */
+    public ChunkedGame(CommandTokenizer commands, ChunkedBoard board) {
+        this.commands = commands;
+        this.board = board;
+    }
+
+    /**
+     * Enables or disables batch mode, in which the prompt and the redraw
+     * after each command are skipped.
+     *
+     * @param batchMode true to run commands without per-command output.
+     */
+    public void setBatchMode(boolean batchMode) {
+        this.batchMode = batchMode;
+    }
+
+    /**
+     * Displays the window of the board around the last square played,
+     * first opening any region a reveal stopped short of in the window.
+     *
+     * @param showMines true to surround squares containing a mine with "<>".
+     */
+    public void printMineField(boolean showMines) {
+        int height = Math.min(WINDOW_SIZE, this.board.getRows());
+        int width = Math.min(WINDOW_SIZE, this.board.getCols());
+        int top = Math.max(0, Math.min(this.focusRow - height / 2, this.board.getRows() - height));
+        int left = Math.max(0, Math.min(this.focusCol - width / 2, this.board.getCols() - width));
+        this.board.revealPending(top, left, height, width);
+        this.renderer.printWindow(this.board, this.round, top, left, height, width, showMines);
+    } //printMineField
+
+    /**
+     * Prints the game prompt, reads one command and carries it out. Uses
+     * the same commands and error messages as {@link MinesweeperGame}.
+     *
+     * @return false if there are no commands left to read.
+     */
+    public boolean promptUser() {
+        if (this.batchMode == false) {
+            System.out.print("minesweeper-alpha: ");
+        }
+        if (this.commands.nextLine() == false) {
+            return false;
+        }
+        String error = null;
+        boolean redraw = true;
+        try {
+            if (this.commands.next() == false) {
+                error = "\nInvalid Command: Command not recognized!";
+            } else if (this.commands.is("r") || this.commands.is("reveal") ||
+                this.commands.is("m") || this.commands.is("mark") ||
+                this.commands.is("g") || this.commands.is("guess")) {
+                boolean reveal = this.commands.is("r") || this.commands.is("reveal");
+                byte state = (this.commands.is("m") || this.commands.is("mark"))
+                    ? MineBoard.FLAG : MineBoard.GUESS;
+                int r = this.commands.nextInt();
+                int c = this.commands.nextInt();
+                if (this.commands.hasNext()) {
+                    error = "Invalid Command: Command not recognized!";
+                } else if (reveal) {
+                    redraw = reveal(r, c);
+                } else {
+                    this.board.setCell(r, c, state);
+                    focus(r, c);
+                }
+            } else if (this.commands.is("nofog") && !this.commands.hasNext()) {
+                this.round++;
+                printMineField(true);
+                redraw = false;
+            } else if ((this.commands.is("h") || this.commands.is("help")) &&
+                !this.commands.hasNext()) {
+                this.round++;
+                help();
+            } else if (this.commands.is("chunks") && !this.commands.hasNext()) {
+                System.out.println();
+                System.out.println(this.board.getCache());
+            } else if ((this.commands.is("q") || this.commands.is("quit")) &&
+                !this.commands.hasNext()) {
+                this.status = MinesweeperEngine.Status.QUIT;
+                System.out.println();
+                System.out.println("Quitting the game...");
+                System.out.println("Bye!");
+                redraw = false;
+            } else {
+                error = "\nInvalid Command: Command not recognized!";
+            }
+        } catch (IndexOutOfBoundsException | NoSuchElementException |
+            NumberFormatException e) {
+            error = "Invalid Command: " + e.getMessage();
+        }
+        if (error != null) {
+            System.err.println(error);
+        }
+        if (redraw && (this.batchMode == false)) {
+            printMineField(false);
+        }
+        return true;
+    } //promptUser
+
+    /**
+     * Reveals a square, ending the game if it holds a mine.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return true if the game goes on and the board should be redrawn.
+     */
+    private boolean reveal(int r, int c) {
+        if (this.board.isMine(r, c)) {
+            this.status = MinesweeperEngine.Status.LOST;
+            return false;
+        }
+        this.board.reveal(r, c);
+        focus(r, c);
+        return true;
+    } //reveal
+
+    /**
+     * Centres the window on a square and uses up a round.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     */
+    private void focus(int r, int c) {
+        this.focusRow = r;
+        this.focusCol = c;
+        this.round++;
+    }
+
+    /**
+     * Displays the available commands to standard output.
+     */
+    private void help() {
+        System.out.println();
+        System.out.println("Commands Available...");
+        System.out.println(" - Reveal: r/reveal row col");
+        System.out.println(" -   Mark: m/mark   row col" );
+        System.out.println(" -  Guess: g/guess  row col" );
+        System.out.println(" - Chunks: chunks");
+        System.out.println(" -   Help: h/help");
+        System.out.println(" -   Quit: q/quit" );
+    } //help
+
+    /**
+     * Provides the main game loop. Returns once a mine is revealed, the
+     * player quits or the commands run out, and closes the board.
+     *
+     * @return the state the game ended in.
+     * @throws IOException if the board's spill file cannot be closed.
+     */
+    public MinesweeperEngine.Status play() throws IOException {
+        if (this.batchMode == false) {
+            System.out.println("Chunked minefield: " + this.board.getRows() + " x " +
+                this.board.getCols());
+            printMineField(false);
+        }
+        boolean moreCommands = true;
+        while ((this.status == MinesweeperEngine.Status.PLAYING) && moreCommands) {
+            moreCommands = promptUser();
+        }
+        if (this.status == MinesweeperEngine.Status.LOST) {
+            MinesweeperGame.printLoss();
+        } else if (this.batchMode && (this.status == MinesweeperEngine.Status.PLAYING)) {
+            printMineField(false);
+        }
+        System.out.println("Squares revealed: " + this.board.getRevealed());
+        System.out.println(this.board.getCache());
+        this.board.close();
+        return this.status;
+    } //play
+} //ChunkedGame
@@ -0,0 +1,329 @@
+package cs1302.game;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/**
+ * This class splits Minesweeper Alpha commands into whitespace-separated
+ * tokens. Each line is held in a single reusable char buffer and tokens are
+ * compared and parsed in place, so reading a command allocates nothing
+ * unless it is malformed. Lines come either from a {@link Scanner} one at a
+ * time (interactive play) or straight from a {@link Reader} in large blocks
+ * (scripted play), or are handed over whole with {@link #setLine} (network
+ * sessions).
+ *
+ * <p>Malformed input raises the same exceptions, with the same messages,
+ * as {@link Scanner#next()} and {@link Integer#parseInt(String)}.
+ */
+public class CommandTokenizer {
+    private final Scanner scanner;
+    private final Reader reader;
+    private char[] buf;
+    //Characters [bufPos, bufLen) have been read from the reader but not used yet.
+    private int bufPos, bufLen;
+    private boolean endOfInput;
+    //The current line ends at lineEnd and the next token starts at or after pos.
+    private int lineEnd, pos;
+    private int tokenStart, tokenEnd;
+
+    /**
+     * Constructs a tokenizer with no input of its own. Lines are handed to
+     * it with {@link #setLine(byte[], int, int)}.
+     */
+    public CommandTokenizer() {
+        this(Reader.nullReader(), 16);
+    }
+
+    /**
+     * Constructs a tokenizer reading one line at a time from a Scanner.
+     *
+     * @param scanner the scanner commands are read from.
+     */
+    public CommandTokenizer(Scanner scanner) {
+        this.scanner = scanner;
+        this.reader = null;
+        this.buf = new char[256];
+    }
+
+    /**
+     * Constructs a tokenizer reading commands in bulk from a Reader, in
+     * blocks of 64K characters.
+     *
+     * @param reader the reader commands are read from.
+     */
+    public CommandTokenizer(Reader reader) {
+        this(reader, 1 << 16);
+    }
+
+    /**
+     * Constructs a tokenizer reading commands in bulk from a Reader.
+     *
+     * @param reader the reader commands are read from.
+     * @param bufferSize the number of characters to read at a time.
+     */
+    public CommandTokenizer(Reader reader, int bufferSize) {
+        this.scanner = null;
+        this.reader = reader;
+        this.buf = new char[Math.max(bufferSize, 16)];
+    }
+
+    /**
+     * Advances to the next line of input.
+     *
+     * @return false if there are no lines left.
+     */
+    public boolean nextLine() {
+        if (this.scanner != null) {
+            if (this.scanner.hasNextLine() == false) {
+                return false;
+            }
+            String line = this.scanner.nextLine();
+            ensureCapacity(line.length());
+            line.getChars(0, line.length(), this.buf, 0);
+            setLine(0, line.length());
+            return true;
+        }
+        try {
+            return readLine();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    } //nextLine
+
+    /**
+     * Makes the given bytes the current line, replacing the line read last.
+     * Each byte is taken as one ISO-8859-1 character, which covers every
+     * character of the command language.
+     *
+     * @param line the bytes of the line, without its terminator.
+     * @param offset the index of the first byte of the line.
+     * @param length the number of bytes in the line.
+     */
+    public void setLine(byte[] line, int offset, int length) {
+        ensureCapacity(length);
+        for (int k = 0; k < length; k++) {
+            this.buf[k] = (char) (line[offset + k] & 0xFF);
+        }
+        setLine(0, length);
+    } //setLine
+
+    /**
+     * Advances to the next token on the current line.
+     *
+     * @return false if the line has no tokens left.
+     */
+    public boolean next() {
+        int p = this.pos;
+        while ((p < this.lineEnd) && Character.isWhitespace(this.buf[p])) {
+            p++;
+        }
+        if (p == this.lineEnd) {
+            this.pos = p;
+            return false;
+        }
+        this.tokenStart = p;
+        while ((p < this.lineEnd) && !Character.isWhitespace(this.buf[p])) {
+            p++;
+        }
+        this.tokenEnd = p;
+        this.pos = p;
+        return true;
+    } //next
+
+    /**
+     * Determines if the current line has any tokens left.
+     *
+     * @return true if another token follows.
+     */
+    public boolean hasNext() {
+        for (int p = this.pos; p < this.lineEnd; p++) {
+            if (!Character.isWhitespace(this.buf[p])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if the current token is the given word.
+     *
+     * @param word the word to compare with.
+     * @return true if the token matches exactly.
+     */
+    public boolean is(String word) {
+        int length = this.tokenEnd - this.tokenStart;
+        if (length != word.length()) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (this.buf[this.tokenStart + k] != word.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current token as a string. Unlike the other methods this
+     * allocates, so it is meant for rare arguments such as file names.
+     *
+     * @return the current token.
+     */
+    public String token() {
+        return new String(this.buf, this.tokenStart, this.tokenEnd - this.tokenStart);
+    }
+
+    /**
+     * Advances to the next token and parses it as a decimal int.
+     *
+     * @return the value of the token.
+     * @throws NoSuchElementException if the line has no tokens left.
+     * @throws NumberFormatException if the token is not an int.
+     */
+    public int nextInt() {
+        if (next() == false) {
+            throw new NoSuchElementException();
+        }
+        return parseInt(this.tokenStart, this.tokenEnd);
+    } //nextInt
+
+    /**
+     * Advances to the next token and parses it as an inclusive range of
+     * ints written {@code first:last}, or as a single int, which is the
+     * range holding only that value.
+     *
+     * @return the first value in the high 32 bits and the last value in the
+     *     low 32 bits.
+     * @throws NoSuchElementException if the line has no tokens left.
+     * @throws NumberFormatException if the token is not an int or a range.
+     */
+    public long nextRange() {
+        if (next() == false) {
+            throw new NoSuchElementException();
+        }
+        int colon = this.tokenStart;
+        while ((colon < this.tokenEnd) && (this.buf[colon] != ':')) {
+            colon++;
+        }
+        if (colon == this.tokenEnd) {
+            int value = parseInt(this.tokenStart, this.tokenEnd);
+            return ((long) value << 32) | (value & 0xFFFFFFFFL);
+        }
+        int first = parseInt(this.tokenStart, colon);
+        int last = parseInt(colon + 1, this.tokenEnd);
+        return ((long) first << 32) | (last & 0xFFFFFFFFL);
+    } //nextRange
+
+    /**
+     * Parses part of the current token as a decimal int.
+     *
+     * @param start the index of the first char.
+     * @param end the index after the last char.
+     * @return the value.
+     * @throws NumberFormatException if the chars are not an int.
+     */
+    private int parseInt(int start, int end) {
+        int p = start;
+        boolean negative = false;
+        if ((p < end) && ((this.buf[p] == '-') || (this.buf[p] == '+'))) {
+            negative = this.buf[p] == '-';
+            p++;
+        }
+        if (p == end) {
+            throw badNumber();
+        }
+        //Accumulate negatively so that Integer.MIN_VALUE can be represented.
+        int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int value = 0;
+        for (; p < end; p++) {
+            int digit = Character.digit(this.buf[p], 10);
+            if ((digit < 0) || (value < limit / 10) || (value * 10 < limit + digit)) {
+                throw badNumber();
+            }
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    } //parseInt
+
+    /**
+     * Creates the exception Integer.parseInt would throw for the current token.
+     *
+     * @return the exception to throw.
+     */
+    private NumberFormatException badNumber() {
+        String token = new String(this.buf, this.tokenStart, this.tokenEnd - this.tokenStart);
+        return new NumberFormatException("For input string: \"" + token + "\"");
+    }
+
+    /**
+     * Reads the next '\n'-terminated line from the reader into the buffer.
+     * A trailing '\r' is left in place; it is whitespace to the tokenizer.
+     *
+     * @return false if the reader has no lines left.
+     * @throws IOException if the reader fails.
+     */
+    private boolean readLine() throws IOException {
+        int scanFrom = this.bufPos;
+        while (true) {
+            for (int k = scanFrom; k < this.bufLen; k++) {
+                if (this.buf[k] == '\n') {
+                    setLine(this.bufPos, k);
+                    this.bufPos = k + 1;
+                    return true;
+                }
+            }
+            if (this.endOfInput) {
+                if (this.bufPos == this.bufLen) {
+                    return false;
+                }
+                //The last line has no terminator.
+                setLine(this.bufPos, this.bufLen);
+                this.bufPos = this.bufLen;
+                return true;
+            }
+            //Move the partial line to the front and read more after it.
+            int partial = this.bufLen - this.bufPos;
+            if (partial == this.buf.length) {
+                this.buf = Arrays.copyOf(this.buf, this.buf.length * 2);
+            }
+            System.arraycopy(this.buf, this.bufPos, this.buf, 0, partial);
+            this.bufPos = 0;
+            this.bufLen = partial;
+            scanFrom = partial;
+            int read = this.reader.read(this.buf, this.bufLen, this.buf.length - this.bufLen);
+            if (read < 0) {
+                this.endOfInput = true;
+            } else {
+                this.bufLen += read;
+            }
+        }
+    } //readLine
+
+    /**
+     * Makes the given range of the buffer the current line.
+     *
+     * @param start the index of the first character of the line.
+     * @param end the index just past the last character of the line.
+     */
+    private void setLine(int start, int end) {
+        this.lineEnd = end;
+        this.pos = start;
+        this.tokenStart = start;
+        this.tokenEnd = start;
+    }
+
+    /**
+     * Grows the buffer so that it can hold a line of the given length.
+     *
+     * @param length the length of the line.
+     */
+    private void ensureCapacity(int length) {
+        if (length > this.buf.length) {
+            this.buf = Arrays.copyOf(this.buf, Math.max(length, this.buf.length * 2));
+        }
+    }
+} //CommandTokenizer
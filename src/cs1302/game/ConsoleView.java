@@ -0,0 +1,287 @@
+package cs1302.game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class prints a game's output on a thread of its own, so a slow
+ * terminal never holds up the game. The game writes to the streams
+ * returned by {@link #getOut()} and {@link #getErr()}, which only queue the
+ * bytes, and asks for the board to be drawn with {@link #requestFrame()}
+ * wherever it would print the board itself. As a {@link GameListener} the
+ * view also asks for a frame when the round count changes outside the
+ * game's commands, unless that move ended the game, so that it prints no
+ * board the synchronous game would not.
+ *
+ * <p>Frames are not drawn when they are asked for but when the console
+ * thread gets to them, from the state of the game at that time. When the
+ * game runs ahead of the terminal, every frame queued since the last write
+ * but the newest is dropped, so a burst of commands is drawn as one frame
+ * while every message is still printed, in order. The console thread draws
+ * a frame by running a callback while holding the game's lock; whatever the
+ * callback writes to {@link #getOut()} is collected and only written to the
+ * terminal after the lock is released.
+ */
+public class ConsoleView implements GameListener, Runnable {
+    //Marks the place of a frame in the queue.
+    private static final Chunk FRAME = new Chunk(null);
+
+    /** Bytes queued for one of the streams, or a frame. */
+    private static final class Chunk {
+        final PrintStream target;
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        /**
+         * Constructs an empty chunk.
+         *
+         * @param target the stream the bytes are for.
+         */
+        Chunk(PrintStream target) {
+            this.target = target;
+        }
+    } //Chunk
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final Object gameLock;
+    private final Runnable drawFrame;
+    private final PrintStream queuedOut;
+    private final PrintStream queuedErr;
+    //What the console thread writes to queuedOut while drawing a frame.
+    private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+    private final Thread thread;
+    //Guarded by this view.
+    private List<Chunk> queue = new ArrayList<>();
+    private boolean closed;
+    //True while the newest queued chunk is a frame, so more requests add nothing.
+    private volatile boolean frameQueued;
+    //Only written by the console thread.
+    private volatile long framesDrawn, framesDropped;
+
+    /**
+     * Constructs a view and starts its console thread.
+     *
+     * @param out the stream the board and messages are finally written to.
+     * @param err the stream error messages are finally written to.
+     * @param gameLock the lock the game holds while it runs a command.
+     * @param drawFrame draws the board to {@link #getOut()}; run on the
+     *     console thread while holding the game's lock.
+     */
+    public ConsoleView(PrintStream out, PrintStream err, Object gameLock, Runnable drawFrame) {
+        this.out = out;
+        this.err = err;
+        this.gameLock = gameLock;
+        this.drawFrame = drawFrame;
+        this.queuedOut = new PrintStream(new QueueStream(out), true);
+        this.queuedErr = new PrintStream(new QueueStream(err), true);
+        this.thread = new Thread(this, "minesweeper-console");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    } //ConsoleView
+
+    /** Queues whatever is written to it for one of the streams. */
+    private final class QueueStream extends OutputStream {
+        private final PrintStream target;
+
+        /**
+         * Constructs a stream queueing bytes for the given stream.
+         *
+         * @param target the stream the bytes are for.
+         */
+        QueueStream(PrintStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (Thread.currentThread() == thread) {
+                frame.write(b, off, len);
+            } else {
+                enqueue(this.target, b, off, len);
+            }
+        }
+    } //QueueStream
+
+    /**
+     * Returns the stream the game writes its messages to.
+     *
+     * @return a stream that queues its bytes for standard output.
+     */
+    public PrintStream getOut() {
+        return this.queuedOut;
+    }
+
+    /**
+     * Returns the stream the game writes its error messages to.
+     *
+     * @return a stream that queues its bytes for standard error.
+     */
+    public PrintStream getErr() {
+        return this.queuedErr;
+    }
+
+    /**
+     * Adds bytes to the queue, appending them to the newest chunk if it is
+     * for the same stream.
+     *
+     * @param target the stream the bytes are for.
+     * @param b the bytes.
+     * @param off the index of the first byte.
+     * @param len the number of bytes.
+     */
+    private synchronized void enqueue(PrintStream target, byte[] b, int off, int len) {
+        Chunk last = this.queue.isEmpty() ? null : this.queue.get(this.queue.size() - 1);
+        if ((last == null) || (last.target != target)) {
+            last = new Chunk(target);
+            this.queue.add(last);
+        }
+        last.bytes.write(b, off, len);
+        this.frameQueued = false;
+        notifyAll();
+    } //enqueue
+
+    /**
+     * Asks for the board to be drawn after everything queued so far. Does
+     * nothing if a frame is already the newest thing in the queue.
+     */
+    public void requestFrame() {
+        if (this.frameQueued) {
+            return;
+        }
+        synchronized (this) {
+            this.queue.add(FRAME);
+            this.frameQueued = true;
+            notifyAll();
+        }
+    } //requestFrame
+
+    @Override
+    public void roundAdvanced(int round) {
+        //A command of the game asks for its own frame once it knows the game goes on.
+        if (Thread.holdsLock(this.gameLock) == false) {
+            requestFrame();
+        }
+    }
+
+    @Override
+    public void gameWon(int round, double score) {
+        dropFrame();
+    }
+
+    @Override
+    public void gameLost(int r, int c) {
+        dropFrame();
+    }
+
+    /**
+     * Takes back the frame asked for by a move made outside the game's
+     * commands that ended the game, if the console thread has not taken it
+     * yet and nothing has been queued since; no board is drawn for the move
+     * that ends a game.
+     */
+    private void dropFrame() {
+        if (Thread.holdsLock(this.gameLock)) {
+            return;
+        }
+        synchronized (this) {
+            if (this.frameQueued) {
+                this.queue.remove(this.queue.size() - 1);
+                this.frameQueued = false;
+            }
+        }
+    } //dropFrame
+
+    /**
+     * Writes the queue to the streams until the view is closed and the
+     * queue is empty.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            List<Chunk> chunks;
+            synchronized (this) {
+                while (this.queue.isEmpty() && (this.closed == false)) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+                if (this.queue.isEmpty()) {
+                    return;
+                }
+                chunks = this.queue;
+                this.queue = new ArrayList<>();
+                this.frameQueued = false;
+            }
+            write(chunks);
+        }
+    } //run
+
+    /**
+     * Writes a batch of chunks in order, drawing only the last of its frames.
+     *
+     * @param chunks the chunks taken from the queue.
+     */
+    private void write(List<Chunk> chunks) {
+        int lastFrame = chunks.lastIndexOf(FRAME);
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            if (chunk != FRAME) {
+                byte[] bytes = chunk.bytes.toByteArray();
+                chunk.target.write(bytes, 0, bytes.length);
+            } else if (i == lastFrame) {
+                synchronized (this.gameLock) {
+                    this.drawFrame.run();
+                }
+                byte[] bytes = this.frame.toByteArray();
+                this.out.write(bytes, 0, bytes.length);
+                this.frame.reset();
+                this.framesDrawn++;
+            } else {
+                this.framesDropped++;
+            }
+        }
+        this.out.flush();
+        this.err.flush();
+    } //write
+
+    /**
+     * Writes everything still queued and stops the console thread.
+     *
+     * @throws InterruptedException if interrupted while waiting for the thread.
+     */
+    public void close() throws InterruptedException {
+        synchronized (this) {
+            this.closed = true;
+            notifyAll();
+        }
+        this.thread.join();
+    } //close
+
+    /**
+     * Returns the number of frames drawn so far.
+     *
+     * @return the count.
+     */
+    public long getFramesDrawn() {
+        return this.framesDrawn;
+    }
+
+    /**
+     * Returns the number of frames dropped because a newer one replaced them.
+     *
+     * @return the count.
+     */
+    public long getFramesDropped() {
+        return this.framesDropped;
+    }
+} //ConsoleView
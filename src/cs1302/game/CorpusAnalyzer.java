@@ -0,0 +1,259 @@
+package cs1302.game;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Scans seed files and writes difficulty metrics for each board as CSV:
+ * its size, mine count and density, its 3BV (the fewest clicks that clear
+ * it), its number of openings (connected regions of squares with no
+ * adjacent mines) and how many safe squares have each adjacency count from
+ * 0 to 8. Boards are read with {@link SeedParser}, so a file that the game
+ * would reject gets a row with the same error message instead of metrics.
+ *
+ * <p>Files are taken in batches and each batch is analyzed by a parallel
+ * stream on a {@link ForkJoinPool}; the rows of a batch are then written in
+ * the order the files were found, so the output is the same however many
+ * threads are used and only one batch of paths and rows is held in memory.
+ *
+ * <p>Usage: {@code CorpusAnalyzer [--max-size N] [--threads N] [--output FILE]
+ * PATH...} where each PATH is a seed file or a directory searched for
+ * {@code .txt} files. Rows go to standard output unless FILE is given.
+ */
+public class CorpusAnalyzer {
+    /** The header row of the CSV output. */
+    public static final String HEADER = "file,rows,cols,mines,density,3bv,openings," +
+        "adj0,adj1,adj2,adj3,adj4,adj5,adj6,adj7,adj8,error";
+    //Number of files analyzed between writes.
+    private static final int BATCH_SIZE = 8192;
+
+    private final int maxSize;
+
+    /**
+     * Constructs an analyzer that accepts seed files up to the given size.
+     *
+     * @param maxSize the largest number of rows or columns allowed.
+     */
+    public CorpusAnalyzer(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Reads a seed file and describes its board as one CSV row.
+     *
+     * @param seed the path of the seed file.
+     * @return the row, without a line terminator.
+     */
+    public String analyze(Path seed) {
+        MineBoard board;
+        try {
+            board = SeedParser.parse(seed.toString(), this.maxSize);
+        } catch (SeedFormatException sfe) {
+            return quote(seed.toString()) + ",,,,,,,,,,,,,,,," +
+                quote("Seed File Malformed Error: " + sfe.getMessage());
+        } catch (IOException ioe) {
+            return quote(seed.toString()) + ",,,,,,,,,,,,,,,," +
+                quote("Seed File Not Found Error: " + ioe.getMessage());
+        }
+        board.computeAdjacency();
+        long[] adjacency = new long[9];
+        for (int i = 0; i < board.size(); i++) {
+            if (board.isMine(i) == false) {
+                adjacency[board.getAdjacent(i)]++;
+            }
+        }
+        int[] clicks = clicks(board);
+        StringBuilder row = new StringBuilder(96);
+        row.append(quote(seed.toString())).append(',').append(board.getRows()).append(',')
+            .append(board.getCols()).append(',').append(board.getMineCount()).append(',')
+            .append(String.format("%.4f", (double) board.getMineCount() / board.size()))
+            .append(',').append(clicks[0]).append(',').append(clicks[1]);
+        for (long count : adjacency) {
+            row.append(',').append(count);
+        }
+        return row.append(',').toString();
+    } //analyze
+
+    /**
+     * Computes the 3BV of a board: one click for each opening, which also
+     * reveals the numbered squares around it, plus one click for each
+     * numbered square that borders no opening. Each opening is labelled
+     * with an explicit work stack, as in {@link MineBoard#reveal(int)}.
+     *
+     * @param board a board with adjacency computed.
+     * @return the 3BV, then the number of openings.
+     */
+    static int[] clicks(MineBoard board) {
+        int rows = board.getRows(), cols = board.getCols();
+        long[] cleared = new long[(board.size() + 63) >>> 6];
+        int[] stack = new int[64];
+        int openings = 0;
+        for (int i = 0; i < board.size(); i++) {
+            if (board.isMine(i) || (board.getAdjacent(i) != 0) ||
+                ((cleared[i >>> 6] & (1L << i)) != 0)) {
+                continue;
+            }
+            openings++;
+            cleared[i >>> 6] |= 1L << i;
+            int top = 0;
+            stack[top++] = i;
+            while (top > 0) {
+                int cur = stack[--top];
+                int r = cur / cols, c = cur % cols;
+                for (int nr = Math.max(r - 1, 0); nr <= Math.min(r + 1, rows - 1); nr++) {
+                    for (int nc = Math.max(c - 1, 0); nc <= Math.min(c + 1, cols - 1); nc++) {
+                        int n = nr * cols + nc;
+                        if ((cleared[n >>> 6] & (1L << n)) != 0) {
+                            continue;
+                        }
+                        //Squares next to a zero are never mines.
+                        cleared[n >>> 6] |= 1L << n;
+                        if (board.getAdjacent(n) == 0) {
+                            if (top == stack.length) {
+                                stack = Arrays.copyOf(stack, stack.length * 2);
+                            }
+                            stack[top++] = n;
+                        }
+                    }
+                }
+            }
+        }
+        int isolated = 0;
+        for (int i = 0; i < board.size(); i++) {
+            if ((board.isMine(i) == false) && ((cleared[i >>> 6] & (1L << i)) == 0)) {
+                isolated++;
+            }
+        }
+        return new int[] {openings + isolated, openings};
+    } //clicks
+
+    /**
+     * Quotes a CSV field if it contains a comma, a quote or a line break.
+     *
+     * @param field the field.
+     * @return the field, quoted if needed.
+     */
+    private static String quote(String field) {
+        if ((field.indexOf(',') < 0) && (field.indexOf('"') < 0) &&
+            (field.indexOf('\n') < 0) && (field.indexOf('\r') < 0)) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Analyzes every seed file under the given paths and writes a CSV row
+     * for each, in the order the files are found.
+     *
+     * @param paths seed files or directories to search.
+     * @param out where the rows are written, after the header.
+     * @param pool the pool the files are analyzed on.
+     * @return the number of files analyzed.
+     * @throws IOException if a directory cannot be listed or a row written.
+     * @throws InterruptedException if interrupted while waiting for the pool.
+     * @throws ExecutionException if analyzing a file throws an exception.
+     */
+    public long run(List<Path> paths, Writer out, ForkJoinPool pool)
+        throws IOException, InterruptedException, ExecutionException {
+        out.write(HEADER);
+        out.write('\n');
+        long files = 0;
+        List<Path> batch = new ArrayList<>(BATCH_SIZE);
+        for (Path path : paths) {
+            try (Stream<Path> walk = Files.walk(path)) {
+                Iterator<Path> found = walk.filter(p -> p.toString().endsWith(".txt") &&
+                    Files.isRegularFile(p)).iterator();
+                while (found.hasNext()) {
+                    batch.add(found.next());
+                    if (batch.size() == BATCH_SIZE) {
+                        files += write(batch, out, pool);
+                    }
+                }
+            } catch (UncheckedIOException uioe) {
+                throw uioe.getCause();
+            }
+        }
+        files += write(batch, out, pool);
+        out.flush();
+        return files;
+    } //run
+
+    /**
+     * Analyzes a batch of files in parallel, writes their rows in order and
+     * empties the batch.
+     *
+     * @param batch the files.
+     * @param out where the rows are written.
+     * @param pool the pool the files are analyzed on.
+     * @return the number of files in the batch.
+     * @throws IOException if a row cannot be written.
+     * @throws InterruptedException if interrupted while waiting for the pool.
+     * @throws ExecutionException if analyzing a file throws an exception.
+     */
+    private int write(List<Path> batch, Writer out, ForkJoinPool pool)
+        throws IOException, InterruptedException, ExecutionException {
+        String[] rows = pool.submit(() -> batch.parallelStream().map(this::analyze)
+            .toArray(String[]::new)).get();
+        for (String row : rows) {
+            out.write(row);
+            out.write('\n');
+        }
+        batch.clear();
+        return rows.length;
+    } //write
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxSize = MinesweeperGame.DEFAULT_MAX_SIZE;
+        String output = null;
+        List<Path> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--threads") && (i + 1 < args.length)) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--max-size") && (i + 1 < args.length)) {
+                    maxSize = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--output") && (i + 1 < args.length)) {
+                    output = args[++i];
+                } else {
+                    paths.add(Paths.get(args[i]));
+                }
+            }
+        } catch (NumberFormatException nfe) {
+            paths.clear();
+        }
+        if (paths.isEmpty() || (threads < 1)) {
+            System.err.println("Usage: CorpusAnalyzer [--max-size N] [--threads N] " +
+                "[--output FILE] PATH...");
+            System.exit(1);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        long files;
+        try (Writer out = new BufferedWriter((output == null)
+            ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+            : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8), 1 << 16)) {
+            files = new CorpusAnalyzer(maxSize).run(paths, out, pool);
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Analyzed %,d seed files in %.2f s on %d threads (%,.0f boards/s)%n",
+            files, seconds, threads, files / seconds);
+    } //main
+} //CorpusAnalyzer
@@ -0,0 +1,65 @@
+package cs1302.game;
+
+/**
+ * The events of a Minesweeper Alpha game, for front ends that want to hear
+ * about changes instead of polling the board. Subscribe with
+ * {@link MinesweeperEngine#addListener}. Every method has an empty default,
+ * so a subscriber only overrides the events it cares about.
+ *
+ * <p>Events are delivered on the thread making the move, while the move is
+ * still in progress, so a subscriber must return quickly and must not
+ * change the game. A flood-fill reveal sends one {@link #cellRevealed} for
+ * each square it opens; a subscriber that draws the board should wait for
+ * {@link #roundAdvanced} rather than draw per square.
+ */
+public interface GameListener {
+    /**
+     * Called when a square is revealed, including each square opened by a
+     * flood fill or a chord.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @param adjacent the number of mines next to the square.
+     */
+    default void cellRevealed(int r, int c, int adjacent) {
+    }
+
+    /**
+     * Called when a square is flagged or guessed, or becomes hidden again
+     * because a move was undone.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @param state {@link MineBoard#FLAG}, {@link MineBoard#GUESS} or
+     *     {@link MineBoard#HIDDEN}.
+     */
+    default void cellMarked(int r, int c, byte state) {
+    }
+
+    /**
+     * Called when the round count changes: after each move, and after an
+     * undo, a redo or a load, which can set it back.
+     *
+     * @param round the number of rounds completed.
+     */
+    default void roundAdvanced(int round) {
+    }
+
+    /**
+     * Called when a move wins the game.
+     *
+     * @param round the number of rounds completed.
+     * @param score the final score.
+     */
+    default void gameWon(int round, double score) {
+    }
+
+    /**
+     * Called when a move reveals a mine and loses the game.
+     *
+     * @param r the row of the mine.
+     * @param c the column of the mine.
+     */
+    default void gameLost(int r, int c) {
+    }
+} //GameListener
@@ -0,0 +1,250 @@
+package cs1302.game;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * This class times each command and the internal steps of a game: parsing
+ * the seed file, rendering the minefield and checking for a win. Each has
+ * a {@link LatencyHistogram}, shared by every game in the JVM. The numbers
+ * are printed by the {@code stats} command, published over JMX as
+ * {@link GameMetricsMXBean} and, while a flight recording is running,
+ * emitted as JFR events in the "Minesweeper" category.
+ *
+ * <p>Instrumentation is off unless the JVM is started with
+ * {@code -Dminesweeper.metrics=true} (or the driver is given
+ * {@code --metrics}). The switch is a static final field, so when it is
+ * off the JIT removes the timing calls and the hot path costs nothing.
+ */
+public final class GameMetrics implements GameMetricsMXBean {
+    /** True if commands and steps are being timed. */
+    public static final boolean ENABLED = Boolean.getBoolean("minesweeper.metrics");
+
+    //Histogram indexes of the steps, after one per command.
+    private static final int PARSE = MinesweeperEngine.Command.values().length;
+    private static final int RENDER = PARSE + 1;
+    private static final int WIN_CHECK = PARSE + 2;
+    private static final String[] NAMES = new String[WIN_CHECK + 1];
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[NAMES.length];
+
+    static {
+        for (MinesweeperEngine.Command command : MinesweeperEngine.Command.values()) {
+            NAMES[command.ordinal()] = command.name().toLowerCase();
+        }
+        NAMES[PARSE] = "parse";
+        NAMES[RENDER] = "render";
+        NAMES[WIN_CHECK] = "win-check";
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new GameMetrics(),
+                    new ObjectName("cs1302.game:type=GameMetrics"));
+            } catch (JMException jme) {
+                System.err.println("GameMetrics not published over JMX: " + jme.getMessage());
+            }
+        }
+    }
+
+    /** A command carried out by a game. */
+    @Name("cs1302.game.Command")
+    @Label("Minesweeper Command")
+    @Category("Minesweeper")
+    static final class CommandEvent extends Event {
+        @Label("Command")
+        String command;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    } //CommandEvent
+
+    /** An internal step of a game: a seed parse, a render or a win check. */
+    @Name("cs1302.game.Step")
+    @Label("Minesweeper Step")
+    @Category("Minesweeper")
+    static final class StepEvent extends Event {
+        @Label("Step")
+        String step;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    } //StepEvent
+
+    /**
+     * Constructs the JMX view of the metrics.
+     */
+    private GameMetrics() {
+    }
+
+    /**
+     * Starts timing a command or step.
+     *
+     * @return the current time in nanoseconds, or 0 if instrumentation is off.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the latency of a command. Commands the engine rejected are
+     * counted as {@code invalid}.
+     *
+     * @param command the command.
+     * @param valid false if the engine reported an error.
+     * @param start the time returned by {@link #start()}.
+     */
+    public static void command(MinesweeperEngine.Command command, boolean valid, long start) {
+        if (ENABLED) {
+            long latency = System.nanoTime() - start;
+            int index = valid ? command.ordinal() : MinesweeperEngine.Command.INVALID.ordinal();
+            HISTOGRAMS[index].record(latency);
+            CommandEvent event = new CommandEvent();
+            if (event.isEnabled()) {
+                event.command = NAMES[index];
+                event.latency = latency;
+                event.commit();
+            }
+        }
+    } //command
+
+    /**
+     * Records the time taken to parse a seed file.
+     *
+     * @param start the time returned by {@link #start()}.
+     */
+    public static void parse(long start) {
+        if (ENABLED) {
+            step(PARSE, start);
+        }
+    }
+
+    /**
+     * Records the time taken to render the minefield.
+     *
+     * @param start the time returned by {@link #start()}.
+     */
+    public static void render(long start) {
+        if (ENABLED) {
+            step(RENDER, start);
+        }
+    }
+
+    /**
+     * Records the time taken to check for a win.
+     *
+     * @param start the time returned by {@link #start()}.
+     */
+    public static void winCheck(long start) {
+        if (ENABLED) {
+            step(WIN_CHECK, start);
+        }
+    }
+
+    /**
+     * Records the latency of an internal step.
+     *
+     * @param index the histogram of the step.
+     * @param start the time the step started.
+     */
+    private static void step(int index, long start) {
+        long latency = System.nanoTime() - start;
+        HISTOGRAMS[index].record(latency);
+        StepEvent event = new StepEvent();
+        if (event.isEnabled()) {
+            event.step = NAMES[index];
+            event.latency = latency;
+            event.commit();
+        }
+    } //step
+
+    /**
+     * Builds the table printed by the {@code stats} command.
+     *
+     * @return one line per command or step that has run, or a note on how
+     *     to turn instrumentation on.
+     */
+    public static String report() {
+        if (ENABLED == false) {
+            return "Stats are off; start the game with --metrics to collect them.";
+        }
+        StringBuilder report = new StringBuilder(String.format("%-10s %8s %10s %10s %10s",
+            "Timing", "Count", "Mean us", "p50 us", "p99 us"));
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            long count = HISTOGRAMS[i].getCount();
+            if (count > 0) {
+                report.append(String.format("%n%-10s %8d %10.1f %10.1f %10.1f", NAMES[i], count,
+                    HISTOGRAMS[i].getMean() / 1000.0,
+                    HISTOGRAMS[i].getPercentile(50) / 1000.0,
+                    HISTOGRAMS[i].getPercentile(99) / 1000.0));
+            }
+        }
+        return report.toString();
+    } //report
+
+    /**
+     * Applies a statistic to every histogram that has recorded something.
+     *
+     * @param statistic the statistic, in nanoseconds.
+     * @return the statistic in microseconds, by name.
+     */
+    private static Map<String, Double> micros(ToDoubleFunction<LatencyHistogram> statistic) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            if (HISTOGRAMS[i].getCount() > 0) {
+                values.put(NAMES[i], statistic.applyAsDouble(HISTOGRAMS[i]) / 1000.0);
+            }
+        }
+        return values;
+    } //micros
+
+    @Override
+    public Map<String, Long> getCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            long count = HISTOGRAMS[i].getCount();
+            if (count > 0) {
+                counts.put(NAMES[i], count);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getMeanMicros() {
+        return micros(LatencyHistogram::getMean);
+    }
+
+    @Override
+    public Map<String, Double> getP50Micros() {
+        return micros(histogram -> histogram.getPercentile(50));
+    }
+
+    @Override
+    public Map<String, Double> getP99Micros() {
+        return micros(histogram -> histogram.getPercentile(99));
+    }
+
+    @Override
+    public String getReport() {
+        return report();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+} //GameMetrics
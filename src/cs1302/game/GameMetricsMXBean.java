@@ -0,0 +1,52 @@
+package cs1302.game;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link GameMetrics}, registered under
+ * {@code cs1302.game:type=GameMetrics} when instrumentation is enabled.
+ * Every map is keyed by the name of a command (such as {@code reveal} or
+ * {@code invalid}) or of an internal step ({@code parse}, {@code render}
+ * or {@code win-check}); steps that have not run yet are left out.
+ */
+public interface GameMetricsMXBean {
+    /**
+     * Returns how many times each command or step has run.
+     *
+     * @return the counts.
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * Returns the mean latency of each command or step.
+     *
+     * @return the means in microseconds.
+     */
+    Map<String, Double> getMeanMicros();
+
+    /**
+     * Returns the median latency of each command or step.
+     *
+     * @return the medians in microseconds.
+     */
+    Map<String, Double> getP50Micros();
+
+    /**
+     * Returns the 99th percentile latency of each command or step.
+     *
+     * @return the percentiles in microseconds.
+     */
+    Map<String, Double> getP99Micros();
+
+    /**
+     * Returns the table printed by the {@code stats} command.
+     *
+     * @return the report.
+     */
+    String getReport();
+
+    /**
+     * Discards every recorded latency.
+     */
+    void reset();
+} //GameMetricsMXBean
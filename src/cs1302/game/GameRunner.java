@@ -0,0 +1,206 @@
+package cs1302.game;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Replays many seed file and command file pairs headlessly on a thread pool
+ * and reports how many games per second were played. A pair is a seed file
+ * named {@code NAME.seed.txt} next to a command file named {@code NAME.in.txt},
+ * such as the {@code tests/tc*} fixtures. Each game gets its own
+ * {@link MinesweeperEngine}, so no output is printed and nothing calls
+ * {@code System.exit} while games are running. Seed files are taken from a
+ * {@link BoardCache}, so each is parsed once however many games are played.
+ *
+ * <p>Usage: {@code GameRunner [--threads N] [--games N] [--max-size N]
+ * [--board-cache MB] PATH...} where each PATH is a seed file or a directory
+ * of seed files. A board cache of 0 MB parses the seed file for every game.
+ */
+public class GameRunner {
+    //Number of games each pool task plays before reporting back.
+    private static final int GAMES_PER_TASK = 1000;
+    //Outcome slot used for seed files that fail to load.
+    private static final int SEED_ERROR = MinesweeperEngine.Status.values().length;
+
+    private final List<String> seeds = new ArrayList<>();
+    private final List<String> scripts = new ArrayList<>();
+    private final int maxSize;
+    private final BoardCache boardCache;
+
+    /**
+     * Constructs a runner that parses the seed file for every game, loading
+     * seed files up to the given size.
+     *
+     * @param maxSize the largest number of rows or columns allowed.
+     */
+    public GameRunner(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * Constructs a runner that loads seed files up to the given size.
+     *
+     * @param maxSize the largest number of rows or columns allowed.
+     * @param boardCache the cache seed files are loaded through, or null to
+     *     parse the seed file for every game.
+     */
+    public GameRunner(int maxSize, BoardCache boardCache) {
+        this.maxSize = maxSize;
+        this.boardCache = boardCache;
+    }
+
+    /**
+     * Adds a seed file and its command file, or every such pair in a directory.
+     * The command files are read into memory once.
+     *
+     * @param path a seed file or a directory of seed files.
+     * @throws IOException if a command file cannot be read.
+     */
+    public void add(File path) throws IOException {
+        File[] files = path.isDirectory() ? path.listFiles() : new File[] {path};
+        Arrays.sort(files);
+        for (File seed : files) {
+            String name = seed.getPath();
+            if (name.endsWith(".seed.txt")) {
+                File script = new File(name.substring(0, name.length() - 9) + ".in.txt");
+                if (script.isFile()) {
+                    this.seeds.add(name);
+                    this.scripts.add(new String(Files.readAllBytes(script.toPath()),
+                        StandardCharsets.UTF_8));
+                }
+            }
+        }
+    } //add
+
+    /**
+     * Returns the number of seed and command file pairs added.
+     *
+     * @return the number of pairs.
+     */
+    public int size() {
+        return this.seeds.size();
+    }
+
+    /**
+     * Plays one game to completion or until its commands run out.
+     *
+     * @param pair the index of the seed and command file pair to play.
+     * @return the index of the outcome: a {@link MinesweeperEngine.Status}
+     * ordinal, or {@link #SEED_ERROR}.
+     */
+    public int playOne(int pair) {
+        MinesweeperEngine engine;
+        try {
+            engine = MinesweeperEngine.load(this.seeds.get(pair), this.maxSize,
+                this.boardCache);
+        } catch (IOException | SeedFormatException e) {
+            return SEED_ERROR;
+        }
+        CommandTokenizer commands = new CommandTokenizer(
+            new StringReader(this.scripts.get(pair)), 256);
+        while ((engine.getStatus() == MinesweeperEngine.Status.PLAYING) && commands.nextLine()) {
+            engine.execute(commands);
+        }
+        return engine.getStatus().ordinal();
+    } //playOne
+
+    /**
+     * Plays the given number of games, cycling through the pairs, on a pool
+     * of threads.
+     *
+     * @param games the total number of games to play.
+     * @param threads the number of threads in the pool.
+     * @return the number of games ending in each outcome, indexed as
+     * returned by {@link #playOne(int)}.
+     * @throws InterruptedException if interrupted while waiting for the pool.
+     * @throws ExecutionException if a game throws an exception.
+     */
+    public long[] run(long games, int threads) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> results = new ArrayList<>();
+        try {
+            for (long first = 0; first < games; first += GAMES_PER_TASK) {
+                long start = first;
+                long end = Math.min(games, first + GAMES_PER_TASK);
+                results.add(pool.submit(() -> {
+                    long[] counts = new long[SEED_ERROR + 1];
+                    for (long g = start; g < end; g++) {
+                        counts[playOne((int) (g % size()))]++;
+                    }
+                    return counts;
+                }));
+            }
+            long[] totals = new long[SEED_ERROR + 1];
+            for (Future<long[]> result : results) {
+                long[] counts = result.get();
+                for (int k = 0; k < totals.length; k++) {
+                    totals[k] += counts[k];
+                }
+            }
+            return totals;
+        } finally {
+            pool.shutdownNow();
+        }
+    } //run
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long games = 100_000;
+        int maxSize = MinesweeperGame.DEFAULT_MAX_SIZE;
+        long cacheLimit = BoardCache.DEFAULT_LIMIT;
+        List<File> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--threads") && (i + 1 < args.length)) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--games") && (i + 1 < args.length)) {
+                    games = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--max-size") && (i + 1 < args.length)) {
+                    maxSize = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--board-cache") && (i + 1 < args.length)) {
+                    cacheLimit = Long.parseLong(args[++i]) << 20;
+                } else {
+                    paths.add(new File(args[i]));
+                }
+            }
+        } catch (NumberFormatException nfe) {
+            paths.clear();
+        }
+        BoardCache boardCache = (cacheLimit > 0) ? new BoardCache(cacheLimit) : null;
+        GameRunner runner = new GameRunner(maxSize, boardCache);
+        for (File path : paths) {
+            runner.add(path);
+        }
+        if ((runner.size() == 0) || (threads < 1) || (games < 1)) {
+            System.err.println();
+            System.err.println("Usage: GameRunner [--threads N] [--games N] [--max-size N] " +
+                "[--board-cache MB] PATH...");
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        long[] totals = runner.run(games, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%,d games from %d seed files on %d threads in %.2f s%n",
+            games, runner.size(), threads, seconds);
+        System.out.printf("%,.0f games/s%n", games / seconds);
+        for (MinesweeperEngine.Status status : MinesweeperEngine.Status.values()) {
+            System.out.printf("  %-10s %,d%n", status, totals[status.ordinal()]);
+        }
+        System.out.printf("  %-10s %,d%n", "SEED_ERROR", totals[SEED_ERROR]);
+        if (boardCache != null) {
+            System.out.println(boardCache);
+        }
+    } //main
+} //GameRunner
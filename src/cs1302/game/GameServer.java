@@ -0,0 +1,526 @@
+package cs1302.game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class hosts many Minesweeper Alpha sessions in one JVM. Clients
+ * connect over a local TCP port or a Unix-domain socket and type the same
+ * commands as at the console; each session plays its own
+ * {@link MinesweeperGame} and sees the same banner, boards, prompts and
+ * messages. Nothing a session does calls {@code System.exit} or prints to
+ * standard output.
+ *
+ * <p>Sessions are spread round-robin over a few event loops, one per core
+ * by default. Each loop is a thread with its own {@link Selector} that owns
+ * its sessions outright, so a game is only ever touched by one thread and
+ * needs no locking. A loop collects a command's output in one buffer it
+ * shares between its sessions and writes it with a single call; output a
+ * slow client cannot take yet is held for that session, which is not read
+ * from again until it has caught up.
+ *
+ * <p>Clients cannot save or load games unless the server is given a save
+ * directory; then each session saves only inside its own subdirectory of
+ * it, {@code session-N}, and cannot name files outside it.
+ *
+ * <p>Usage: {@code GameServer (--port N | --unix PATH) [--loops N]
+ * [--max-size N] [--scores FILE] [--save-dir DIR]
+ * (SEED_FILE | --generate ROWS COLS MINES SEED)}.
+ * With {@code --generate} every session plays its own board, generated from
+ * SEED plus the session number; otherwise the seed file is parsed once and
+ * kept in a {@link BoardCache}. With {@code --scores FILE} every session
+ * records its win in one shared {@link Leaderboard} kept in FILE; without
+ * it no scores are kept.
+ */
+public class GameServer implements AutoCloseable {
+    /** The prompt printed before each command. */
+    public static final String PROMPT = "minesweeper-alpha: ";
+    //Longest command line accepted before the session is dropped.
+    private static final int MAX_LINE = 4096;
+
+    /** Creates the game for a new session. */
+    public interface GameFactory {
+        /**
+         * Creates the game a session plays.
+         *
+         * @param session the number of the session, counting from 0.
+         * @return a new game.
+         * @throws IOException if the seed file cannot be opened or read.
+         * @throws SeedFormatException if the seed file is malformed.
+         */
+        MinesweeperEngine create(long session) throws IOException, SeedFormatException;
+    } //GameFactory
+
+    /** A ByteArrayOutputStream whose contents can be written without a copy. */
+    private static final class Outbox extends ByteArrayOutputStream {
+        /**
+         * Wraps the bytes written so far.
+         *
+         * @return a buffer over the contents.
+         */
+        ByteBuffer contents() {
+            return ByteBuffer.wrap(this.buf, 0, this.count);
+        }
+    } //Outbox
+
+    /** One connected client and its game. */
+    private static final class Session {
+        final long id;
+        final SocketChannel channel;
+        final CommandTokenizer commands = new CommandTokenizer();
+        MinesweeperGame game;
+        //The command line read so far, up to its '\n'.
+        byte[] line = new byte[64];
+        int lineLength;
+        //Output the client has not taken yet, or null.
+        ByteBuffer pending;
+        //True once the game is over; the channel closes when pending is sent.
+        boolean closing;
+
+        /**
+         * Constructs a session for a new connection.
+         *
+         * @param id the number of the session.
+         * @param channel the client's channel.
+         */
+        Session(long id, SocketChannel channel) {
+            this.id = id;
+            this.channel = channel;
+        }
+    } //Session
+
+    private final ServerSocketChannel server;
+    private final Path unixPath;
+    private final GameFactory factory;
+    private final EventLoop[] loops;
+    private long sessions;
+    //The directory holding each session's save files, or null if sessions cannot save.
+    private volatile Path saveDirectory;
+
+    /**
+     * Constructs a server listening on the given address. The event loops
+     * start when {@link #serve()} is called.
+     *
+     * @param address a loopback {@link InetSocketAddress} or a
+     *     {@link UnixDomainSocketAddress}.
+     * @param loopCount the number of event loops.
+     * @param factory creates the game for each session.
+     * @throws IOException if the address cannot be bound.
+     */
+    public GameServer(SocketAddress address, int loopCount, GameFactory factory)
+        throws IOException {
+        if (address instanceof UnixDomainSocketAddress) {
+            this.unixPath = ((UnixDomainSocketAddress) address).getPath();
+            this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            this.unixPath = null;
+            this.server = ServerSocketChannel.open();
+        }
+        this.server.bind(address, 4096);
+        this.factory = factory;
+        this.loops = new EventLoop[Math.max(1, loopCount)];
+        for (int i = 0; i < this.loops.length; i++) {
+            this.loops[i] = new EventLoop(i);
+        }
+    }
+
+    /**
+     * Lets sessions save and load their games, each in its own subdirectory
+     * of the given directory. A restarted server numbers its sessions from 0
+     * again, so session N can load what an earlier session N saved.
+     *
+     * @param directory the directory, or null to turn saving off, as it is
+     *     by default.
+     */
+    public void setSaveDirectory(Path directory) {
+        this.saveDirectory = directory;
+    }
+
+    /**
+     * Returns the address the server is listening on.
+     *
+     * @return the bound address, with the port filled in if 0 was asked for.
+     * @throws IOException if the server is closed.
+     */
+    public SocketAddress getAddress() throws IOException {
+        return this.server.getLocalAddress();
+    }
+
+    /**
+     * Starts the event loops and hands every accepted connection to the
+     * next one in turn. Returns once the server is closed.
+     */
+    public void serve() {
+        for (EventLoop loop : this.loops) {
+            loop.start();
+        }
+        try {
+            while (true) {
+                SocketChannel channel = this.server.accept();
+                channel.configureBlocking(false);
+                if (channel.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                EventLoop loop = this.loops[(int) (this.sessions % this.loops.length)];
+                loop.incoming.add(new Session(this.sessions++, channel));
+                loop.selector.wakeup();
+            }
+        } catch (IOException ioe) {
+            //The server channel was closed.
+            return;
+        }
+    } //serve
+
+    /**
+     * Stops accepting connections, stops the event loops and closes every
+     * session.
+     *
+     * @throws IOException if the server channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.server.close();
+        for (EventLoop loop : this.loops) {
+            loop.interrupt();
+            loop.selector.wakeup();
+        }
+        if (this.unixPath != null) {
+            Files.deleteIfExists(this.unixPath);
+        }
+    } //close
+
+    /** A thread that runs the sessions assigned to it. */
+    private final class EventLoop extends Thread {
+        final Selector selector;
+        final Queue<Session> incoming = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer input = ByteBuffer.allocateDirect(1 << 14);
+        private final Outbox outbox = new Outbox();
+        private final PrintStream out = new PrintStream(this.outbox, false,
+            StandardCharsets.UTF_8);
+
+        /**
+         * Constructs an event loop.
+         *
+         * @param index the number of the loop, used in its thread name.
+         * @throws IOException if the selector cannot be opened.
+         */
+        EventLoop(int index) throws IOException {
+            super("game-loop-" + index);
+            setDaemon(true);
+            this.selector = Selector.open();
+        }
+
+        /**
+         * Waits for sessions to become readable or writable and serves them
+         * until the thread is interrupted.
+         */
+        @Override
+        public void run() {
+            try {
+                while (isInterrupted() == false) {
+                    this.selector.select();
+                    Session session;
+                    while ((session = this.incoming.poll()) != null) {
+                        try {
+                            open(session);
+                        } catch (RuntimeException re) {
+                            System.err.println("Session " + session.id + ": " + re);
+                            closeQuietly(session);
+                        }
+                    }
+                    Iterator<SelectionKey> ready = this.selector.selectedKeys().iterator();
+                    while (ready.hasNext()) {
+                        SelectionKey key = ready.next();
+                        ready.remove();
+                        serve(key);
+                    }
+                }
+            } catch (IOException ioe) {
+                System.err.println(getName() + ": " + ioe.getMessage());
+            } finally {
+                for (SelectionKey key : this.selector.keys()) {
+                    closeQuietly((Session) key.attachment());
+                }
+            }
+        } //run
+
+        /**
+         * Starts a session's game and sends it the welcome banner, the board
+         * and the first prompt.
+         *
+         * @param session the new session.
+         * @throws IOException if the selector is closed.
+         */
+        private void open(Session session) throws IOException {
+            SelectionKey key = session.channel.register(this.selector, SelectionKey.OP_READ,
+                session);
+            this.outbox.reset();
+            try {
+                MinesweeperEngine engine = GameServer.this.factory.create(session.id);
+                //Every session saves in its own directory, or not at all.
+                Path saves = GameServer.this.saveDirectory;
+                engine.confineSaves((saves == null) ? null
+                    : saves.resolve("session-" + session.id));
+                session.game = new MinesweeperGame(session.commands, engine);
+                session.game.setOutput(this.out, this.out);
+                session.game.printWelcome();
+                this.out.print(PROMPT);
+            } catch (FileNotFoundException fnfe) {
+                this.out.println("\nSeed File Not Found Error: " + fnfe.getMessage());
+                session.closing = true;
+            } catch (SeedFormatException sfe) {
+                this.out.println("\nSeed File Malformed Error: " + sfe.getMessage());
+                session.closing = true;
+            } catch (IOException ioe) {
+                this.out.println("\nSeed File Not Found Error: " + ioe.getMessage());
+                session.closing = true;
+            }
+            send(key, session);
+        } //open
+
+        /**
+         * Reads from or writes to a session that is ready.
+         *
+         * @param key the session's key.
+         */
+        private void serve(SelectionKey key) {
+            Session session = (Session) key.attachment();
+            try {
+                if (key.isWritable()) {
+                    session.channel.write(session.pending);
+                    if (session.pending.hasRemaining() == false) {
+                        session.pending = null;
+                        if (session.closing) {
+                            closeQuietly(session);
+                        } else {
+                            key.interestOps(SelectionKey.OP_READ);
+                        }
+                    }
+                } else if (key.isReadable()) {
+                    read(key, session);
+                }
+            } catch (IOException | RuntimeException e) {
+                //One broken session must not take the others down with it.
+                if (e instanceof RuntimeException) {
+                    System.err.println("Session " + session.id + ": " + e);
+                }
+                closeQuietly(session);
+            }
+        } //serve
+
+        /**
+         * Reads what a session has sent and runs each complete command line.
+         *
+         * @param key the session's key.
+         * @param session the session.
+         * @throws IOException if the channel fails.
+         */
+        private void read(SelectionKey key, Session session) throws IOException {
+            this.input.clear();
+            if (session.channel.read(this.input) < 0) {
+                closeQuietly(session);
+                return;
+            }
+            this.input.flip();
+            this.outbox.reset();
+            while (this.input.hasRemaining() && (session.closing == false)) {
+                byte b = this.input.get();
+                if (b != '\n') {
+                    if (session.lineLength == MAX_LINE) {
+                        throw new IOException("Command line too long");
+                    }
+                    if (session.lineLength == session.line.length) {
+                        session.line = Arrays.copyOf(session.line, session.line.length * 2);
+                    }
+                    session.line[session.lineLength++] = b;
+                    continue;
+                }
+                session.commands.setLine(session.line, 0, session.lineLength);
+                session.lineLength = 0;
+                session.game.runCommand();
+                if (session.game.isOver()) {
+                    session.game.printResult();
+                    session.closing = true;
+                } else {
+                    this.out.print(PROMPT);
+                }
+            }
+            send(key, session);
+        } //read
+
+        /**
+         * Writes the output collected in the outbox to a session. Whatever
+         * the client cannot take now is kept, and the session is only
+         * watched for writing until it has all been sent.
+         *
+         * @param key the session's key.
+         * @param session the session.
+         * @throws IOException if the channel fails.
+         */
+        private void send(SelectionKey key, Session session) throws IOException {
+            ByteBuffer contents = this.outbox.contents();
+            if (contents.hasRemaining()) {
+                session.channel.write(contents);
+            }
+            if (contents.hasRemaining()) {
+                session.pending = ByteBuffer.allocate(contents.remaining());
+                session.pending.put(contents).flip();
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else if (session.closing) {
+                closeQuietly(session);
+            }
+        } //send
+    } //EventLoop
+
+    /**
+     * Closes a session's channel, ignoring errors.
+     *
+     * @param session the session.
+     */
+    private static void closeQuietly(Session session) {
+        try {
+            session.channel.close();
+        } catch (IOException ioe) {
+            //Nothing more can be sent to the client anyway.
+            return;
+        }
+    } //closeQuietly
+
+    /**
+     * Starts a server and serves sessions until the process is stopped.
+     * Exits with status 1 on bad arguments, or with the seed file error
+     * statuses of {@link MinesweeperDriver} if the seed file is unusable.
+     *
+     * @param args the command line arguments.
+     * @throws IOException if the server cannot be started or the score file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        SocketAddress address = null;
+        int loops = Runtime.getRuntime().availableProcessors();
+        int maxSize = 10;
+        String seedPath = null;
+        String scoresPath = null;
+        Path saveDirectory = null;
+        long[] generate = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--port") && (i + 1 < args.length)) {
+                    address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        Integer.parseInt(args[++i]));
+                } else if (args[i].equals("--unix") && (i + 1 < args.length)) {
+                    address = UnixDomainSocketAddress.of(args[++i]);
+                } else if (args[i].equals("--loops") && (i + 1 < args.length)) {
+                    loops = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--max-size") && (i + 1 < args.length)) {
+                    maxSize = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--scores") && (i + 1 < args.length)) {
+                    scoresPath = args[++i];
+                } else if (args[i].equals("--save-dir") && (i + 1 < args.length)) {
+                    saveDirectory = Path.of(args[++i]);
+                } else if (args[i].equals("--generate") && (i + 4 < args.length)) {
+                    generate = new long[4];
+                    for (int k = 0; k < generate.length; k++) {
+                        generate[k] = Long.parseLong(args[++i]);
+                    }
+                } else if ((seedPath == null) && (args[i].startsWith("--") == false)) {
+                    seedPath = args[i];
+                } else {
+                    printUsage();
+                }
+            }
+        } catch (IllegalArgumentException iae) {
+            printUsage();
+        }
+        if ((address == null) || (loops < 1) || ((seedPath == null) == (generate == null))) {
+            printUsage();
+        }
+
+        GameFactory games;
+        if (generate != null) {
+            if ((generate[0] < 5) || (generate[1] < 5) || (generate[0] > maxSize) ||
+                (generate[1] > maxSize) || (generate[2] < 1) ||
+                (generate[2] >= generate[0] * generate[1])) {
+                printUsage();
+            }
+            BoardGenerator generator = new BoardGenerator((int) generate[0], (int) generate[1],
+                (int) generate[2]);
+            long seed = generate[3];
+            games = session -> MinesweeperEngine.generate(generator, seed + session);
+        } else {
+            String path = seedPath;
+            int limit = maxSize;
+            BoardCache boards = new BoardCache(BoardCache.DEFAULT_LIMIT);
+            //Check the seed file once up front; each session loads its own copy.
+            try {
+                MinesweeperEngine.load(path, limit);
+            } catch (FileNotFoundException fnfe) {
+                System.err.println("\nSeed File Not Found Error: " + fnfe.getMessage());
+                System.exit(2);
+            } catch (SeedFormatException sfe) {
+                System.err.println("\nSeed File Malformed Error: " + sfe.getMessage());
+                System.exit(3);
+            } catch (IOException ioe) {
+                System.err.println("\nSeed File Not Found Error: " + ioe.getMessage());
+                System.exit(2);
+            }
+            games = session -> MinesweeperEngine.load(path, limit, boards);
+        }
+        Leaderboard leaderboard = (scoresPath == null) ? null : Leaderboard.open(scoresPath);
+        GameFactory factory = session -> {
+            MinesweeperEngine engine = games.create(session);
+            engine.setLeaderboard(leaderboard);
+            return engine;
+        };
+
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+        GameServer server = new GameServer(address, loops, factory);
+        server.setSaveDirectory(saveDirectory);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                if (leaderboard != null) {
+                    leaderboard.close();
+                }
+            } catch (IOException ioe) {
+                System.err.println(ioe.getMessage());
+            }
+        }));
+        System.out.println("Serving Minesweeper Alpha on " + server.getAddress() + " with " +
+            loops + " event loop" + ((loops == 1) ? "" : "s"));
+        server.serve();
+    } //main
+
+    /**
+     * Displays the command line usage to standard error and exits with status 1.
+     */
+    private static void printUsage() {
+        System.err.println();
+        System.err.println("Usage: GameServer (--port N | --unix PATH) [--loops N] " +
+            "[--max-size N] [--scores FILE] [--save-dir DIR] SEED_FILE_PATH");
+        System.err.println("       GameServer (--port N | --unix PATH) [--loops N] " +
+            "[--max-size N] [--scores FILE] [--save-dir DIR] --generate ROWS COLS MINES SEED");
+        System.exit(1);
+    }
+} //GameServer
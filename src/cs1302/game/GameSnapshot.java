@@ -0,0 +1,172 @@
+package cs1302.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads and writes compact binary snapshots of a game. A
+ * snapshot is a fixed header followed by the mine bitset (one long per 64
+ * squares) and the square states packed two per byte, so a million-square
+ * board takes about 640 KB and loads with one bulk read. The header holds
+ * a generation number that ties the snapshot to its {@link MoveJournal}.
+ *
+ * <p>Layout, big-endian: magic {@code "MSWP"}, version (short), generation
+ * (long), rows, columns, round, mine count (ints), status (byte), then the
+ * mines and the states.
+ */
+public class GameSnapshot {
+    private static final int MAGIC = 0x4D535750;
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 8 + 4 * 4 + 1;
+
+    private final MineBoard board;
+    private final int round;
+    private final MinesweeperEngine.Status status;
+    private final long generation;
+
+    /**
+     * Constructs a snapshot that has just been read.
+     *
+     * @param board the restored board, with adjacency computed.
+     * @param round the number of rounds completed.
+     * @param status the state of the game.
+     * @param generation the generation of the snapshot.
+     */
+    private GameSnapshot(MineBoard board, int round, MinesweeperEngine.Status status,
+        long generation) {
+        this.board = board;
+        this.round = round;
+        this.status = status;
+        this.generation = generation;
+    }
+
+    /**
+     * Writes a snapshot of a game. The file is written under a temporary
+     * name, forced to disk and then renamed over the old snapshot, so a
+     * crash never leaves a half-written save.
+     *
+     * @param engine the game to save.
+     * @param saveFileName the path of the save file.
+     * @param generation the generation number to record.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(MinesweeperEngine engine, String saveFileName, long generation)
+        throws IOException {
+        MineBoard board = engine.getBoard();
+        int mineWords = (board.size() + 63) >>> 6;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + mineWords * Long.BYTES +
+            (board.size() + 1) / 2);
+        buffer.putInt(MAGIC).putShort(VERSION).putLong(generation);
+        buffer.putInt(board.getRows()).putInt(board.getCols()).putInt(engine.getRound());
+        buffer.putInt(board.getMineCount()).put((byte) engine.getStatus().ordinal());
+        board.writeMines(buffer);
+        board.writeStates(buffer);
+        buffer.flip();
+
+        Path target = Paths.get(saveFileName);
+        Path temp = Paths.get(saveFileName + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    } //write
+
+    /**
+     * Reads a snapshot with one bulk read and rebuilds its board.
+     *
+     * @param saveFileName the path of the save file.
+     * @return the snapshot.
+     * @throws IOException if the file cannot be opened or read.
+     * @throws SaveFormatException if the file is not a valid snapshot.
+     */
+    public static GameSnapshot read(String saveFileName) throws IOException, SaveFormatException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(saveFileName))) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new SaveFormatException("Not a save file");
+            }
+            buffer = ByteBuffer.allocate((int) Math.min(channel.size(), Integer.MAX_VALUE));
+            while (buffer.hasRemaining() && (channel.read(buffer) >= 0)) {
+                continue;
+            }
+            buffer.flip();
+        }
+        if ((buffer.getInt() != MAGIC) || (buffer.getShort() != VERSION)) {
+            throw new SaveFormatException("Not a save file");
+        }
+        long generation = buffer.getLong();
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        int round = buffer.getInt();
+        int mineCount = buffer.getInt();
+        int status = buffer.get();
+        if ((rows < 1) || (cols < 1) || ((long) rows * cols > Integer.MAX_VALUE - 8) ||
+            (round < 0) || (status < 0) || (status >= MinesweeperEngine.Status.values().length)) {
+            throw new SaveFormatException("Invalid header");
+        }
+        long size = (long) rows * cols;
+        if (buffer.remaining() != ((size + 63) >>> 6) * Long.BYTES + (size + 1) / 2) {
+            throw new SaveFormatException("Truncated save file");
+        }
+        MineBoard board = new MineBoard(rows, cols);
+        board.readMines(buffer);
+        if (board.getMineCount() != mineCount) {
+            throw new SaveFormatException("Mine count does not match the mines");
+        }
+        board.computeAdjacency();
+        try {
+            board.readStates(buffer);
+        } catch (IllegalArgumentException iae) {
+            throw new SaveFormatException(iae.getMessage());
+        }
+        return new GameSnapshot(board, round, MinesweeperEngine.Status.values()[status],
+            generation);
+    } //read
+
+    /**
+     * Returns the restored board.
+     *
+     * @return the board.
+     */
+    public MineBoard getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Returns the number of rounds completed when the snapshot was taken.
+     *
+     * @return the round count.
+     */
+    public int getRound() {
+        return this.round;
+    }
+
+    /**
+     * Returns the state of the game when the snapshot was taken.
+     *
+     * @return the game status.
+     */
+    public MinesweeperEngine.Status getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Returns the generation of the snapshot.
+     *
+     * @return the generation number.
+     */
+    public long getGeneration() {
+        return this.generation;
+    }
+} //GameSnapshot
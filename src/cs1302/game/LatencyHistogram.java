@@ -0,0 +1,115 @@
+package cs1302.game;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class counts latencies in log-linear buckets: each power of two is
+ * split into eight equal buckets, so any value is known to within 12.5%
+ * while the whole range of a long fits in under 500 counters. Recording a
+ * value is a few shifts and one atomic increment, with no allocation, so
+ * games running on several threads can share a histogram.
+ */
+public class LatencyHistogram {
+    //Bits of each value kept below its leading one bit.
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+    //The count of bucket i is at index i; the sum of all values is at BUCKETS.
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 1);
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values count as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        this.counts.incrementAndGet(bucket(value));
+        this.counts.addAndGet(BUCKETS, value);
+    }
+
+    /**
+     * Finds the bucket of a value.
+     *
+     * @param value a non-negative value.
+     * @return the bucket index.
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    } //bucket
+
+    /**
+     * Returns the largest value that falls in a bucket.
+     *
+     * @param bucket the bucket index.
+     * @return the upper bound of the bucket.
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+        return low + (1L << (exponent - SUB_BITS)) - 1;
+    } //upperBound
+
+    /**
+     * Returns the number of latencies recorded.
+     *
+     * @return the count.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += this.counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return the mean in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double getMean() {
+        long count = getCount();
+        return (count == 0) ? 0.0 : (double) this.counts.get(BUCKETS) / count;
+    }
+
+    /**
+     * Returns a percentile of the recorded latencies, as the upper bound of
+     * the bucket it falls in.
+     *
+     * @param percent the percentile, from 0 to 100.
+     * @return the latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percent) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    } //getPercentile
+
+    /**
+     * Discards every recorded latency.
+     */
+    public void reset() {
+        for (int i = 0; i <= BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+    }
+} //LatencyHistogram
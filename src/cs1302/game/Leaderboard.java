@@ -0,0 +1,563 @@
+package cs1302.game;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class keeps the high scores of won games. Every win is appended to
+ * a log of fixed 36-byte records and offered to an in-memory index of the
+ * best {@value #TOP} scores for each board size, so a query never reads
+ * the log. A better score ranks first; equal scores are ranked by fewer
+ * rounds, then by which was won first.
+ *
+ * <p>Any number of games may finish at once. A win only encodes its record
+ * into a buffer and updates the index while holding the leaderboard's lock;
+ * the thread that finds no write in progress then writes everything
+ * buffered so far, so under load many wins share one write. Queries do not
+ * lock at all: each board size's list is replaced, never changed.
+ *
+ * <p>Opening a leaderboard rebuilds the index from the log. Every
+ * {@value #SNAPSHOT_AFTER} records the index is also written to a snapshot
+ * next to the log, with the length of the log it covers, so opening only
+ * reads the records written since. The log header holds a random identity
+ * that the snapshot repeats, so a snapshot of another log is never used.
+ * A record cut short by a crash is dropped when the log is reopened. Only
+ * one process should use a score file at a time.
+ *
+ * <p>Layout, big-endian: magic {@code "MSSC"} and identity (long), then
+ * records of layout hash (long), rows, columns, rounds (ints), score
+ * (double) and time in milliseconds (long). The snapshot is magic
+ * {@code "MSSI"}, the identity, the covered log length (long) and the
+ * number of lists (int), then each list's length (int) and records.
+ */
+public class Leaderboard implements AutoCloseable {
+    /** The number of scores kept for each board size. */
+    public static final int TOP = 10;
+    /** The number of records written between snapshots of the index. */
+    public static final int SNAPSHOT_AFTER = 1 << 16;
+
+    private static final int MAGIC = 0x4D535343;
+    private static final int INDEX_MAGIC = 0x4D535349;
+    private static final int HEADER_BYTES = 4 + 8;
+    private static final int RECORD_BYTES = 8 + 4 + 4 + 4 + 8 + 8;
+    //Records read at a time while rebuilding the index.
+    private static final int READ_RECORDS = 1 << 15;
+
+    /** One won game. */
+    public static final class Entry {
+        private final long layoutHash;
+        private final int rows, cols, rounds;
+        private final double score;
+        private final long time;
+
+        /**
+         * Constructs an entry.
+         *
+         * @param layoutHash the {@link MineBoard#layoutHash()} of the board.
+         * @param rows the number of rows of the board.
+         * @param cols the number of columns of the board.
+         * @param rounds the number of rounds the game took.
+         * @param score the final score.
+         * @param time when the game was won, in milliseconds since the epoch.
+         */
+        public Entry(long layoutHash, int rows, int cols, int rounds, double score, long time) {
+            this.layoutHash = layoutHash;
+            this.rows = rows;
+            this.cols = cols;
+            this.rounds = rounds;
+            this.score = score;
+            this.time = time;
+        }
+
+        /**
+         * Reads an entry from a buffer.
+         *
+         * @param in the buffer, positioned at a record.
+         * @return the entry.
+         * @throws IOException if the record is not valid.
+         */
+        static Entry read(ByteBuffer in) throws IOException {
+            Entry entry = new Entry(in.getLong(), in.getInt(), in.getInt(), in.getInt(),
+                in.getDouble(), in.getLong());
+            if ((entry.rows < 1) || (entry.cols < 1) || (entry.rounds < 0)) {
+                throw new IOException("Invalid score record");
+            }
+            return entry;
+        } //read
+
+        /**
+         * Writes the entry to a buffer as one record.
+         *
+         * @param out the buffer, with at least one record of room.
+         */
+        void write(ByteBuffer out) {
+            out.putLong(this.layoutHash).putInt(this.rows).putInt(this.cols)
+                .putInt(this.rounds).putDouble(this.score).putLong(this.time);
+        }
+
+        /**
+         * Determines if this entry ranks above another.
+         *
+         * @param other the other entry.
+         * @return true if this score is higher, or equal in fewer rounds, or
+         *     equal in as many rounds but won earlier.
+         */
+        boolean beats(Entry other) {
+            if (this.score != other.score) {
+                return this.score > other.score;
+            }
+            if (this.rounds != other.rounds) {
+                return this.rounds < other.rounds;
+            }
+            return this.time < other.time;
+        } //beats
+
+        /**
+         * Returns the layout hash of the board, which tells seed files apart.
+         *
+         * @return the hash.
+         */
+        public long getLayoutHash() {
+            return this.layoutHash;
+        }
+
+        /**
+         * Returns the number of rows of the board.
+         *
+         * @return the rows.
+         */
+        public int getRows() {
+            return this.rows;
+        }
+
+        /**
+         * Returns the number of columns of the board.
+         *
+         * @return the columns.
+         */
+        public int getCols() {
+            return this.cols;
+        }
+
+        /**
+         * Returns the number of rounds the game took.
+         *
+         * @return the rounds.
+         */
+        public int getRounds() {
+            return this.rounds;
+        }
+
+        /**
+         * Returns the final score.
+         *
+         * @return the score.
+         */
+        public double getScore() {
+            return this.score;
+        }
+
+        /**
+         * Returns when the game was won.
+         *
+         * @return the time in milliseconds since the epoch.
+         */
+        public long getTime() {
+            return this.time;
+        }
+    } //Entry
+
+    private final Path logPath;
+    private final Path indexPath;
+    //The best entries for each board size, best first; the arrays are never changed.
+    private final Map<Long, Entry[]> index = new ConcurrentHashMap<>();
+    private long identity;
+    //Only used by the thread writing; null until the first record is written.
+    private FileChannel channel;
+    //Guarded by this leaderboard.
+    private ByteBuffer pending = ByteBuffer.allocate(RECORD_BYTES * 64);
+    private ByteBuffer writing = ByteBuffer.allocate(RECORD_BYTES * 64);
+    private boolean flushing;
+    private long records;
+    private long snapshotRecords;
+    private volatile IOException failure;
+
+    /**
+     * Constructs an empty leaderboard.
+     *
+     * @param logPath the path of the log.
+     */
+    private Leaderboard(Path logPath) {
+        this.logPath = logPath;
+        this.indexPath = Paths.get(logPath + ".index");
+    }
+
+    /**
+     * Opens a score file and rebuilds the index from its snapshot and the
+     * records written after it. A file that does not exist yet is created
+     * when the first score is added.
+     *
+     * @param fileName the path of the log.
+     * @return the leaderboard.
+     * @throws IOException if the log cannot be read or is not a score file.
+     */
+    public static Leaderboard open(String fileName) throws IOException {
+        Leaderboard leaderboard = new Leaderboard(Paths.get(fileName));
+        leaderboard.load();
+        return leaderboard;
+    } //open
+
+    /**
+     * Reads the log, starting after the part covered by the snapshot.
+     *
+     * @throws IOException if the log cannot be read or is not a score file.
+     */
+    private void load() throws IOException {
+        if (Files.exists(this.logPath) == false) {
+            this.identity = ThreadLocalRandom.current().nextLong();
+            return;
+        }
+        this.channel = FileChannel.open(this.logPath, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        long size = this.channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, 0);
+        if ((size < HEADER_BYTES) || (header.getInt() != MAGIC)) {
+            this.channel.close();
+            throw new IOException(this.logPath + " is not a score file");
+        }
+        this.identity = header.getLong();
+        long end = HEADER_BYTES + (size - HEADER_BYTES) / RECORD_BYTES * RECORD_BYTES;
+        long start = readSnapshot(end);
+        this.snapshotRecords = (start - HEADER_BYTES) / RECORD_BYTES;
+        ByteBuffer chunk = ByteBuffer.allocate(RECORD_BYTES * READ_RECORDS);
+        try {
+            for (long at = start; at < end; at += chunk.limit()) {
+                chunk.clear().limit((int) Math.min(chunk.capacity(), end - at));
+                readFully(chunk, at);
+                while (chunk.hasRemaining()) {
+                    offer(Entry.read(chunk));
+                }
+            }
+        } catch (IOException ioe) {
+            this.channel.close();
+            throw new IOException(this.logPath + ": " + ioe.getMessage());
+        }
+        this.records = (end - HEADER_BYTES) / RECORD_BYTES;
+        //Drop a partial record and append after the last complete one.
+        if (end < size) {
+            this.channel.truncate(end);
+        }
+        this.channel.position(end);
+        if (this.records - this.snapshotRecords >= SNAPSHOT_AFTER) {
+            writeSnapshot(new HashMap<>(this.index), end);
+            this.snapshotRecords = this.records;
+        }
+    } //load
+
+    /**
+     * Fills a buffer from the log and flips it.
+     *
+     * @param buffer the buffer, with as many bytes remaining as are wanted.
+     * @param at the position in the log to read from.
+     * @throws IOException if the log ends first or cannot be read.
+     */
+    private void readFully(ByteBuffer buffer, long at) throws IOException {
+        long position = at;
+        while (buffer.hasRemaining()) {
+            int read = this.channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        buffer.flip();
+    } //readFully
+
+    /**
+     * Fills the index from the snapshot, if there is one that belongs to
+     * this log and covers no more of it than there is.
+     *
+     * @param end the length of the complete records in the log.
+     * @return the length of the log the snapshot covers, or the header's
+     *     length if the whole log must be read.
+     */
+    private long readSnapshot(long end) {
+        ByteBuffer buffer;
+        try (FileChannel in = FileChannel.open(this.indexPath)) {
+            buffer = ByteBuffer.allocate((int) Math.min(in.size(), Integer.MAX_VALUE));
+            while (buffer.hasRemaining() && (in.read(buffer) >= 0)) {
+                continue;
+            }
+            buffer.flip();
+        } catch (IOException ioe) {
+            return HEADER_BYTES;
+        }
+        try {
+            if ((buffer.getInt() != INDEX_MAGIC) || (buffer.getLong() != this.identity)) {
+                return HEADER_BYTES;
+            }
+            long covered = buffer.getLong();
+            if ((covered < HEADER_BYTES) || (covered > end) ||
+                ((covered - HEADER_BYTES) % RECORD_BYTES != 0)) {
+                return HEADER_BYTES;
+            }
+            Map<Long, Entry[]> lists = new HashMap<>();
+            for (int count = buffer.getInt(); count > 0; count--) {
+                Entry[] list = new Entry[buffer.getInt()];
+                for (int i = 0; i < list.length; i++) {
+                    list[i] = Entry.read(buffer);
+                }
+                if ((list.length == 0) || (list.length > TOP)) {
+                    return HEADER_BYTES;
+                }
+                lists.put(sizeKey(list[0].rows, list[0].cols), list);
+            }
+            this.index.putAll(lists);
+            return covered;
+        } catch (BufferUnderflowException | NegativeArraySizeException | IOException e) {
+            //A damaged snapshot only costs reading the whole log.
+            return HEADER_BYTES;
+        }
+    } //readSnapshot
+
+    /**
+     * Writes a snapshot of the index. The file is written under a temporary
+     * name, forced to disk and then renamed over the old snapshot, like a
+     * {@link GameSnapshot}.
+     *
+     * @param lists the lists to write.
+     * @param covered the length of the log they were built from.
+     * @throws IOException if the file cannot be written.
+     */
+    private void writeSnapshot(Map<Long, Entry[]> lists, long covered) throws IOException {
+        int entries = 0;
+        for (Entry[] list : lists.values()) {
+            entries += list.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 8 + 8 + 4 + lists.size() * 4 +
+            entries * RECORD_BYTES);
+        buffer.putInt(INDEX_MAGIC).putLong(this.identity).putLong(covered)
+            .putInt(lists.size());
+        for (Entry[] list : lists.values()) {
+            buffer.putInt(list.length);
+            for (Entry entry : list) {
+                entry.write(buffer);
+            }
+        }
+        buffer.flip();
+
+        Path temp = Paths.get(this.indexPath + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+        Files.move(temp, this.indexPath, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    } //writeSnapshot
+
+    /**
+     * Returns the key of a board size in the index.
+     *
+     * @param rows the number of rows.
+     * @param cols the number of columns.
+     * @return the key.
+     */
+    private static Long sizeKey(int rows, int cols) {
+        return ((long) rows << 32) | (cols & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Puts an entry in its board size's list if it ranks high enough,
+     * replacing the list. Called while holding the lock, or before the
+     * leaderboard is shared.
+     *
+     * @param entry the entry.
+     */
+    private void offer(Entry entry) {
+        Long size = sizeKey(entry.rows, entry.cols);
+        Entry[] list = this.index.get(size);
+        if (list == null) {
+            this.index.put(size, new Entry[] {entry});
+            return;
+        }
+        if ((list.length == TOP) && (entry.beats(list[TOP - 1]) == false)) {
+            return;
+        }
+        int at = list.length;
+        while ((at > 0) && entry.beats(list[at - 1])) {
+            at--;
+        }
+        Entry[] next = new Entry[Math.min(TOP, list.length + 1)];
+        System.arraycopy(list, 0, next, 0, at);
+        next[at] = entry;
+        System.arraycopy(list, at, next, at + 1, next.length - at - 1);
+        this.index.put(size, next);
+    } //offer
+
+    /**
+     * Records a won game. The record is written before this returns, unless
+     * another thread is already writing, in which case that thread writes
+     * it along with its own. A failed write does not throw: the score still
+     * counts until the program ends, and {@link #getError()} reports why it
+     * was not saved.
+     *
+     * @param layoutHash the {@link MineBoard#layoutHash()} of the board.
+     * @param rows the number of rows of the board.
+     * @param cols the number of columns of the board.
+     * @param rounds the number of rounds the game took.
+     * @param score the final score.
+     */
+    public void add(long layoutHash, int rows, int cols, int rounds, double score) {
+        Entry entry = new Entry(layoutHash, rows, cols, rounds, score,
+            System.currentTimeMillis());
+        synchronized (this) {
+            if (this.pending.remaining() < RECORD_BYTES) {
+                ByteBuffer bigger = ByteBuffer.allocate(this.pending.capacity() * 2);
+                this.pending.flip();
+                this.pending = bigger.put(this.pending);
+            }
+            entry.write(this.pending);
+            this.records++;
+            offer(entry);
+            if (this.flushing) {
+                return;
+            }
+            this.flushing = true;
+        }
+        writePending();
+    } //add
+
+    /**
+     * Writes buffered records until there are none left, taking a snapshot
+     * of the index when one is due. Only one thread runs this at a time.
+     */
+    private void writePending() {
+        while (true) {
+            Map<Long, Entry[]> lists = null;
+            long covered = 0;
+            synchronized (this) {
+                if (this.failure != null) {
+                    //Records after a failed write would not line up; keep them in memory only.
+                    this.pending.clear();
+                }
+                if (this.pending.position() > 0) {
+                    ByteBuffer full = this.pending;
+                    this.pending = this.writing;
+                    this.writing = full;
+                } else if ((this.failure == null) &&
+                    (this.records - this.snapshotRecords >= SNAPSHOT_AFTER)) {
+                    //Nothing is buffered, so the index matches the log exactly.
+                    lists = new HashMap<>(this.index);
+                    covered = HEADER_BYTES + this.records * RECORD_BYTES;
+                    this.snapshotRecords = this.records;
+                } else {
+                    this.flushing = false;
+                    notifyAll();
+                    return;
+                }
+            }
+            try {
+                if (lists != null) {
+                    writeSnapshot(lists, covered);
+                } else {
+                    writeLog();
+                }
+            } catch (IOException ioe) {
+                this.failure = ioe;
+            } finally {
+                this.writing.clear();
+            }
+        }
+    } //writePending
+
+    /**
+     * Appends the records in the writing buffer to the log, creating the
+     * log first if needed.
+     *
+     * @throws IOException if the log cannot be written.
+     */
+    private void writeLog() throws IOException {
+        if (this.channel == null) {
+            this.channel = FileChannel.open(this.logPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putLong(this.identity).flip();
+            while (header.hasRemaining()) {
+                this.channel.write(header);
+            }
+        }
+        this.writing.flip();
+        while (this.writing.hasRemaining()) {
+            this.channel.write(this.writing);
+        }
+    } //writeLog
+
+    /**
+     * Returns the best scores on boards of one size, best first.
+     *
+     * @param rows the number of rows.
+     * @param cols the number of columns.
+     * @return at most {@value #TOP} entries; empty if none were won.
+     */
+    public List<Entry> top(int rows, int cols) {
+        Entry[] list = this.index.get(sizeKey(rows, cols));
+        return (list == null) ? List.of() : List.of(list);
+    }
+
+    /**
+     * Returns the number of games recorded, in the log and still buffered.
+     *
+     * @return the record count.
+     */
+    public synchronized long size() {
+        return this.records;
+    }
+
+    /**
+     * Returns why scores are no longer being saved.
+     *
+     * @return the message of the failed write, or null if every write worked.
+     */
+    public String getError() {
+        IOException ioe = this.failure;
+        return (ioe == null) ? null : String.valueOf(ioe.getMessage());
+    }
+
+    /**
+     * Waits for buffered records to be written and closes the log.
+     *
+     * @throws IOException if the log cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            while (this.flushing) {
+                try {
+                    wait();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        if (this.channel != null) {
+            this.channel.close();
+        }
+    } //close
+} //Leaderboard
@@ -0,0 +1,280 @@
+package cs1302.game;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Drives a {@link GameServer} with many scripted sessions from one thread
+ * and reports the command latency. Each session waits for the first
+ * prompt, then sends a fixed list of commands one at a time, timing each
+ * from the moment it is sent until the next prompt arrives, and finally
+ * quits. Up to a fixed number of sessions are open at once; as each one
+ * finishes another is started, until the requested number have run.
+ *
+ * <p>Usage: {@code LoadGenerator (--port N | --unix PATH) [--sessions N]
+ * [--concurrency N] [--commands N]}.
+ */
+public class LoadGenerator {
+    //Commands sent in turn; none of them can end the game.
+    private static final String[] SCRIPT = {
+        "m 0 0", "g 1 1", "nofog", "m 1 0", "h", "g 0 1", "x", "m 0 0",
+    };
+    private static final byte[] PROMPT = GameServer.PROMPT.getBytes(StandardCharsets.UTF_8);
+    private static final byte[][] COMMANDS = new byte[SCRIPT.length + 1][];
+
+    static {
+        for (int i = 0; i < SCRIPT.length; i++) {
+            COMMANDS[i] = (SCRIPT[i] + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+        COMMANDS[SCRIPT.length] = "q\n".getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** The progress of one client connection. */
+    private static final class Client {
+        final SocketChannel channel;
+        //Number of prompt bytes matched at the end of the output so far.
+        int matched;
+        //Commands sent so far, and when the last one was sent.
+        int sent;
+        long sentAt;
+
+        /**
+         * Constructs a client on a connecting channel.
+         *
+         * @param channel the channel.
+         */
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    } //Client
+
+    private final SocketAddress address;
+    private final int commandsPerSession;
+    private final Selector selector;
+    private final ByteBuffer input = ByteBuffer.allocateDirect(1 << 16);
+    private long[] latencies = new long[1 << 16];
+    private int latencyCount;
+    private int open, started, finished, failed;
+
+    /**
+     * Constructs a load generator for a server.
+     *
+     * @param address the server's address.
+     * @param commandsPerSession the number of timed commands each session sends.
+     * @throws IOException if the selector cannot be opened.
+     */
+    public LoadGenerator(SocketAddress address, int commandsPerSession) throws IOException {
+        this.address = address;
+        this.commandsPerSession = commandsPerSession;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Runs sessions against the server until the given number have ended.
+     *
+     * @param sessions the number of sessions to run.
+     * @param concurrency the largest number of sessions open at once.
+     * @throws IOException if the selector fails.
+     */
+    public void run(int sessions, int concurrency) throws IOException {
+        while (this.finished + this.failed < sessions) {
+            while ((this.open < concurrency) && (this.started < sessions)) {
+                connect();
+            }
+            this.selector.select();
+            Iterator<SelectionKey> ready = this.selector.selectedKeys().iterator();
+            while (ready.hasNext()) {
+                SelectionKey key = ready.next();
+                ready.remove();
+                Client client = (Client) key.attachment();
+                try {
+                    if (key.isConnectable()) {
+                        client.channel.finishConnect();
+                        key.interestOps(SelectionKey.OP_READ);
+                    } else if (key.isReadable()) {
+                        read(client);
+                    }
+                } catch (IOException ioe) {
+                    this.failed++;
+                    end(client);
+                }
+            }
+        }
+    } //run
+
+    /**
+     * Opens one more session.
+     *
+     * @throws IOException if a channel cannot be opened.
+     */
+    private void connect() throws IOException {
+        SocketChannel channel = (this.address instanceof UnixDomainSocketAddress)
+            ? SocketChannel.open(StandardProtocolFamily.UNIX) : SocketChannel.open();
+        channel.configureBlocking(false);
+        if (channel.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+        Client client = new Client(channel);
+        if (channel.connect(this.address)) {
+            channel.register(this.selector, SelectionKey.OP_READ, client);
+        } else {
+            channel.register(this.selector, SelectionKey.OP_CONNECT, client);
+        }
+        this.open++;
+        this.started++;
+    } //connect
+
+    /**
+     * Reads a session's output. Each time a prompt arrives the latency of
+     * the last command is recorded and the next command is sent; when the
+     * server closes the session after the quit, the session is done.
+     *
+     * @param client the session.
+     * @throws IOException if the channel fails.
+     */
+    private void read(Client client) throws IOException {
+        this.input.clear();
+        int read = client.channel.read(this.input);
+        if (read < 0) {
+            if (client.sent == this.commandsPerSession + 1) {
+                this.finished++;
+            } else {
+                this.failed++;
+            }
+            end(client);
+            return;
+        }
+        this.input.flip();
+        while (this.input.hasRemaining()) {
+            byte b = this.input.get();
+            if (b == PROMPT[client.matched]) {
+                client.matched++;
+            } else {
+                client.matched = (b == PROMPT[0]) ? 1 : 0;
+            }
+            if (client.matched == PROMPT.length) {
+                client.matched = 0;
+                prompted(client);
+            }
+        }
+    } //read
+
+    /**
+     * Records the latency of the command a prompt answers and sends the
+     * session's next command.
+     *
+     * @param client the session.
+     * @throws IOException if the channel fails.
+     */
+    private void prompted(Client client) throws IOException {
+        long now = System.nanoTime();
+        if (client.sent > 0) {
+            if (this.latencyCount == this.latencies.length) {
+                this.latencies = Arrays.copyOf(this.latencies, this.latencies.length * 2);
+            }
+            this.latencies[this.latencyCount++] = now - client.sentAt;
+        }
+        byte[] command = (client.sent < this.commandsPerSession)
+            ? COMMANDS[client.sent % SCRIPT.length] : COMMANDS[SCRIPT.length];
+        ByteBuffer buffer = ByteBuffer.wrap(command);
+        //A command is a few bytes, so the socket buffer always takes it whole.
+        while (buffer.hasRemaining()) {
+            client.channel.write(buffer);
+        }
+        client.sent++;
+        client.sentAt = now;
+    } //prompted
+
+    /**
+     * Closes a session.
+     *
+     * @param client the session.
+     */
+    private void end(Client client) {
+        this.open--;
+        try {
+            client.channel.close();
+        } catch (IOException ioe) {
+            //The session is over either way.
+            return;
+        }
+    } //end
+
+    /**
+     * Returns a percentile of the recorded latencies. The latencies must
+     * already be sorted.
+     *
+     * @param percent the percentile, from 0 to 100.
+     * @return the latency in microseconds.
+     */
+    private double percentile(double percent) {
+        if (this.latencyCount == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * this.latencyCount) - 1;
+        return this.latencies[Math.max(0, index)] / 1000.0;
+    } //percentile
+
+    /**
+     * Runs a load test and prints the session rate and command latencies.
+     *
+     * @param args the command line arguments.
+     * @throws IOException if the server cannot be reached.
+     */
+    public static void main(String[] args) throws IOException {
+        SocketAddress address = null;
+        int sessions = 20000;
+        int concurrency = 1000;
+        int commands = 8;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--port") && (i + 1 < args.length)) {
+                    address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        Integer.parseInt(args[++i]));
+                } else if (args[i].equals("--unix") && (i + 1 < args.length)) {
+                    address = UnixDomainSocketAddress.of(args[++i]);
+                } else if (args[i].equals("--sessions") && (i + 1 < args.length)) {
+                    sessions = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--concurrency") && (i + 1 < args.length)) {
+                    concurrency = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--commands") && (i + 1 < args.length)) {
+                    commands = Integer.parseInt(args[++i]);
+                } else {
+                    address = null;
+                    break;
+                }
+            }
+        } catch (IllegalArgumentException iae) {
+            address = null;
+        }
+        if ((address == null) || (sessions < 1) || (concurrency < 1) || (commands < 0)) {
+            System.err.println();
+            System.err.println("Usage: LoadGenerator (--port N | --unix PATH) [--sessions N] " +
+                "[--concurrency N] [--commands N]");
+            System.exit(1);
+        }
+
+        LoadGenerator load = new LoadGenerator(address, commands);
+        long start = System.nanoTime();
+        load.run(sessions, concurrency);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(load.latencies, 0, load.latencyCount);
+        System.out.printf("%,d sessions (%,d failed) with %,d commands in %.2f s: " +
+            "%,.0f sessions/s, %,.0f commands/s%n", load.finished, load.failed,
+            load.latencyCount, seconds, load.finished / seconds, load.latencyCount / seconds);
+        System.out.printf("Command latency: p50 %.0f us, p99 %.0f us, max %.0f us%n",
+            load.percentile(50), load.percentile(99), load.percentile(100));
+    } //main
+} //LoadGenerator
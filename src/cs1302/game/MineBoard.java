@@ -0,0 +1,621 @@
+package cs1302.game;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class represents the compact state of a Minesweeper Alpha grid.
+ * Mine locations are stored one bit per square in a {@code long[]} bitset
+ * and each square is described by a single byte. The low nibble holds the
+ * player-visible state: either the number of adjacent mines of a revealed
+ * square (0 through 8) or one of the {@link #HIDDEN}, {@link #FLAG} and
+ * {@link #GUESS} markers. The high nibble holds the precomputed number of
+ * adjacent mines once {@link #computeAdjacency()} has been called. A board
+ * with a million squares costs a little over one megabyte of heap.
+ * The board also keeps running counts of safe squares that are still
+ * unrevealed and of correctly flagged mines, so that {@link #isWon()}
+ * never has to scan the grid, and counts of revealed and flagged squares
+ * in each {@value #BLOCK_SIZE} by {@value #BLOCK_SIZE} block, so that an
+ * overview of a large board can be drawn without visiting every square.
+ */
+public class MineBoard implements Minefield {
+    /** State of a square the user has not touched yet. */
+    public static final byte HIDDEN = 9;
+    /** State of a square the user marked as definitely containing a mine. */
+    public static final byte FLAG = 10;
+    /** State of a square the user marked as possibly containing a mine. */
+    public static final byte GUESS = 11;
+
+    /** The number of rows and columns in a block of squares. */
+    public static final int BLOCK_SIZE = 16;
+    private static final int BLOCK_BITS = 4;
+
+    //Mask selecting the player-visible state from a square's byte.
+    private static final int STATE_MASK = 0x0F;
+
+    //Symbol printed for each state, indexed by the state byte.
+    private static final String[] SYMBOLS = {
+        "0", "1", "2", "3", "4", "5", "6", "7", "8", " ", "F", "?"
+    };
+
+    private final int rows, cols;
+    private long[] mines;
+    private byte[] cells;
+    //True while the mines, or the squares and their block counts, may be shared
+    //with other boards; each is copied before this board first writes to it.
+    private boolean minesShared, cellsShared;
+    private int mineCount, unrevealedSafe, flaggedMines;
+    //One bit per row, set when a square in that row changes state; null until
+    //a shared board first changes a square.
+    private long[] dirtyRows;
+    //Revealed and flagged squares in each block, row by row of blocks.
+    private final int blockCols;
+    private int[] blockRevealed, blockFlagged;
+    //Reusable work stack for the zero-cascade flood fill in reveal.
+    private int[] fillStack = new int[64];
+    //Told the old state of every square that changes while a move is recorded.
+    private UndoHistory history;
+    //Told the new state of every square that changes, or null if nobody listens.
+    private GameListener listener;
+
+    /**
+     * Constructs an empty board with every square hidden and no mines.
+     *
+     * @param rows the number of rows on the board.
+     * @param cols the number of columns on the board.
+     * @throws IllegalArgumentException if the board has no squares or more
+     * squares than can be indexed by an int.
+     */
+    public MineBoard(int rows, int cols) {
+        if ((rows < 1) || (cols < 1) || ((long) rows * cols > Integer.MAX_VALUE - 8)) {
+            throw new IllegalArgumentException("Invalid board size: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        int size = rows * cols;
+        this.mines = new long[(size + 63) >>> 6];
+        this.cells = new byte[size];
+        Arrays.fill(this.cells, HIDDEN);
+        this.unrevealedSafe = size;
+        this.dirtyRows = new long[(rows + 63) >>> 6];
+        this.blockCols = (cols + BLOCK_SIZE - 1) >>> BLOCK_BITS;
+        int blocks = ((rows + BLOCK_SIZE - 1) >>> BLOCK_BITS) * this.blockCols;
+        this.blockRevealed = new int[blocks];
+        this.blockFlagged = new int[blocks];
+    }
+
+    /**
+     * Constructs a board that shares another board's mines, squares and
+     * block counts.
+     *
+     * @param from the board to share.
+     */
+    private MineBoard(MineBoard from) {
+        this.rows = from.rows;
+        this.cols = from.cols;
+        this.mines = from.mines;
+        this.cells = from.cells;
+        this.minesShared = true;
+        this.cellsShared = true;
+        this.mineCount = from.mineCount;
+        this.unrevealedSafe = from.unrevealedSafe;
+        this.flaggedMines = from.flaggedMines;
+        this.blockCols = from.blockCols;
+        this.blockRevealed = from.blockRevealed;
+        this.blockFlagged = from.blockFlagged;
+    }
+
+    /**
+     * Returns a board with the same mines, squares and adjacency counts in
+     * constant time, without copying any of them. No row of the new board
+     * is dirty, and it has no history or listener.
+     *
+     * <p>Both boards share their arrays, and each copies what it writes to
+     * first. The first square either one changes copies its squares and
+     * block counts, about one byte per square; the mines are only copied if
+     * it places a mine, so a game never copies them. Both boards go on
+     * treating the arrays as shared, since there is no telling when the
+     * other stops using them. Used by the {@link BoardCache} to start many
+     * games on one parsed board that is never played on itself.
+     *
+     * @return the new board.
+     */
+    public MineBoard share() {
+        this.minesShared = true;
+        this.cellsShared = true;
+        return new MineBoard(this);
+    } //share
+
+    /**
+     * Gives this board its own copy of the mines, if they may be shared with
+     * another board. Called before every write to them.
+     */
+    private void unshareMines() {
+        if (this.minesShared) {
+            this.mines = this.mines.clone();
+            this.minesShared = false;
+        }
+    }
+
+    /**
+     * Gives this board its own copies of the squares and block counts, if
+     * they may be shared with another board, and its own dirty rows. Called
+     * before every write to them.
+     */
+    private void unshareCells() {
+        if (this.cellsShared) {
+            this.cells = this.cells.clone();
+            this.blockRevealed = this.blockRevealed.clone();
+            this.blockFlagged = this.blockFlagged.clone();
+            this.cellsShared = false;
+        }
+        if (this.dirtyRows == null) {
+            this.dirtyRows = new long[(this.rows + 63) >>> 6];
+        }
+    } //unshareCells
+
+    /**
+     * Returns the number of rows on the board.
+     *
+     * @return the number of rows.
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the number of columns on the board.
+     *
+     * @return the number of columns.
+     */
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * Returns the total number of squares on the board.
+     *
+     * @return rows times columns.
+     */
+    public int size() {
+        return this.cells.length;
+    }
+
+    /**
+     * Converts a row and column into a flat square index. The row is checked
+     * before the column so that the exception message matches the one a
+     * two dimensional array lookup would produce.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return the flat index of the square.
+     * @throws IndexOutOfBoundsException if the square is not on the board.
+     */
+    public int index(int r, int c) {
+        Objects.checkIndex(r, this.rows);
+        Objects.checkIndex(c, this.cols);
+        return r * this.cols + c;
+    }
+
+    /**
+     * Determines if the square at the given flat index contains a mine.
+     *
+     * @param i the flat index of the square.
+     * @return true if the square contains a mine.
+     */
+    public boolean isMine(int i) {
+        return (this.mines[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Determines if the square at the given row and column contains a mine.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return true if the square contains a mine.
+     */
+    public boolean isMine(int r, int c) {
+        return isMine(index(r, c));
+    }
+
+    /**
+     * Places a mine on the square at the given row and column. Mines must
+     * be placed before any square is revealed; a square the player already
+     * flagged counts as correctly flagged.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return true if the square did not already contain a mine.
+     */
+    public boolean setMine(int r, int c) {
+        int i = index(r, c);
+        boolean isNew = !isMine(i);
+        if (isNew) {
+            unshareMines();
+            this.mines[i >>> 6] |= 1L << i;
+            this.mineCount++;
+            this.unrevealedSafe--;
+            if (getCell(i) == FLAG) {
+                this.flaggedMines++;
+            }
+        }
+        return isNew;
+    }
+
+    /**
+     * Returns the number of distinct squares containing a mine.
+     *
+     * @return the number of mines on the board.
+     */
+    public int getMineCount() {
+        return this.mineCount;
+    }
+
+    /**
+     * Returns the state of the square at the given flat index.
+     *
+     * @param i the flat index of the square.
+     * @return 0 through 8 for a revealed square, otherwise {@link #HIDDEN},
+     * {@link #FLAG} or {@link #GUESS}.
+     */
+    public byte getCell(int i) {
+        return (byte) (this.cells[i] & STATE_MASK);
+    }
+
+    /**
+     * Returns the state of the square at the given row and column.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return the state of the square.
+     */
+    public byte getCell(int r, int c) {
+        return getCell(index(r, c));
+    }
+
+    /**
+     * Sets the state of the square at the given flat index and updates the
+     * running counts used by {@link #isWon()}.
+     *
+     * @param i the flat index of the square.
+     * @param state the new state of the square.
+     */
+    public void setCell(int i, byte state) {
+        byte old = getCell(i);
+        if ((this.history != null) && (old != state)) {
+            this.history.changed(i, old);
+        }
+        if (isMine(i)) {
+            if ((old != FLAG) && (state == FLAG)) {
+                this.flaggedMines++;
+            } else if ((old == FLAG) && (state != FLAG)) {
+                this.flaggedMines--;
+            }
+        } else {
+            if ((old > 8) && (state <= 8)) {
+                this.unrevealedSafe--;
+            } else if ((old <= 8) && (state > 8)) {
+                this.unrevealedSafe++;
+            }
+        }
+        unshareCells();
+        this.cells[i] = (byte) ((this.cells[i] & ~STATE_MASK) | state);
+        int r = i / this.cols;
+        this.dirtyRows[r >>> 6] |= 1L << r;
+        int block = (r >>> BLOCK_BITS) * this.blockCols + ((i - r * this.cols) >>> BLOCK_BITS);
+        if ((old <= 8) != (state <= 8)) {
+            this.blockRevealed[block] += (state <= 8) ? 1 : -1;
+        }
+        if ((old == FLAG) != (state == FLAG)) {
+            this.blockFlagged[block] += (state == FLAG) ? 1 : -1;
+        }
+        if ((this.listener != null) && (old != state)) {
+            if (state <= 8) {
+                this.listener.cellRevealed(r, i - r * this.cols, state);
+            } else {
+                this.listener.cellMarked(r, i - r * this.cols, state);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of revealed squares in a block.
+     *
+     * @param blockRow the row of the block; block row b starts at square
+     *     row b * {@value #BLOCK_SIZE}.
+     * @param blockCol the column of the block.
+     * @return the revealed square count.
+     */
+    int getBlockRevealed(int blockRow, int blockCol) {
+        return this.blockRevealed[blockRow * this.blockCols + blockCol];
+    }
+
+    /**
+     * Returns the number of flagged squares in a block.
+     *
+     * @param blockRow the row of the block.
+     * @param blockCol the column of the block.
+     * @return the flagged square count.
+     */
+    int getBlockFlagged(int blockRow, int blockCol) {
+        return this.blockFlagged[blockRow * this.blockCols + blockCol];
+    }
+
+    /**
+     * Starts or stops reporting square changes to an undo history.
+     *
+     * @param history the history recording the current move, or null.
+     */
+    void setHistory(UndoHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Starts or stops reporting square changes as {@link GameListener}
+     * events. Changes made by {@link #readStates} are not reported.
+     *
+     * @param listener the listener, or null.
+     */
+    void setListener(GameListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Determines if any square in a row changed state since the last call to
+     * {@link #clearDirtyRows()}.
+     *
+     * @param r the row to check.
+     * @return true if the row has changed.
+     */
+    public boolean isRowDirty(int r) {
+        return (this.dirtyRows != null) && ((this.dirtyRows[r >>> 6] & (1L << r)) != 0);
+    }
+
+    /**
+     * Marks every row as unchanged. Called by the renderer after each frame.
+     */
+    public void clearDirtyRows() {
+        if (this.dirtyRows != null) {
+            Arrays.fill(this.dirtyRows, 0L);
+        }
+    }
+
+    /**
+     * Determines in constant time if every square not containing a mine has
+     * been revealed and every square containing a mine has been flagged.
+     *
+     * @return true if the board is in a winning state.
+     */
+    public boolean isWon() {
+        return (this.unrevealedSafe == 0) && (this.flaggedMines == this.mineCount);
+    }
+
+    /**
+     * Precomputes the number of adjacent mines of every square with the
+     * {@link AdjacencyKernel}, which counts 64 squares at a time and splits
+     * big boards into stripes of rows counted in parallel. Must be called
+     * after all mines have been placed; calling it again recounts. When
+     * assertions are enabled ({@code java -ea}) every count is verified
+     * against {@link #countAdjacentMines(int, int)}.
+     */
+    public void computeAdjacency() {
+        computeAdjacency(true);
+    }
+
+    /**
+     * Precomputes the number of adjacent mines of every square.
+     *
+     * @param parallel false to count a big board on the calling thread only.
+     */
+    void computeAdjacency(boolean parallel) {
+        unshareCells();
+        AdjacencyKernel.compute(this.mines, this.cells, this.rows, this.cols, parallel);
+        assert adjacencyMatches() : "adjacency kernel disagrees with countAdjacentMines";
+    }
+
+    /**
+     * Compares every precomputed count with a count of the neighbours.
+     *
+     * @return true if every count is right.
+     */
+    private boolean adjacencyMatches() {
+        for (int i = 0; i < this.cells.length; i++) {
+            if (getAdjacent(i) != countAdjacentMines(i / this.cols, i % this.cols)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the precomputed number of mines adjacent to a square.
+     *
+     * @param i the flat index of the square.
+     * @return the number of adjacent mines.
+     */
+    public int getAdjacent(int i) {
+        return (this.cells[i] >>> 4) & STATE_MASK;
+    }
+
+    /**
+     * Reveals a square that does not contain a mine. If the square has no
+     * adjacent mines, every hidden or guessed square connected to it through
+     * other zero squares is revealed as well. The cascade uses an explicit,
+     * reused work stack instead of recursion, so large open regions neither
+     * overflow the call stack nor allocate per square. Flagged neighbours are
+     * left untouched.
+     *
+     * @param i the flat index of the square.
+     * @return the number of squares whose state changed to revealed.
+     */
+    public int reveal(int i) {
+        int revealed = (getCell(i) > 8) ? 1 : 0;
+        setCell(i, (byte) getAdjacent(i));
+        if (getAdjacent(i) != 0) {
+            return revealed;
+        }
+        int[] stack = this.fillStack;
+        int top = 0;
+        stack[top++] = i;
+        while (top > 0) {
+            int cur = stack[--top];
+            int r = cur / this.cols, c = cur % this.cols;
+            int rowStart = Math.max(r - 1, 0), rowEnd = Math.min(r + 1, this.rows - 1);
+            int colStart = Math.max(c - 1, 0), colEnd = Math.min(c + 1, this.cols - 1);
+            for (int nr = rowStart; nr <= rowEnd; nr++) {
+                for (int nc = colStart; nc <= colEnd; nc++) {
+                    int n = nr * this.cols + nc;
+                    byte state = getCell(n);
+                    if ((state == HIDDEN) || (state == GUESS)) {
+                        int adjacent = getAdjacent(n);
+                        setCell(n, (byte) adjacent);
+                        revealed++;
+                        if (adjacent == 0) {
+                            if (top == stack.length) {
+                                stack = Arrays.copyOf(stack, stack.length * 2);
+                                this.fillStack = stack;
+                            }
+                            stack[top++] = n;
+                        }
+                    }
+                }
+            }
+        }
+        return revealed;
+    }
+
+    /**
+     * Counts the mines in the (up to) eight squares surrounding a square.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return the number of adjacent mines.
+     */
+    public int countAdjacentMines(int r, int c) {
+        int mineCount = 0;
+        int rowStart = Math.max(r - 1, 0), rowEnd = Math.min(r + 1, this.rows - 1);
+        int colStart = Math.max(c - 1, 0), colEnd = Math.min(c + 1, this.cols - 1);
+        for (int i = rowStart; i <= rowEnd; i++) {
+            for (int j = colStart; j <= colEnd; j++) {
+                if (((i != r) || (j != c)) && isMine(i * this.cols + j)) {
+                    mineCount++;
+                }
+            }
+        }
+        return mineCount;
+    }
+
+    /**
+     * Hashes the size of the board and where its mines are, so every game
+     * played from the same seed file, or on the same generated board, gets
+     * the same value however the file was laid out. The rows, the columns
+     * and each long of the mine bitset are mixed in with 64-bit FNV-1a.
+     *
+     * @return the hash.
+     */
+    public long layoutHash() {
+        long hash = 0xCBF29CE484222325L;
+        hash = (hash ^ this.rows) * 0x100000001B3L;
+        hash = (hash ^ this.cols) * 0x100000001B3L;
+        for (long word : this.mines) {
+            hash = (hash ^ word) * 0x100000001B3L;
+            //Fold the high bits back so every bit of a word reaches the low ones.
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    } //layoutHash
+
+    /**
+     * Copies the mine bitset into a buffer, one long per 64 squares.
+     *
+     * @param out the buffer to write to.
+     */
+    void writeMines(ByteBuffer out) {
+        out.asLongBuffer().put(this.mines);
+        out.position(out.position() + this.mines.length * Long.BYTES);
+    }
+
+    /**
+     * Replaces the mine bitset with one read from a buffer and recounts the
+     * mines. Every square must still be hidden.
+     *
+     * @param in the buffer to read from, holding one long per 64 squares.
+     */
+    void readMines(ByteBuffer in) {
+        unshareMines();
+        in.asLongBuffer().get(this.mines);
+        in.position(in.position() + this.mines.length * Long.BYTES);
+        this.mineCount = 0;
+        for (long word : this.mines) {
+            this.mineCount += Long.bitCount(word);
+        }
+        this.unrevealedSafe = size() - this.mineCount;
+    }
+
+    /**
+     * Packs the state of every square into a buffer, two squares per byte
+     * with the lower-indexed square in the low nibble.
+     *
+     * @param out the buffer to write to.
+     */
+    void writeStates(ByteBuffer out) {
+        for (int i = 0; i < this.cells.length; i += 2) {
+            int low = this.cells[i] & STATE_MASK;
+            int high = (i + 1 < this.cells.length) ? this.cells[i + 1] & STATE_MASK : 0;
+            out.put((byte) ((high << 4) | low));
+        }
+    }
+
+    /**
+     * Restores the state of every square from a buffer written by
+     * {@link #writeStates(ByteBuffer)}, recounting the squares used by
+     * {@link #isWon()}. The mines must already be in place.
+     *
+     * @param in the buffer to read from.
+     * @throws IllegalArgumentException if a state is not valid.
+     */
+    void readStates(ByteBuffer in) {
+        unshareCells();
+        this.unrevealedSafe = 0;
+        this.flaggedMines = 0;
+        Arrays.fill(this.blockRevealed, 0);
+        Arrays.fill(this.blockFlagged, 0);
+        for (int i = 0; i < this.cells.length; i++) {
+            int state = ((i & 1) == 0) ? in.get(in.position()) & STATE_MASK
+                : (in.get() >>> 4) & STATE_MASK;
+            if (state > GUESS) {
+                throw new IllegalArgumentException("Invalid square state " + state);
+            }
+            this.cells[i] = (byte) ((this.cells[i] & ~STATE_MASK) | state);
+            int r = i / this.cols;
+            int block = (r >>> BLOCK_BITS) * this.blockCols + ((i - r * this.cols) >>> BLOCK_BITS);
+            this.blockRevealed[block] += (state <= 8) ? 1 : 0;
+            this.blockFlagged[block] += (state == FLAG) ? 1 : 0;
+            if (isMine(i)) {
+                if (state <= 8) {
+                    throw new IllegalArgumentException("Revealed mine at square " + i);
+                } else if (state == FLAG) {
+                    this.flaggedMines++;
+                }
+            } else if (state > 8) {
+                this.unrevealedSafe++;
+            }
+        }
+        if ((this.cells.length & 1) == 1) {
+            in.get();
+        }
+        Arrays.fill(this.dirtyRows, -1L);
+    } //readStates
+
+    /**
+     * Returns the symbol displayed for a square state.
+     *
+     * @param state the state of a square.
+     * @return " " for hidden, "F" for flagged, "?" for guessed, otherwise
+     * the number of adjacent mines.
+     */
+    public static String symbol(byte state) {
+        return SYMBOLS[state];
+    }
+} //MineBoard
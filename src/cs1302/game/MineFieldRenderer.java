@@ -0,0 +1,421 @@
+package cs1302.game;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class draws a {@link MineBoard} to an output stream. Each frame is
+ * assembled in a single reusable byte buffer and handed to the stream with
+ * one write, instead of one print call per square. The default output is
+ * byte-for-byte what the original {@code printMineField()} and
+ * {@code nofog()} printed.
+ *
+ * <p>In the optional ANSI diff mode the board is pinned to the top of the
+ * terminal, and later frames only rewrite the round counter and the rows
+ * that changed since the previous frame.
+ *
+ * <p>Boards too large to print whole, such as a {@link ChunkedBoard}, are
+ * drawn through a window of a few rows and columns labelled with their
+ * actual coordinates, or as an overview in which each tile stands for a
+ * rectangle of squares.
+ */
+public class MineFieldRenderer {
+    private static final byte[] NEWLINE =
+        System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final String ESC = "\u001b[";
+
+    private final PrintStream out;
+    private byte[] buf = new byte[4096];
+    private int len;
+    private boolean diffMode;
+    private boolean needsFullFrame = true;
+
+    /**
+     * Constructs a renderer writing to the given stream.
+     *
+     * @param out the stream frames are written to.
+     */
+    public MineFieldRenderer(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Enables or disables ANSI diff mode. The next frame is always drawn in full.
+     *
+     * @param diffMode true to redraw only the rows changed since the last frame.
+     */
+    public void setDiffMode(boolean diffMode) {
+        this.diffMode = diffMode;
+        this.needsFullFrame = true;
+    }
+
+    /**
+     * Forgets the previous frame, so the next one is drawn in full. Used when
+     * the board being drawn is replaced, for instance by a loaded game.
+     */
+    public void invalidate() {
+        this.needsFullFrame = true;
+    }
+
+    /**
+     * Determines if ANSI diff mode is enabled.
+     *
+     * @return true if only changed rows are redrawn.
+     */
+    public boolean isDiffMode() {
+        return this.diffMode;
+    }
+
+    /**
+     * Draws the number of rounds played and the player-visible state of the board.
+     *
+     * @param board the board to draw.
+     * @param round the number of rounds completed.
+     */
+    public void printMineField(MineBoard board, int round) {
+        this.len = 0;
+        if (this.diffMode && !this.needsFullFrame) {
+            appendDiff(board, round);
+        } else {
+            if (this.diffMode) {
+                //Pin the board to the top of the screen so rows can be addressed.
+                append(ESC).append("H").append(ESC).append("2J");
+                this.needsFullFrame = false;
+            }
+            appendFrame(board, round, " Rounds completed: ", false);
+        }
+        board.clearDirtyRows();
+        flush();
+    } //printMineField
+
+    /**
+     * Draws the board with every square containing a mine surrounded by "<>".
+     * In diff mode the following frame is drawn in full, since this one
+     * replaces every row.
+     *
+     * @param board the board to draw.
+     * @param round the number of rounds completed.
+     */
+    public void printNoFog(MineBoard board, int round) {
+        this.len = 0;
+        appendFrame(board, round, "Rounds completed: ", true);
+        this.needsFullFrame = true;
+        flush();
+    } //printNoFog
+
+    /**
+     * Draws a rectangular window of a minefield. Rows and columns are
+     * labelled with their coordinates on the whole minefield; when column
+     * numbers are too wide to label every column, every second (or third,
+     * ...) column is labelled. The following frame in diff mode is drawn in
+     * full.
+     *
+     * @param board the minefield to draw.
+     * @param round the number of rounds completed.
+     * @param top the first row of the window.
+     * @param left the first column of the window.
+     * @param height the number of rows in the window.
+     * @param width the number of columns in the window.
+     * @param showMines true to surround squares containing a mine with "<>".
+     */
+    public void printWindow(Minefield board, int round, int top, int left, int height,
+        int width, boolean showMines) {
+        this.len = 0;
+        newLine();
+        append(showMines ? "Rounds completed: " : " Rounds completed: ").append(round);
+        newLine();
+        int labelWidth = digits(top + height - 1);
+        for (int r = top; r < top + height; r++) {
+            newLine();
+            append(" ");
+            for (int pad = digits(r); pad < labelWidth; pad++) {
+                append(" ");
+            }
+            append(r).append(" ");
+            for (int c = left; c < left + width; c++) {
+                boolean mine = showMines && board.isMine(r, c);
+                append(mine ? "|<" : "| ");
+                append(MineBoard.symbol(board.getCell(r, c)));
+                append(mine ? ">" : " ");
+            }
+            append("|");
+        }
+        newLine();
+        //Column labels start above the middle of their squares, like the full footer.
+        int step = (digits(left + width - 1) + 4) / 4;
+        int column = 0;
+        for (int c = left; c < left + width; c += step) {
+            for (int target = labelWidth + 4 + 4 * (c - left); column < target; column++) {
+                append(" ");
+            }
+            append(c);
+            column += digits(c);
+        }
+        append("\n");
+        newLine();
+        this.needsFullFrame = true;
+        flush();
+    } //printWindow
+
+    /**
+     * Draws a downsampled overview of a board. The board is split into at
+     * most {@code maxRows} by {@code maxCols} tiles, and each tile shows the
+     * percentage of its squares that are revealed, followed by "*" if any
+     * of them is flagged. Tiles of a large board are made of whole blocks,
+     * so they are totalled from the board's block counts: one count per
+     * {@value MineBoard#BLOCK_SIZE}x{@value MineBoard#BLOCK_SIZE} block, or
+     * about rows * cols / 256 reads, however many tiles there are. A board
+     * whose tiles are smaller than a block is small enough to be read
+     * square by square.
+     *
+     * @param board the board to draw.
+     * @param round the number of rounds completed.
+     * @param maxRows the largest number of tile rows.
+     * @param maxCols the largest number of tile columns.
+     */
+    public void printOverview(MineBoard board, int round, int maxRows, int maxCols) {
+        int rows = board.getRows(), cols = board.getCols();
+        int tileRows = (rows + maxRows - 1) / maxRows;
+        int tileCols = (cols + maxCols - 1) / maxCols;
+        int block = MineBoard.BLOCK_SIZE;
+        boolean useBlocks = (tileRows >= block) || (tileCols >= block);
+        if (useBlocks) {
+            tileRows = roundUp(tileRows, block);
+            tileCols = roundUp(tileCols, block);
+        }
+        this.len = 0;
+        newLine();
+        append(" Rounds completed: ").append(round);
+        newLine();
+        append(" Overview: tiles of ").append(tileRows).append(" x ").append(tileCols)
+            .append(" squares, % revealed, * if flagged");
+        newLine();
+        int labelWidth = digits(rows - 1);
+        for (int top = 0; top < rows; top += tileRows) {
+            newLine();
+            append(" ");
+            for (int pad = digits(top); pad < labelWidth; pad++) {
+                append(" ");
+            }
+            append(top).append(" ");
+            int bottom = Math.min(top + tileRows, rows);
+            for (int left = 0; left < cols; left += tileCols) {
+                int right = Math.min(left + tileCols, cols);
+                long revealed = 0, flagged = 0;
+                if (useBlocks) {
+                    for (int br = top / block; br * block < bottom; br++) {
+                        for (int bc = left / block; bc * block < right; bc++) {
+                            revealed += board.getBlockRevealed(br, bc);
+                            flagged += board.getBlockFlagged(br, bc);
+                        }
+                    }
+                } else {
+                    for (int r = top; r < bottom; r++) {
+                        for (int i = r * cols + left; i < r * cols + right; i++) {
+                            byte state = board.getCell(i);
+                            revealed += (state <= 8) ? 1 : 0;
+                            flagged += (state == MineBoard.FLAG) ? 1 : 0;
+                        }
+                    }
+                }
+                int percent = (int) (100 * revealed / ((long) (bottom - top) * (right - left)));
+                append("|").append((percent < 10) ? "  " : (percent < 100) ? " " : "")
+                    .append(percent).append((flagged > 0) ? "*" : " ");
+            }
+            append("|");
+        }
+        newLine();
+        //Label every tile column whose label fits, over the first square of the tile.
+        int step = (digits(cols - 1) + 5) / 5;
+        int column = 0;
+        for (int tile = 0; tile * tileCols < cols; tile += step) {
+            for (int target = labelWidth + 3 + 5 * tile; column < target; column++) {
+                append(" ");
+            }
+            append(tile * tileCols);
+            column += digits(tile * tileCols);
+        }
+        append("\n");
+        newLine();
+        this.needsFullFrame = true;
+        flush();
+    } //printOverview
+
+    /**
+     * Rounds a positive int up to a multiple of another.
+     *
+     * @param n the number to round.
+     * @param multiple the multiple.
+     * @return the smallest multiple of {@code multiple} not below {@code n}.
+     */
+    private static int roundUp(int n, int multiple) {
+        return (n + multiple - 1) / multiple * multiple;
+    }
+
+    /**
+     * Counts the decimal digits of a non-negative int.
+     *
+     * @param n the number.
+     * @return the number of digits.
+     */
+    private static int digits(int n) {
+        int digits = 1;
+        while (n >= 10) {
+            n /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Appends a complete frame to the buffer.
+     *
+     * @param board the board to draw.
+     * @param round the number of rounds completed.
+     * @param title the text printed before the round count.
+     * @param showMines true to surround squares containing a mine with "<>".
+     */
+    private void appendFrame(MineBoard board, int round, String title, boolean showMines) {
+        newLine();
+        append(title).append(round);
+        newLine();
+        for (int r = 0; r < board.getRows(); r++) {
+            newLine();
+            appendRow(board, r, showMines);
+        }
+        newLine();
+        appendFooter(board.getCols());
+        append("\n");
+        newLine();
+    } //appendFrame
+
+    /**
+     * Appends ANSI escape sequences that update the round counter and every
+     * dirty row in place, then park the cursor just below the board.
+     *
+     * @param board the board to draw.
+     * @param round the number of rounds completed.
+     */
+    private void appendDiff(MineBoard board, int round) {
+        //Line 2 holds the round counter and row r is on line 4 + r.
+        moveTo(2).append(" Rounds completed: ").append(round);
+        for (int r = 0; r < board.getRows(); r++) {
+            if (board.isRowDirty(r)) {
+                moveTo(4 + r);
+                appendRow(board, r, false);
+            }
+        }
+        append(ESC).append(6 + board.getRows()).append(";1H").append(ESC).append("J");
+    } //appendDiff
+
+    /**
+     * Appends one row of the board, including its row label.
+     *
+     * @param board the board to draw.
+     * @param r the row to draw.
+     * @param showMines true to surround squares containing a mine with "<>".
+     */
+    private void appendRow(MineBoard board, int r, boolean showMines) {
+        append(" ").append(r).append(" ");
+        int i = r * board.getCols();
+        for (int c = 0; c < board.getCols(); c++, i++) {
+            boolean mine = showMines && board.isMine(i);
+            append(mine ? "|<" : "| ");
+            append(MineBoard.symbol(board.getCell(i)));
+            append(mine ? ">" : " ");
+        }
+        append("|");
+    } //appendRow
+
+    /**
+     * Appends the column indices printed below the board.
+     *
+     * @param cols the number of columns on the board.
+     */
+    private void appendFooter(int cols) {
+        append("     0");
+        for (int colIndex = 1; colIndex < cols; colIndex++) {
+            append("   ").append(colIndex);
+        }
+    } //appendFooter
+
+    /**
+     * Appends an escape sequence moving the cursor to the start of a line and
+     * clearing that line.
+     *
+     * @param line the one-based terminal line.
+     * @return this renderer.
+     */
+    private MineFieldRenderer moveTo(int line) {
+        return append(ESC).append(line).append(";1H").append(ESC).append("2K");
+    }
+
+    /**
+     * Appends the platform line separator, matching {@code println()}.
+     */
+    private void newLine() {
+        ensure(NEWLINE.length);
+        System.arraycopy(NEWLINE, 0, this.buf, this.len, NEWLINE.length);
+        this.len += NEWLINE.length;
+    }
+
+    /**
+     * Appends an ASCII string to the buffer.
+     *
+     * @param s the string to append.
+     * @return this renderer.
+     */
+    private MineFieldRenderer append(String s) {
+        ensure(s.length());
+        for (int k = 0; k < s.length(); k++) {
+            this.buf[this.len++] = (byte) s.charAt(k);
+        }
+        return this;
+    }
+
+    /**
+     * Appends the decimal digits of an int without creating a string.
+     *
+     * @param n the number to append.
+     * @return this renderer.
+     */
+    private MineFieldRenderer append(int n) {
+        ensure(11);
+        if (n < 0) {
+            this.buf[this.len++] = '-';
+            n = -n;
+        }
+        int start = this.len;
+        do {
+            this.buf[this.len++] = (byte) ('0' + n % 10);
+            n /= 10;
+        } while (n > 0);
+        //Digits were written least significant first, so reverse them.
+        for (int lo = start, hi = this.len - 1; lo < hi; lo++, hi--) {
+            byte tmp = this.buf[lo];
+            this.buf[lo] = this.buf[hi];
+            this.buf[hi] = tmp;
+        }
+        return this;
+    }
+
+    /**
+     * Grows the buffer so that it can hold the given number of extra bytes.
+     *
+     * @param extra the number of bytes about to be appended.
+     */
+    private void ensure(int extra) {
+        if (this.len + extra > this.buf.length) {
+            this.buf = Arrays.copyOf(this.buf, Math.max(this.buf.length * 2, this.len + extra));
+        }
+    }
+
+    /**
+     * Writes the buffered frame to the stream with a single call.
+     */
+    private void flush() {
+        this.out.write(this.buf, 0, this.len);
+        this.out.flush();
+    }
+} //MineFieldRenderer
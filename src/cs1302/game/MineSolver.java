@@ -0,0 +1,985 @@
+package cs1302.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class works out moves on a {@link MineBoard} using only what a player
+ * can see: the revealed numbers, the size of the board and the total number
+ * of mines. Flags and guesses placed by the player are ignored, since they
+ * may be wrong.
+ *
+ * <p>Moves are found in three stages. First the single-square rules: a
+ * number whose mines are all accounted for makes its other neighbours safe,
+ * and a number with exactly as many unknown neighbours as missing mines
+ * makes them all mines. Then the subset rule: when the unknown neighbours of
+ * one number are a subset of another's, the difference holds the difference
+ * of their mine counts. If neither rule applies, the unknown squares next to
+ * numbers (the frontier) are split into independent groups of linked
+ * constraints, and every group is enumerated on the fork/join pool. Squares
+ * that are safe or mined in every solution are certain; otherwise the
+ * square with the lowest mine probability is suggested.
+ *
+ * <p>The solver is incremental. After the constructor scans the board once,
+ * only the numbers around squares that change are re-examined, so solving a
+ * large board costs time roughly proportional to its size.
+ */
+public class MineSolver {
+
+    /** A suggested move. */
+    public static final class Hint {
+        private final int row, col;
+        private final boolean mine;
+        private final double probability;
+
+        /**
+         * Constructs a hint.
+         *
+         * @param row the row of the square.
+         * @param col the column of the square.
+         * @param mine true if the square should be marked, false if revealed.
+         * @param probability the chance that the square holds a mine.
+         */
+        Hint(int row, int col, boolean mine, double probability) {
+            this.row = row;
+            this.col = col;
+            this.mine = mine;
+            this.probability = probability;
+        }
+
+        /**
+         * Returns the row of the square.
+         *
+         * @return the row.
+         */
+        public int getRow() {
+            return this.row;
+        }
+
+        /**
+         * Returns the column of the square.
+         *
+         * @return the column.
+         */
+        public int getCol() {
+            return this.col;
+        }
+
+        /**
+         * Determines if the square should be marked rather than revealed.
+         *
+         * @return true for a certain mine.
+         */
+        public boolean isMine() {
+            return this.mine;
+        }
+
+        /**
+         * Returns the chance that the square holds a mine.
+         *
+         * @return 0.0 for a certain safe square, 1.0 for a certain mine,
+         * otherwise the estimated probability.
+         */
+        public double getProbability() {
+            return this.probability;
+        }
+
+        /**
+         * Determines if the move follows with certainty from the board.
+         *
+         * @return true unless the move is a guess.
+         */
+        public boolean isCertain() {
+            return (this.probability == 0.0) || (this.probability == 1.0);
+        }
+    } //Hint
+
+    /** The outcome of letting the solver play a game. */
+    public static final class Result {
+        private final MinesweeperEngine.Status status;
+        private final int reveals, marks, guesses;
+
+        /**
+         * Constructs a result.
+         *
+         * @param status the state the game was left in.
+         * @param reveals the number of squares revealed.
+         * @param marks the number of squares marked.
+         * @param guesses the number of reveals that were not certain.
+         */
+        Result(MinesweeperEngine.Status status, int reveals, int marks, int guesses) {
+            this.status = status;
+            this.reveals = reveals;
+            this.marks = marks;
+            this.guesses = guesses;
+        }
+
+        /**
+         * Returns the state the game was left in.
+         *
+         * @return the game status.
+         */
+        public MinesweeperEngine.Status getStatus() {
+            return this.status;
+        }
+
+        /**
+         * Returns the number of squares the solver revealed.
+         *
+         * @return the reveal count.
+         */
+        public int getReveals() {
+            return this.reveals;
+        }
+
+        /**
+         * Returns the number of squares the solver marked.
+         *
+         * @return the mark count.
+         */
+        public int getMarks() {
+            return this.marks;
+        }
+
+        /**
+         * Returns the number of reveals that had to be guessed.
+         *
+         * @return the guess count.
+         */
+        public int getGuesses() {
+            return this.guesses;
+        }
+    } //Result
+
+    //What the solver knows about each square.
+    private static final byte UNKNOWN = 0, SAFE = 1, MINE = 2, OPEN = 3;
+    //Search nodes allowed per constraint group before falling back to estimates.
+    private static final long NODE_LIMIT = 1_000_000;
+    //Largest constraint group enumerated exactly.
+    private static final int MAX_GROUP = 256;
+
+    private final MineBoard board;
+    private final int rows, cols;
+    private final byte[] known;
+    private int knownMines, unknownCount;
+    //Open squares whose neighbourhood changed and must be re-examined.
+    private int[] work = new int[64];
+    private int workSize;
+    private final boolean[] queued;
+    //Open squares that still have unknown neighbours.
+    private int[] frontier = new int[64];
+    private int frontierSize;
+    private final boolean[] inFrontier;
+    //Deductions not yet handed out as hints.
+    private int[] safeMoves = new int[16];
+    private int safeSize;
+    private int[] mineMoves = new int[16];
+    private int mineSize;
+    //Where the search for an unconstrained square resumes.
+    private int interiorScan;
+    private final int[] scratch = new int[8];
+    private final int[] around = new int[8];
+
+    /**
+     * Constructs a solver for the current state of a board.
+     *
+     * @param board the board to solve.
+     */
+    public MineSolver(MineBoard board) {
+        this.board = board;
+        this.rows = board.getRows();
+        this.cols = board.getCols();
+        this.known = new byte[board.size()];
+        this.queued = new boolean[board.size()];
+        this.inFrontier = new boolean[board.size()];
+        for (int i = 0; i < board.size(); i++) {
+            if (board.getCell(i) <= 8) {
+                this.known[i] = OPEN;
+                enqueue(i);
+            } else {
+                this.unknownCount++;
+            }
+        }
+    }
+
+    /**
+     * Lets a solver play a game until it is won or lost. Certain moves are
+     * made first; when none remain, the square least likely to hold a mine
+     * is revealed.
+     *
+     * @param engine the game to play.
+     * @return the outcome and the number of moves made.
+     */
+    public static Result solve(MinesweeperEngine engine) {
+        MineSolver solver = new MineSolver(engine.getBoard());
+        int reveals = 0, marks = 0, guesses = 0;
+        while (engine.getStatus() == MinesweeperEngine.Status.PLAYING) {
+            Hint hint = solver.hint();
+            if (hint == null) {
+                break;
+            }
+            if (hint.isMine()) {
+                engine.mark(hint.getRow(), hint.getCol());
+                marks++;
+            } else {
+                engine.reveal(hint.getRow(), hint.getCol());
+                reveals++;
+                if (!hint.isCertain()) {
+                    guesses++;
+                }
+                if (engine.getStatus() != MinesweeperEngine.Status.LOST) {
+                    solver.observe(hint.getRow() * solver.cols + hint.getCol());
+                }
+            }
+        }
+        return new Result(engine.getStatus(), reveals, marks, guesses);
+    } //solve
+
+    /**
+     * Returns the next move: a certain safe square if there is one, then a
+     * certain mine, and otherwise the square least likely to hold a mine.
+     * A certain mine is recorded as known once it is returned.
+     *
+     * @return the move, or null if every square is already settled.
+     */
+    public Hint hint() {
+        while (true) {
+            while (this.safeSize > 0) {
+                int i = this.safeMoves[--this.safeSize];
+                if (this.board.getCell(i) > 8) {
+                    return new Hint(i / this.cols, i % this.cols, false, 0.0);
+                }
+                //Already opened, for example by a flood fill.
+                observe(i);
+            }
+            if (this.mineSize > 0) {
+                int i = this.mineMoves[--this.mineSize];
+                return new Hint(i / this.cols, i % this.cols, true, 1.0);
+            }
+            if (this.unknownCount == 0) {
+                return null;
+            }
+            if (deduce() == false) {
+                Hint guess = probabilities();
+                if (guess != null) {
+                    return guess;
+                }
+            }
+        }
+    } //hint
+
+    /**
+     * Updates the solver after a square was revealed on the board. Squares
+     * opened by the resulting flood fill are picked up as well.
+     *
+     * @param i the flat index of the revealed square.
+     */
+    public void observe(int i) {
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = i;
+        while (top > 0) {
+            int cur = stack[--top];
+            if ((this.known[cur] == OPEN) || (this.board.getCell(cur) > 8)) {
+                continue;
+            }
+            boolean wasUnknown = this.known[cur] == UNKNOWN;
+            this.known[cur] = OPEN;
+            enqueue(cur);
+            if (wasUnknown) {
+                this.unknownCount--;
+                enqueueOpenNeighbours(cur);
+            }
+            if (this.board.getCell(cur) == 0) {
+                int n = neighbours(cur, this.scratch);
+                for (int k = 0; k < n; k++) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = this.scratch[k];
+                }
+            }
+        }
+    } //observe
+
+    /**
+     * Applies the single-square rules, the global mine count and the subset
+     * rule until something new is certain.
+     *
+     * @return true if a new safe square or mine was found.
+     */
+    private boolean deduce() {
+        runQueue();
+        if (this.safeSize + this.mineSize > 0) {
+            return true;
+        }
+        int remaining = this.board.getMineCount() - this.knownMines;
+        if ((remaining == 0) || (remaining == this.unknownCount)) {
+            //Every unknown square is safe, or every one is a mine.
+            for (int i = 0; i < this.known.length; i++) {
+                if (this.known[i] == UNKNOWN) {
+                    if (remaining == 0) {
+                        markSafe(i);
+                    } else {
+                        markMine(i);
+                    }
+                }
+            }
+            return true;
+        }
+        subsetRule();
+        runQueue();
+        return this.safeSize + this.mineSize > 0;
+    } //deduce
+
+    /**
+     * Applies the single-square rules to every queued open square.
+     */
+    private void runQueue() {
+        while (this.workSize > 0) {
+            int i = this.work[--this.workSize];
+            this.queued[i] = false;
+            int n = neighbours(i, this.scratch);
+            int unknown = 0, mines = 0;
+            for (int k = 0; k < n; k++) {
+                byte state = this.known[this.scratch[k]];
+                if (state == UNKNOWN) {
+                    unknown++;
+                } else if (state == MINE) {
+                    mines++;
+                }
+            }
+            int missing = this.board.getCell(i) - mines;
+            if (unknown == 0) {
+                continue;
+            }
+            if ((missing == 0) || (missing == unknown)) {
+                for (int k = 0; k < n; k++) {
+                    int j = this.scratch[k];
+                    if (this.known[j] == UNKNOWN) {
+                        if (missing == 0) {
+                            markSafe(j);
+                        } else {
+                            markMine(j);
+                        }
+                    }
+                }
+            } else if (this.inFrontier[i] == false) {
+                this.inFrontier[i] = true;
+                this.frontier = push(this.frontier, this.frontierSize++, i);
+            }
+        }
+    } //runQueue
+
+    /**
+     * Applies the subset rule to every pair of nearby frontier squares.
+     */
+    private void subsetRule() {
+        compactFrontier();
+        int[] a = new int[8];
+        int[] b = new int[8];
+        for (int f = 0; f < this.frontierSize; f++) {
+            int x = this.frontier[f];
+            int sizeA = unknownNeighbours(x, a);
+            int missingA = missing(x);
+            int r = x / this.cols, c = x % this.cols;
+            for (int dr = -2; dr <= 2; dr++) {
+                for (int dc = -2; dc <= 2; dc++) {
+                    int nr = r + dr, nc = c + dc;
+                    if (((dr == 0) && (dc == 0)) || (nr < 0) || (nr >= this.rows) ||
+                        (nc < 0) || (nc >= this.cols)) {
+                        continue;
+                    }
+                    int y = nr * this.cols + nc;
+                    if ((this.known[y] != OPEN) || (this.inFrontier[y] == false)) {
+                        continue;
+                    }
+                    int sizeB = unknownNeighbours(y, b);
+                    if ((sizeB <= sizeA) || !containsAll(b, sizeB, a, sizeA)) {
+                        continue;
+                    }
+                    //The squares around y but not x hold the difference in mines.
+                    int extra = missing(y) - missingA;
+                    if ((extra == 0) || (extra == sizeB - sizeA)) {
+                        for (int k = 0; k < sizeB; k++) {
+                            if (!contains(a, sizeA, b[k]) && (this.known[b[k]] == UNKNOWN)) {
+                                if (extra == 0) {
+                                    markSafe(b[k]);
+                                } else {
+                                    markMine(b[k]);
+                                }
+                            }
+                        }
+                        return;
+                    }
+                }
+            }
+        }
+    } //subsetRule
+
+    /**
+     * Enumerates the constraint groups of the frontier on the fork/join pool.
+     * Squares settled in every solution are recorded as deductions; if there
+     * are none, the least likely mine is returned as a guess.
+     *
+     * @return a guess, or null if new deductions were made instead.
+     */
+    private Hint probabilities() {
+        compactFrontier();
+        //Number every unknown frontier square and link the constraints.
+        Map<Integer, Integer> varOf = new HashMap<>();
+        List<Integer> cells = new ArrayList<>();
+        int[][] constraintVars = new int[this.frontierSize][];
+        int[] targets = new int[this.frontierSize];
+        int[] buf = new int[8];
+        for (int f = 0; f < this.frontierSize; f++) {
+            int size = unknownNeighbours(this.frontier[f], buf);
+            constraintVars[f] = new int[size];
+            targets[f] = missing(this.frontier[f]);
+            for (int k = 0; k < size; k++) {
+                Integer v = varOf.get(buf[k]);
+                if (v == null) {
+                    v = cells.size();
+                    varOf.put(buf[k], v);
+                    cells.add(buf[k]);
+                }
+                constraintVars[f][k] = v;
+            }
+        }
+        int[] parent = new int[cells.size()];
+        for (int v = 0; v < parent.length; v++) {
+            parent[v] = v;
+        }
+        for (int[] vars : constraintVars) {
+            for (int k = 1; k < vars.length; k++) {
+                parent[find(parent, vars[k])] = find(parent, vars[0]);
+            }
+        }
+        Map<Integer, Group> groups = new HashMap<>();
+        for (int f = 0; f < constraintVars.length; f++) {
+            int root = find(parent, constraintVars[f][0]);
+            groups.computeIfAbsent(root, key -> new Group()).addConstraint(
+                constraintVars[f], targets[f]);
+        }
+        int remaining = this.board.getMineCount() - this.knownMines;
+        double density = (double) remaining / this.unknownCount;
+        double ratio = density / (1.0 - density);
+        List<Group> tasks = new ArrayList<>(groups.values());
+        for (Group group : tasks) {
+            group.prepare(ratio, remaining);
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        double expectedMines = 0;
+        double best = 2.0;
+        int bestCell = -1;
+        for (Group group : tasks) {
+            expectedMines += group.expectedMines;
+            for (int k = 0; k < group.vars.length; k++) {
+                int cell = cells.get(group.vars[k]);
+                if (group.exact && (group.mineCount[k] == 0)) {
+                    markSafe(cell);
+                } else if (group.exact && group.alwaysMine[k]) {
+                    markMine(cell);
+                } else if (group.probability[k] < best) {
+                    best = group.probability[k];
+                    bestCell = cell;
+                }
+            }
+        }
+        if (this.safeSize + this.mineSize > 0) {
+            return null;
+        }
+        //An unconstrained square may be a better bet than any frontier square.
+        int interior = this.unknownCount - cells.size();
+        if (interior > 0) {
+            double interiorDensity = Math.max(0.0, remaining - expectedMines) / interior;
+            if ((bestCell < 0) || (interiorDensity < best)) {
+                int cell = nextInterior();
+                if (cell >= 0) {
+                    best = interiorDensity;
+                    bestCell = cell;
+                }
+            }
+        }
+        if (bestCell < 0) {
+            return null;
+        }
+        return new Hint(bestCell / this.cols, bestCell % this.cols, false,
+            Math.min(Math.max(best, Double.MIN_VALUE), Math.nextDown(1.0)));
+    } //probabilities
+
+    /**
+     * Finds an unknown square that touches no open square.
+     *
+     * @return the flat index of the square, or -1 if there is none.
+     */
+    private int nextInterior() {
+        for (int pass = 0; pass < 2; pass++) {
+            for (; this.interiorScan < this.known.length; this.interiorScan++) {
+                int i = this.interiorScan;
+                if ((this.known[i] == UNKNOWN) && !touchesOpen(i)) {
+                    return i;
+                }
+            }
+            this.interiorScan = 0;
+        }
+        return -1;
+    } //nextInterior
+
+    /**
+     * Records a square as certainly safe.
+     *
+     * @param i the flat index of the square.
+     */
+    private void markSafe(int i) {
+        this.known[i] = SAFE;
+        this.unknownCount--;
+        this.safeMoves = push(this.safeMoves, this.safeSize++, i);
+        enqueueOpenNeighbours(i);
+    }
+
+    /**
+     * Records a square as certainly holding a mine.
+     *
+     * @param i the flat index of the square.
+     */
+    private void markMine(int i) {
+        this.known[i] = MINE;
+        this.unknownCount--;
+        this.knownMines++;
+        this.mineMoves = push(this.mineMoves, this.mineSize++, i);
+        enqueueOpenNeighbours(i);
+    }
+
+    /**
+     * Queues an open square to be re-examined.
+     *
+     * @param i the flat index of the square.
+     */
+    private void enqueue(int i) {
+        if (this.queued[i] == false) {
+            this.queued[i] = true;
+            this.work = push(this.work, this.workSize++, i);
+        }
+    }
+
+    /**
+     * Queues every open neighbour of a square whose state became known.
+     *
+     * @param i the flat index of the square.
+     */
+    private void enqueueOpenNeighbours(int i) {
+        int n = neighbours(i, this.around);
+        for (int k = 0; k < n; k++) {
+            if (this.known[this.around[k]] == OPEN) {
+                enqueue(this.around[k]);
+            }
+        }
+    }
+
+    /**
+     * Drops frontier squares that no longer have unknown neighbours.
+     */
+    private void compactFrontier() {
+        int kept = 0;
+        int[] buf = new int[8];
+        for (int f = 0; f < this.frontierSize; f++) {
+            int i = this.frontier[f];
+            if (unknownNeighbours(i, buf) > 0) {
+                this.frontier[kept++] = i;
+            } else {
+                this.inFrontier[i] = false;
+            }
+        }
+        this.frontierSize = kept;
+    }
+
+    /**
+     * Counts the mines still missing around an open square.
+     *
+     * @param i the flat index of the open square.
+     * @return its number minus the neighbours known to be mines.
+     */
+    private int missing(int i) {
+        int n = neighbours(i, this.around);
+        int missing = this.board.getCell(i);
+        for (int k = 0; k < n; k++) {
+            if (this.known[this.around[k]] == MINE) {
+                missing--;
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Collects the unknown neighbours of a square.
+     *
+     * @param i the flat index of the square.
+     * @param out an array of at least eight elements to fill.
+     * @return the number of unknown neighbours.
+     */
+    private int unknownNeighbours(int i, int[] out) {
+        int n = neighbours(i, out);
+        int size = 0;
+        for (int k = 0; k < n; k++) {
+            if (this.known[out[k]] == UNKNOWN) {
+                out[size++] = out[k];
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Determines if a square has an open neighbour.
+     *
+     * @param i the flat index of the square.
+     * @return true if a neighbour is open.
+     */
+    private boolean touchesOpen(int i) {
+        int n = neighbours(i, this.scratch);
+        for (int k = 0; k < n; k++) {
+            if (this.known[this.scratch[k]] == OPEN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects the (up to) eight neighbours of a square.
+     *
+     * @param i the flat index of the square.
+     * @param out an array of at least eight elements to fill.
+     * @return the number of neighbours.
+     */
+    private int neighbours(int i, int[] out) {
+        int r = i / this.cols, c = i % this.cols;
+        int n = 0;
+        for (int nr = Math.max(r - 1, 0); nr <= Math.min(r + 1, this.rows - 1); nr++) {
+            for (int nc = Math.max(c - 1, 0); nc <= Math.min(c + 1, this.cols - 1); nc++) {
+                if ((nr != r) || (nc != c)) {
+                    out[n++] = nr * this.cols + nc;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Determines if the first array holds every element of the second.
+     *
+     * @param big the array to search.
+     * @param bigSize the number of elements of big in use.
+     * @param small the elements to look for.
+     * @param smallSize the number of elements of small in use.
+     * @return true if big contains all of small.
+     */
+    private static boolean containsAll(int[] big, int bigSize, int[] small, int smallSize) {
+        for (int k = 0; k < smallSize; k++) {
+            if (!contains(big, bigSize, small[k])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines if an array holds a value.
+     *
+     * @param array the array to search.
+     * @param size the number of elements in use.
+     * @param value the value to look for.
+     * @return true if the value is present.
+     */
+    private static boolean contains(int[] array, int size, int value) {
+        for (int k = 0; k < size; k++) {
+            if (array[k] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stores a value in a growable array.
+     *
+     * @param array the array.
+     * @param index the index to store at.
+     * @param value the value to store.
+     * @return the array, or a larger copy of it.
+     */
+    private static int[] push(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    /**
+     * Finds the representative of a union-find set, halving paths on the way.
+     *
+     * @param parent the union-find forest.
+     * @param v the element.
+     * @return the representative of the set holding v.
+     */
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    /**
+     * One group of frontier squares linked by shared constraints. The group
+     * is solved independently of the others, as one fork/join task.
+     */
+    private static final class Group extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<int[]> constraints = new ArrayList<>();
+        private final List<Integer> targetList = new ArrayList<>();
+        private int[] vars;
+        private double ratio;
+        private int maxMines;
+        //Results.
+        private boolean exact;
+        private double[] probability;
+        private long[] mineCount;
+        private boolean[] alwaysMine;
+        private double expectedMines;
+        //Search state, indexed by local variable or constraint.
+        private int[][] localConstraints;
+        private int[] targets;
+        private int[][] constraintsOf;
+        private int[] assigned;
+        private int[] mines;
+        private int[] open;
+        private long[] solutions;
+        private long[][] mineSolutions;
+        private long nodes;
+
+        /**
+         * Adds a constraint: the given variables hold exactly target mines.
+         *
+         * @param constraintVars the variables around one open square.
+         * @param target the number of mines among them.
+         */
+        void addConstraint(int[] constraintVars, int target) {
+            this.constraints.add(constraintVars);
+            this.targetList.add(target);
+        }
+
+        /**
+         * Numbers the group's variables locally before the group is solved.
+         *
+         * @param ratio the weight of one extra mine, from the global density.
+         * @param maxMines the number of mines not yet found on the board.
+         */
+        void prepare(double ratio, int maxMines) {
+            this.ratio = ratio;
+            this.maxMines = maxMines;
+            Map<Integer, Integer> local = new HashMap<>();
+            List<Integer> order = new ArrayList<>();
+            //Constraints are added in frontier order, so neighbours end up close.
+            for (int[] constraintVars : this.constraints) {
+                for (int v : constraintVars) {
+                    if (!local.containsKey(v)) {
+                        local.put(v, order.size());
+                        order.add(v);
+                    }
+                }
+            }
+            this.vars = order.stream().mapToInt(Integer::intValue).toArray();
+            int m = this.constraints.size();
+            this.localConstraints = new int[m][];
+            this.targets = new int[m];
+            int[] degree = new int[this.vars.length];
+            for (int c = 0; c < m; c++) {
+                int[] constraintVars = this.constraints.get(c);
+                this.localConstraints[c] = new int[constraintVars.length];
+                for (int k = 0; k < constraintVars.length; k++) {
+                    this.localConstraints[c][k] = local.get(constraintVars[k]);
+                    degree[this.localConstraints[c][k]]++;
+                }
+                this.targets[c] = this.targetList.get(c);
+            }
+            this.constraintsOf = new int[this.vars.length][];
+            for (int v = 0; v < this.vars.length; v++) {
+                this.constraintsOf[v] = new int[degree[v]];
+                degree[v] = 0;
+            }
+            for (int c = 0; c < m; c++) {
+                for (int v : this.localConstraints[c]) {
+                    this.constraintsOf[v][degree[v]++] = c;
+                }
+            }
+        }
+
+        @Override
+        protected void compute() {
+            int n = this.vars.length;
+            this.probability = new double[n];
+            this.mineCount = new long[n];
+            this.alwaysMine = new boolean[n];
+            int maxK = Math.min(n, this.maxMines);
+            if (n <= MAX_GROUP) {
+                this.assigned = new int[n];
+                Arrays.fill(this.assigned, -1);
+                this.mines = new int[this.targets.length];
+                this.open = new int[this.targets.length];
+                for (int c = 0; c < this.targets.length; c++) {
+                    this.open[c] = this.localConstraints[c].length;
+                }
+                this.solutions = new long[maxK + 1];
+                this.mineSolutions = new long[n][maxK + 1];
+                this.exact = search(0, 0, maxK);
+            }
+            if (this.exact && (total(this.solutions) > 0)) {
+                weigh(maxK);
+            } else {
+                //Too large to enumerate: estimate from the most demanding constraint.
+                this.exact = false;
+                for (int c = 0; c < this.targets.length; c++) {
+                    double local = (double) this.targets[c] / this.localConstraints[c].length;
+                    for (int v : this.localConstraints[c]) {
+                        this.probability[v] = Math.max(this.probability[v], local);
+                    }
+                }
+                for (int v = 0; v < n; v++) {
+                    this.expectedMines += this.probability[v];
+                    //Never report an estimate as certain.
+                    this.mineCount[v] = 1;
+                }
+            }
+        }
+
+        /**
+         * Enumerates assignments of the remaining variables depth first.
+         *
+         * @param v the next variable to assign.
+         * @param k the number of mines assigned so far.
+         * @param maxK the largest number of mines allowed in the group.
+         * @return false if the node limit was reached.
+         */
+        private boolean search(int v, int k, int maxK) {
+            if (++this.nodes > NODE_LIMIT) {
+                return false;
+            }
+            if (v == this.vars.length) {
+                this.solutions[k]++;
+                for (int u = 0; u < v; u++) {
+                    if (this.assigned[u] == 1) {
+                        this.mineSolutions[u][k]++;
+                    }
+                }
+                return true;
+            }
+            for (int value = 0; value <= 1; value++) {
+                if (k + value > maxK) {
+                    break;
+                }
+                if (assign(v, value)) {
+                    if (search(v + 1, k + value, maxK) == false) {
+                        unassign(v, value);
+                        return false;
+                    }
+                }
+                unassign(v, value);
+            }
+            return true;
+        }
+
+        /**
+         * Assigns a variable and checks every constraint it belongs to.
+         *
+         * @param v the variable.
+         * @param value 1 for a mine, 0 for safe.
+         * @return true if no constraint is violated.
+         */
+        private boolean assign(int v, int value) {
+            this.assigned[v] = value;
+            boolean ok = true;
+            for (int c : this.constraintsOf[v]) {
+                this.mines[c] += value;
+                this.open[c]--;
+                if ((this.mines[c] > this.targets[c]) ||
+                    (this.mines[c] + this.open[c] < this.targets[c])) {
+                    ok = false;
+                }
+            }
+            return ok;
+        }
+
+        /**
+         * Undoes {@link #assign(int, int)}.
+         *
+         * @param v the variable.
+         * @param value the value it was assigned.
+         */
+        private void unassign(int v, int value) {
+            this.assigned[v] = -1;
+            for (int c : this.constraintsOf[v]) {
+                this.mines[c] -= value;
+                this.open[c]++;
+            }
+        }
+
+        /**
+         * Turns solution counts into probabilities. A solution with k mines
+         * is weighted by ratio^k, relative to the most likely k.
+         *
+         * @param maxK the largest number of mines in the group.
+         */
+        private void weigh(int maxK) {
+            double logRatio = Math.log(this.ratio);
+            double bestLog = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k <= maxK; k++) {
+                if (this.solutions[k] > 0) {
+                    bestLog = Math.max(bestLog, Math.log(this.solutions[k]) + k * logRatio);
+                }
+            }
+            double[] weight = new double[maxK + 1];
+            double totalWeight = 0;
+            for (int k = 0; k <= maxK; k++) {
+                if (this.solutions[k] > 0) {
+                    weight[k] = Math.exp(k * logRatio + Math.log(this.solutions[k]) - bestLog) /
+                        this.solutions[k];
+                    totalWeight += weight[k] * this.solutions[k];
+                    this.expectedMines += weight[k] * this.solutions[k] * k;
+                }
+            }
+            this.expectedMines /= totalWeight;
+            long all = total(this.solutions);
+            for (int v = 0; v < this.vars.length; v++) {
+                double mineWeight = 0;
+                for (int k = 0; k <= maxK; k++) {
+                    mineWeight += weight[k] * this.mineSolutions[v][k];
+                    this.mineCount[v] += this.mineSolutions[v][k];
+                }
+                this.probability[v] = mineWeight / totalWeight;
+                this.alwaysMine[v] = this.mineCount[v] == all;
+            }
+        }
+
+        /**
+         * Sums an array of counts.
+         *
+         * @param counts the counts.
+         * @return their sum.
+         */
+        private static long total(long[] counts) {
+            long sum = 0;
+            for (long count : counts) {
+                sum += count;
+            }
+            return sum;
+        }
+    } //Group
+} //MineSolver
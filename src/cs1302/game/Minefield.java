@@ -0,0 +1,42 @@
+package cs1302.game;
+
+/**
+ * The read-only view of a minefield that {@link MineFieldRenderer} needs to
+ * draw part of it. Both the dense {@link MineBoard} and the chunked
+ * {@link ChunkedBoard} provide it.
+ */
+public interface Minefield {
+
+    /**
+     * Returns the number of rows on the minefield.
+     *
+     * @return the number of rows.
+     */
+    int getRows();
+
+    /**
+     * Returns the number of columns on the minefield.
+     *
+     * @return the number of columns.
+     */
+    int getCols();
+
+    /**
+     * Returns the player-visible state of a square.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return 0 through 8 for a revealed square, otherwise
+     * {@link MineBoard#HIDDEN}, {@link MineBoard#FLAG} or {@link MineBoard#GUESS}.
+     */
+    byte getCell(int r, int c);
+
+    /**
+     * Determines if a square contains a mine.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return true if the square contains a mine.
+     */
+    boolean isMine(int r, int c);
+} //Minefield
@@ -3,25 +3,270 @@ package cs1302.game;
 import cs1302.game.MinesweeperGame;
 import java.util.Scanner;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 /**
  * The main class for the MinesweeperGame. This class is responsible for reading
  * Standard input user commands to play the MinesweeperGame. This class is also
  * responsible for accepting the seed file path necessarry to set the dimensions
- * for an instance of a minesweeper game.
+ * for an instance of a minesweeper game. The optional {@code --max-size N} flag
+ * allows seed files larger than the default 10 by 10 grid, and {@code --ansi}
+ * redraws only the changed rows of the board on ANSI terminals. With
+ * {@code --script FILE} the commands are read in bulk from FILE and run
+ * without the prompt or a board redraw after every command.
+ * {@code --generate ROWS COLS MINES SEED} plays a random board instead of a
+ * seed file; the first reveal is always safe, and with {@code --no-guess}
+ * the board can be solved from there without guessing.
+ * {@code --chunked ROWS COLS MINE_PERCENT SEED} plays a board of any size
+ * that is held in chunks, of which at most {@code --chunk-cache N} stay in
+ * memory. {@code --resume SAVE_FILE} continues a game saved with the
+ * {@code save} command, including the moves journaled after the save.
+ * {@code --undo-limit KB} caps the memory of the undo history, and
+ * {@code --view ROWS COLS} sets how much of a big board is shown at once.
+ * {@code --metrics} times every command for the {@code stats} command, JMX
+ * and JFR. {@code --async} prints on a console thread of its own, which
+ * draws the board once for a burst of commands that arrive faster than the
+ * terminal can keep up. {@code --scores FILE} records wins in a score file
+ * and lists them with the {@code scores} command; without it no scores are
+ * kept and no file is written.
  * @param args an array of command line arguments to redirect input from a file.
  */
 public class MinesweeperDriver {
 
     public static void main(String[] args) {
         Scanner stdIn = new Scanner(System.in);
-        String seedPath = args[0];
-        if (args.length != 1) {
-            System.err.println();
-            System.err.println("Usage: MinesweeperDriver SEED_FILE_PATH");
-            System.exit(1);
+        String seedPath = null;
+        int maxSize = MinesweeperGame.DEFAULT_MAX_SIZE;
+        boolean validArgs = true;
+        boolean ansiDiff = false;
+        boolean async = false;
+        String scriptPath = null;
+        long[] generate = null;
+        boolean noGuess = false;
+        String[] chunked = null;
+        int chunkCache = 256;
+        String resumePath = null;
+        String scoresPath = null;
+        long undoLimit = UndoHistory.DEFAULT_LIMIT;
+        int[] view = {MinesweeperGame.DEFAULT_VIEW_ROWS, MinesweeperGame.DEFAULT_VIEW_COLS};
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--max-size") && (i + 1 < args.length)) {
+                    maxSize = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--script") && (i + 1 < args.length)) {
+                    scriptPath = args[++i];
+                } else if (args[i].equals("--ansi")) {
+                    ansiDiff = true;
+                } else if (args[i].equals("--async")) {
+                    async = true;
+                } else if (args[i].equals("--metrics")) {
+                    //Must be set before GameMetrics is first used, which reads it once.
+                    System.setProperty("minesweeper.metrics", "true");
+                } else if (args[i].equals("--generate") && (i + 4 < args.length)) {
+                    generate = new long[4];
+                    for (int k = 0; k < generate.length; k++) {
+                        generate[k] = Long.parseLong(args[++i]);
+                    }
+                } else if (args[i].equals("--no-guess")) {
+                    noGuess = true;
+                } else if (args[i].equals("--chunked") && (i + 4 < args.length)) {
+                    chunked = new String[] {args[i + 1], args[i + 2], args[i + 3], args[i + 4]};
+                    i += 4;
+                } else if (args[i].equals("--scores") && (i + 1 < args.length)) {
+                    scoresPath = args[++i];
+                } else if (args[i].equals("--resume") && (i + 1 < args.length)) {
+                    resumePath = args[++i];
+                } else if (args[i].equals("--view") && (i + 2 < args.length)) {
+                    view[0] = Integer.parseInt(args[++i]);
+                    view[1] = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--undo-limit") && (i + 1 < args.length)) {
+                    undoLimit = Long.parseLong(args[++i]) * 1024;
+                } else if (args[i].equals("--chunk-cache") && (i + 1 < args.length)) {
+                    chunkCache = Integer.parseInt(args[++i]);
+                } else if (seedPath == null) {
+                    seedPath = args[i];
+                } else {
+                    validArgs = false;
+                }
+            }
+        } catch (NumberFormatException nfe) {
+            validArgs = false;
         }
-        MinesweeperGame msInstance = new MinesweeperGame(stdIn, seedPath);
+        int sources = ((seedPath != null) ? 1 : 0) + ((generate != null) ? 1 : 0) +
+            ((chunked != null) ? 1 : 0) + ((resumePath != null) ? 1 : 0);
+        if ((validArgs == false) || (sources != 1) || (noGuess && (generate == null))) {
+            printUsage();
+        }
+        CommandTokenizer commands = (scriptPath == null) ? new CommandTokenizer(stdIn)
+            : openScript(scriptPath);
+        if (chunked != null) {
+            playChunked(commands, chunked, chunkCache, scriptPath != null);
+            return;
+        }
+        MinesweeperGame msInstance;
+        if (resumePath != null) {
+            msInstance = new MinesweeperGame(commands, resume(resumePath));
+        } else if (generate == null) {
+            msInstance = new MinesweeperGame(commands, seedPath, maxSize);
+        } else {
+            msInstance = new MinesweeperGame(commands,
+                MinesweeperEngine.generate(generator(generate, maxSize, noGuess), generate[3]));
+        }
+        msInstance.setBatchMode(scriptPath != null);
+        msInstance.setAnsiDiff(ansiDiff);
+        msInstance.setUndoLimit(undoLimit);
+        msInstance.setViewSize(view[0], view[1]);
+        if (async) {
+            msInstance.setAsyncOutput();
+        }
+        Leaderboard leaderboard = (scoresPath == null) ? null : openScores(scoresPath);
+        msInstance.setLeaderboard(leaderboard);
         msInstance.play();
+        closeScores(leaderboard);
+    }
+
+    /**
+     * Opens the score file. A score file that cannot be read is reported
+     * and the game is played without keeping scores.
+     *
+     * @param scoresPath the path of the score file.
+     * @return the leaderboard, or null if the file cannot be read.
+     */
+    private static Leaderboard openScores(String scoresPath) {
+        try {
+            return Leaderboard.open(scoresPath);
+        } catch (IOException ioe) {
+            System.err.println("\nScore File Error: " + ioe.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes any scores still buffered and closes the score file.
+     *
+     * @param leaderboard the leaderboard, or null if none was opened.
+     */
+    private static void closeScores(Leaderboard leaderboard) {
+        if (leaderboard == null) {
+            return;
+        }
+        try {
+            leaderboard.close();
+        } catch (IOException ioe) {
+            System.err.println("\nScore File Error: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Opens a script of commands for batch mode. Exits with status 2 if the
+     * script cannot be opened.
+     *
+     * @param scriptPath the path of the script file.
+     * @return a tokenizer reading the script in bulk.
+     */
+    private static CommandTokenizer openScript(String scriptPath) {
+        try {
+            return new CommandTokenizer(new InputStreamReader(
+                new FileInputStream(scriptPath), StandardCharsets.UTF_8));
+        } catch (FileNotFoundException fnfe) {
+            System.err.println("\nScript File Not Found Error: " + fnfe.getMessage());
+            System.exit(2);
+            return null;
+        }
+    }
+
+    /**
+     * Restores the game for {@code --resume}. Exits with status 2 if the save
+     * file cannot be read and with status 3 if it is malformed, like a seed file.
+     *
+     * @param saveFileName the path of the save file.
+     * @return the restored game.
+     */
+    private static MinesweeperEngine resume(String saveFileName) {
+        try {
+            return MinesweeperEngine.resume(saveFileName);
+        } catch (SaveFormatException sfe) {
+            System.err.println("\nSave File Malformed Error: " + sfe.getMessage());
+            System.exit(3);
+        } catch (IOException ioe) {
+            System.err.println("\nSave File Not Found Error: " + ioe.getMessage());
+            System.exit(2);
+        }
+        return null;
+    }
+
+    /**
+     * Creates the generator for {@code --generate}. The board must fit the
+     * same limits as a seed file. Exits with status 1 if it does not.
+     *
+     * @param generate the rows, columns and mine count given on the command line.
+     * @param maxSize the largest number of rows or columns allowed.
+     * @param noGuess true to generate boards that can be solved without guessing.
+     * @return the generator.
+     */
+    private static BoardGenerator generator(long[] generate, int maxSize, boolean noGuess) {
+        if ((generate[0] < 5) || (generate[1] < 5) || (generate[0] > maxSize) ||
+            (generate[1] > maxSize) || (generate[2] < 1) ||
+            (generate[2] >= generate[0] * generate[1])) {
+            printUsage();
+        }
+        BoardGenerator generator = new BoardGenerator((int) generate[0], (int) generate[1],
+            (int) generate[2]);
+        generator.setNoGuess(noGuess);
+        return generator;
+    }
+
+    /**
+     * Plays a game on a chunked board. Exits with status 1 if the board
+     * arguments are invalid.
+     *
+     * @param commands the source of user commands.
+     * @param chunked the rows, columns, mine percentage and seed.
+     * @param chunkCache the largest number of chunks kept in memory.
+     * @param batchMode true if the commands come from a script.
+     */
+    private static void playChunked(CommandTokenizer commands, String[] chunked,
+        int chunkCache, boolean batchMode) {
+        ChunkedBoard board = null;
+        try {
+            board = new ChunkedBoard(Integer.parseInt(chunked[0]), Integer.parseInt(chunked[1]),
+                Double.parseDouble(chunked[2]) / 100.0, Long.parseLong(chunked[3]), chunkCache);
+        } catch (IllegalArgumentException iae) {
+            printUsage();
+        } catch (IOException ioe) {
+            System.err.println("\nChunk Cache Error: " + ioe.getMessage());
+            System.exit(2);
+        }
+        ChunkedGame game = new ChunkedGame(commands, board);
+        game.setBatchMode(batchMode);
+        try {
+            game.play();
+        } catch (IOException ioe) {
+            System.err.println("\nChunk Cache Error: " + ioe.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Displays the command line usage to standard error and exits with status 1.
+     */
+    private static void printUsage() {
+        System.err.println();
+        System.err.println("Usage: MinesweeperDriver [--max-size N] [--ansi] [--script FILE] SEED_FILE_PATH");
+        System.err.println("       Any form also accepts --metrics to collect command timings.");
+        System.err.println("       All but --chunked accept --undo-limit KB to cap the undo history");
+        System.err.println("       and --view ROWS COLS to set the viewport for big boards,");
+        System.err.println("       and --async to print on a console thread of its own,");
+        System.err.println("       and --scores FILE to record wins for the scores command.");
+        System.err.println("       MinesweeperDriver [--max-size N] [--ansi] [--script FILE] " +
+            "--generate ROWS COLS MINES SEED [--no-guess]");
+        System.err.println("       MinesweeperDriver [--ansi] [--script FILE] [--chunk-cache N] " +
+            "--chunked ROWS COLS MINE_PERCENT SEED");
+        System.err.println("       MinesweeperDriver [--ansi] [--script FILE] --resume SAVE_FILE");
+        System.exit(1);
     }
 }
@@ -0,0 +1,1188 @@
+package cs1302.game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class holds the rules of one Minesweeper Alpha game without any
+ * input or output. It owns the board, the round count and the game status,
+ * and it carries out commands either one move at a time or by executing
+ * lines of the command language read by a {@link CommandTokenizer}. It never
+ * prints and never exits the JVM, so any number of games can run side by
+ * side in one process. {@link MinesweeperGame} is the console front end;
+ * other front ends can follow a game through its {@link GameListener} events.
+ *
+ * <p>Once a game is saved, every move is also appended to a
+ * {@link MoveJournal} next to the {@link GameSnapshot}, so a crash loses
+ * nothing. After {@value #COMPACT_AFTER} journaled moves the snapshot is
+ * rewritten and the journal emptied.
+ */
+public class MinesweeperEngine {
+
+    /** The state of a game. */
+    public enum Status {
+        /** The game is still in progress. */
+        PLAYING,
+        /** Every safe square is revealed and every mine is flagged. */
+        WON,
+        /** A mine was revealed. */
+        LOST,
+        /** The player quit. */
+        QUIT
+    }
+
+    /** The command recognized on a line of input. */
+    public enum Command {
+        REVEAL, MARK, GUESS, NOFOG, HELP, QUIT, HINT, SOLVE, SAVE, LOAD, STATS, UNDO, REDO,
+        VIEW, OVERVIEW, CHORD, SCORES,
+        /** The line did not start with a known command. */
+        INVALID
+    }
+
+    /** The number of journaled moves after which the snapshot is rewritten. */
+    public static final int COMPACT_AFTER = 4096;
+    /** The save file used when the save and load commands name none. */
+    public static final String DEFAULT_SAVE_FILE = "minesweeper.save";
+
+    private MineBoard board;
+    private int round;
+    private Status status = Status.PLAYING;
+    private String error;
+    private MineSolver.Hint hint;
+    private MineSolver.Result solveResult;
+    //The square the last view command asked to see.
+    private int viewRow, viewCol;
+    //Places the mines on the first reveal of a generated game.
+    private BoardGenerator generator;
+    private long generatorSeed;
+    //The save file, its generation and its journal, once the game is saved.
+    private String saveFileName;
+    private long generation;
+    private MoveJournal journal;
+    //True if save files are confined to saveDirectory, or refused if it is null.
+    private boolean savesConfined;
+    private Path saveDirectory;
+    //True once an undo or redo has made the journal unable to replay the game.
+    private boolean snapshotDue;
+    private final UndoHistory history = new UndoHistory();
+    //True while execute() is recording a move for undo.
+    private boolean recording;
+    //The rectangles of the batch being executed: top, left, bottom, right.
+    private int[] batch = new int[16];
+    //The subscribers, and the listener the board reports square changes to.
+    private GameListener[] listeners = new GameListener[0];
+    private final GameListener events = new Events();
+    //Where wins are recorded, and the board size and scores the last scores command found.
+    private Leaderboard leaderboard;
+    private int scoreRows, scoreCols;
+    private List<Leaderboard.Entry> scores;
+
+    /** Forwards the square changes reported by the board to every subscriber. */
+    private final class Events implements GameListener {
+        @Override
+        public void cellRevealed(int r, int c, int adjacent) {
+            for (GameListener listener : listeners) {
+                listener.cellRevealed(r, c, adjacent);
+            }
+        }
+
+        @Override
+        public void cellMarked(int r, int c, byte state) {
+            for (GameListener listener : listeners) {
+                listener.cellMarked(r, c, state);
+            }
+        }
+    } //Events
+
+    /**
+     * Constructs a game on the given board. The board's adjacency counts
+     * must already be computed.
+     *
+     * @param board the board to play on.
+     */
+    public MinesweeperEngine(MineBoard board) {
+        this.board = board;
+    }
+
+    /**
+     * Reads a seed file and constructs a game on the board it describes.
+     *
+     * @param seedFileName the path of the seed file.
+     * @param maxSize the largest number of rows or columns allowed.
+     * @return a new game.
+     * @throws IOException if the seed file cannot be opened or read.
+     * @throws SeedFormatException if the seed file is malformed.
+     */
+    public static MinesweeperEngine load(String seedFileName, int maxSize)
+        throws IOException, SeedFormatException {
+        long start = GameMetrics.start();
+        MineBoard board = SeedParser.parse(seedFileName, maxSize);
+        GameMetrics.parse(start);
+        //Count the mines around every square once, before play starts.
+        board.computeAdjacency();
+        return new MinesweeperEngine(board);
+    } //load
+
+    /**
+     * Constructs a game on a seed file's board, taken from a cache of
+     * compiled boards so that a seed file played over and over is only
+     * parsed once.
+     *
+     * @param seedFileName the path of the seed file.
+     * @param maxSize the largest number of rows or columns allowed.
+     * @param cache the cache, or null to parse the seed file.
+     * @return a new game.
+     * @throws IOException if the seed file cannot be opened or read.
+     * @throws SeedFormatException if the seed file is malformed.
+     */
+    public static MinesweeperEngine load(String seedFileName, int maxSize, BoardCache cache)
+        throws IOException, SeedFormatException {
+        if (cache == null) {
+            return load(seedFileName, maxSize);
+        }
+        return new MinesweeperEngine(cache.load(seedFileName, maxSize));
+    } //load
+
+    /**
+     * Constructs a game on a random board. The mines are placed when the
+     * first square is revealed, so the first reveal is always safe.
+     *
+     * @param generator the generator that places the mines.
+     * @param seed the random seed.
+     * @return a new game.
+     */
+    public static MinesweeperEngine generate(BoardGenerator generator, long seed) {
+        MinesweeperEngine engine = new MinesweeperEngine(
+            new MineBoard(generator.getRows(), generator.getCols()));
+        engine.generator = generator;
+        engine.generatorSeed = seed;
+        return engine;
+    } //generate
+
+    /**
+     * Restores a saved game: reads the snapshot with one bulk read, then
+     * replays the moves journaled since. Further moves keep being journaled.
+     *
+     * @param saveFileName the path of the save file.
+     * @return the restored game.
+     * @throws IOException if the save file or its journal cannot be read.
+     * @throws SaveFormatException if the save file is not a valid snapshot.
+     */
+    public static MinesweeperEngine resume(String saveFileName)
+        throws IOException, SaveFormatException {
+        MinesweeperEngine engine = new MinesweeperEngine(null);
+        engine.restore(saveFileName);
+        return engine;
+    } //resume
+
+    /**
+     * Reads a saved game into this game, which must be fresh: it has no
+     * listeners, journal or leaderboard, so the replayed moves are neither
+     * shown nor scored again.
+     *
+     * @param saveFileName the path of the save file.
+     * @throws IOException if the save file or its journal cannot be read.
+     * @throws SaveFormatException if the save file is not a valid snapshot,
+     *     or its journal does not match it.
+     */
+    private void restore(String saveFileName) throws IOException, SaveFormatException {
+        GameSnapshot snapshot = GameSnapshot.read(saveFileName);
+        this.board = snapshot.getBoard();
+        this.round = snapshot.getRound();
+        this.saveFileName = saveFileName;
+        this.generation = snapshot.getGeneration();
+        //Replay with the game marked as playing; the snapshot's own end state wins.
+        this.status = Status.PLAYING;
+        this.journal = MoveJournal.open(saveFileName + ".journal", this.generation, this);
+        if (snapshot.getStatus() != Status.PLAYING) {
+            this.status = snapshot.getStatus();
+        }
+    } //restore
+
+    /**
+     * Loads a saved game in place of this one. The save is restored into a
+     * fresh game first, so that a save file or journal that fails to load
+     * leaves this game as it was.
+     *
+     * @param saveFileName the path of the save file.
+     * @throws IOException if the save file or its journal cannot be read.
+     * @throws SaveFormatException if the save file is not a valid snapshot,
+     *     or its journal does not match it.
+     */
+    private void loadSave(String saveFileName) throws IOException, SaveFormatException {
+        if (this.journal != null) {
+            this.journal.flush();
+        }
+        MinesweeperEngine loaded = resume(saveFileName);
+        MoveJournal replaced = this.journal;
+        this.board = loaded.board;
+        this.round = loaded.round;
+        this.status = loaded.status;
+        this.generator = null;
+        this.saveFileName = loaded.saveFileName;
+        this.generation = loaded.generation;
+        this.journal = loaded.journal;
+        this.snapshotDue = false;
+        this.history.clear();
+        attachListeners();
+        roundChanged();
+        if (replaced != null) {
+            replaced.close();
+        }
+    } //loadSave
+
+    /**
+     * Writes a snapshot of the game and starts a new journal for it.
+     *
+     * @param saveFileName the path of the save file.
+     * @throws IOException if the save file or its journal cannot be written.
+     */
+    public void save(String saveFileName) throws IOException {
+        if (this.generator != null) {
+            throw new IOException("Reveal a square before saving a generated game");
+        }
+        if (saveFileName.equals(this.saveFileName) == false) {
+            closeJournal();
+            this.saveFileName = saveFileName;
+        }
+        this.generation++;
+        GameSnapshot.write(this, saveFileName, this.generation);
+        this.snapshotDue = false;
+        if (this.journal == null) {
+            this.journal = MoveJournal.create(saveFileName + ".journal", this.generation);
+        } else {
+            this.journal.reset(this.generation);
+        }
+    } //save
+
+    /**
+     * Closes the journal of the current save file, if any.
+     *
+     * @throws IOException if the journal cannot be closed.
+     */
+    private void closeJournal() throws IOException {
+        if (this.journal != null) {
+            this.journal.close();
+            this.journal = null;
+        }
+    }
+
+    /**
+     * Adds a move to the journal, if the game has been saved and the
+     * snapshot is not about to be rewritten.
+     *
+     * @param op the opcode of the move.
+     * @param r the row of the square.
+     * @param c the column of the square.
+     */
+    private void record(byte op, int r, int c) {
+        //Once the snapshot is due, it will hold this move anyway.
+        if ((this.journal != null) && (this.snapshotDue == false)) {
+            this.journal.append(op, r, c);
+        }
+    }
+
+    /**
+     * Writes journaled moves to disk and compacts the journal into a new
+     * snapshot once it holds {@value #COMPACT_AFTER} moves. After an undo or
+     * redo the snapshot is rewritten at once, since the journal has no way
+     * to replay them.
+     *
+     * @throws IOException if the journal or snapshot cannot be written.
+     */
+    private void syncJournal() throws IOException {
+        if (this.journal == null) {
+            return;
+        }
+        this.journal.flush();
+        if ((this.journal.size() >= COMPACT_AFTER) || this.snapshotDue) {
+            save(this.saveFileName);
+        }
+    } //syncJournal
+
+    /**
+     * Confines the save and load commands to one directory, for games played
+     * by clients that must not reach the rest of the file system or each
+     * other's saves. A file named in a command is looked up in the directory,
+     * and names that are absolute or climb out of it with ".." are refused;
+     * without a name, {@value #DEFAULT_SAVE_FILE} in the directory is used.
+     * With a null directory both commands are refused.
+     *
+     * @param directory the directory, created on the first save, or null to
+     *     turn saving and loading off.
+     */
+    public void confineSaves(Path directory) {
+        this.savesConfined = true;
+        this.saveDirectory = directory;
+    }
+
+    /**
+     * Works out the file a save or load command uses.
+     *
+     * @param named the file named in the command, or null if none was.
+     * @return the path of the save file.
+     * @throws IOException if saves are turned off, or the name leaves the
+     *     save directory.
+     */
+    private String saveFile(String named) throws IOException {
+        if (this.savesConfined == false) {
+            if (named != null) {
+                return named;
+            }
+            return (this.saveFileName == null) ? DEFAULT_SAVE_FILE : this.saveFileName;
+        }
+        if (this.saveDirectory == null) {
+            throw new IOException("Saving and loading are turned off for this game");
+        }
+        Files.createDirectories(this.saveDirectory);
+        if (named == null) {
+            return (this.saveFileName == null)
+                ? this.saveDirectory.resolve(DEFAULT_SAVE_FILE).toString() : this.saveFileName;
+        }
+        Path name;
+        try {
+            name = Paths.get(named);
+        } catch (InvalidPathException ipe) {
+            throw new IOException("Invalid save file name: " + named);
+        }
+        for (Path part : name) {
+            if (part.toString().equals("..")) {
+                name = null;
+                break;
+            }
+        }
+        if ((name == null) || name.isAbsolute() || (name.getRoot() != null)) {
+            throw new IOException("Save files must be named inside the save directory: " +
+                named);
+        }
+        return this.saveDirectory.resolve(name).toString();
+    } //saveFile
+
+    /**
+     * Returns the save file the game is journaled to.
+     *
+     * @return the path of the save file, or null if the game was never saved.
+     */
+    public String getSaveFileName() {
+        return this.saveFileName;
+    }
+
+    /**
+     * Executes the command on the current line of the tokenizer. If the
+     * command is malformed the game is left unchanged and {@link #getError()}
+     * describes the problem.
+     *
+     * @param commands a tokenizer positioned at the start of a line.
+     * @return the command found at the start of the line.
+     */
+    public Command execute(CommandTokenizer commands) {
+        this.error = null;
+        if (commands.next() == false) {
+            this.error = "Command not recognized!";
+            return Command.INVALID;
+        }
+        Command command = Command.INVALID;
+        try {
+            if ((commands.is("r")) || (commands.is("reveal"))) {
+                command = Command.REVEAL;
+                int rectangles = readBatch(commands, "Command not recognized!");
+                if (rectangles > 0) {
+                    startMove();
+                    runBatch(MoveJournal.REVEAL, rectangles);
+                }
+            } else if ((commands.is("m")) || (commands.is("mark"))) {
+                command = Command.MARK;
+                int rectangles = readBatch(commands, "Command not recognized!");
+                if (rectangles > 0) {
+                    startMove();
+                    runBatch(MoveJournal.MARK, rectangles);
+                }
+            } else if ((commands.is("g")) || (commands.is("guess"))) {
+                command = Command.GUESS;
+                int rectangles = readBatch(commands, "Command not recognizd!");
+                if (rectangles > 0) {
+                    startMove();
+                    runBatch(MoveJournal.GUESS, rectangles);
+                }
+            } else if (commands.is("chord")) {
+                command = Command.CHORD;
+                int chordRow = commands.nextInt();
+                int chordCol = commands.nextInt();
+                if (noExtraTokens(commands, "Command not recognized!")) {
+                    startMove();
+                    if (chord(chordRow, chordCol) == false) {
+                        this.error = "Chord needs a revealed number with that many flags " +
+                            "around it!";
+                    }
+                }
+            } else if (commands.is("nofog")) {
+                command = Command.NOFOG;
+                if (noExtraTokens(commands, "Command not recognized!")) {
+                    startMove();
+                    nofog();
+                }
+            } else if ((commands.is("h")) || (commands.is("help"))) {
+                command = Command.HELP;
+                if (noExtraTokens(commands, "Command not recoginized!")) {
+                    startMove();
+                    help();
+                }
+            } else if (commands.is("hint")) {
+                command = Command.HINT;
+                if (noExtraTokens(commands, "Command not recognized!")) {
+                    startMove();
+                    hint();
+                }
+            } else if (commands.is("solve")) {
+                command = Command.SOLVE;
+                if (noExtraTokens(commands, "Command not recognized!")) {
+                    startMove();
+                    solve();
+                }
+            } else if ((commands.is("save")) || (commands.is("load"))) {
+                command = commands.is("save") ? Command.SAVE : Command.LOAD;
+                String named = null;
+                if (commands.next()) {
+                    named = commands.token();
+                }
+                if (noExtraTokens(commands, "Command not recognized!")) {
+                    String fileName = saveFile(named);
+                    if (command == Command.SAVE) {
+                        save(fileName);
+                    } else {
+                        loadSave(fileName);
+                    }
+                }
+            } else if (commands.is("stats")) {
+                //The game prints the stats; they do not use up a round.
+                command = Command.STATS;
+                noExtraTokens(commands, "Command not recognized!");
+            } else if (commands.is("scores")) {
+                //The game prints the scores; they do not use up a round.
+                command = Command.SCORES;
+                int rows = this.board.getRows();
+                int cols = this.board.getCols();
+                if (commands.hasNext()) {
+                    rows = commands.nextInt();
+                    cols = commands.nextInt();
+                }
+                if (noExtraTokens(commands, "Command not recognized!")) {
+                    if (this.leaderboard == null) {
+                        this.error = "No scores are kept for this game!";
+                    } else {
+                        this.scoreRows = rows;
+                        this.scoreCols = cols;
+                        this.scores = this.leaderboard.top(rows, cols);
+                    }
+                }
+            } else if (commands.is("view")) {
+                //Panning only changes what the game prints; it does not use up a round.
+                command = Command.VIEW;
+                int row = commands.nextInt();
+                int col = commands.nextInt();
+                if (noExtraTokens(commands, "Command not recognized!")) {
+                    this.board.index(row, col);
+                    this.viewRow = row;
+                    this.viewCol = col;
+                }
+            } else if (commands.is("overview")) {
+                command = Command.OVERVIEW;
+                noExtraTokens(commands, "Command not recognized!");
+            } else if ((commands.is("undo")) || (commands.is("redo"))) {
+                command = commands.is("undo") ? Command.UNDO : Command.REDO;
+                if (noExtraTokens(commands, "Command not recognized!")) {
+                    if ((command == Command.UNDO) && (undo() == false)) {
+                        this.error = "Nothing to undo!";
+                    } else if ((command == Command.REDO) && (redo() == false)) {
+                        this.error = "Nothing to redo!";
+                    }
+                }
+            } else if ((commands.is("q")) || (commands.is("quit"))) {
+                command = Command.QUIT;
+                if (noExtraTokens(commands, "Command not recognized!")) {
+                    quit();
+                }
+            } else {
+                this.error = "Command not recognized!";
+            }
+        } catch (IndexOutOfBoundsException ioobe) {
+            this.error = String.valueOf(ioobe.getMessage());
+        } catch (NoSuchElementException nsee) {
+            this.error = String.valueOf(nsee.getMessage());
+        } catch (NumberFormatException nfe) {
+            this.error = String.valueOf(nfe.getMessage());
+        } catch (SaveFormatException sfe) {
+            this.error = "Save File Malformed Error: " + sfe.getMessage();
+        } catch (IOException | UncheckedIOException e) {
+            this.error = "Save File Error: " + e.getMessage();
+        }
+        if (this.recording) {
+            this.recording = false;
+            this.history.commit(this.round);
+        }
+        try {
+            syncJournal();
+        } catch (IOException | UncheckedIOException e) {
+            this.error = "Save File Error: " + e.getMessage();
+        }
+        return command;
+    } //execute
+
+    /**
+     * Starts recording the squares the command about to run changes, so
+     * that it can be undone as one move.
+     */
+    private void startMove() {
+        if (this.status == Status.PLAYING) {
+            this.recording = true;
+            this.history.begin(this.board, this.round);
+        }
+    }
+
+    /**
+     * Takes back the last move made through {@link #execute}, restoring its
+     * squares and the round count, and with it the score.
+     *
+     * @return false if there is no move to undo.
+     */
+    public boolean undo() {
+        checkPlaying();
+        return moved(this.history.undo(this.board, this.round));
+    }
+
+    /**
+     * Makes the last undone move again.
+     *
+     * @return false if there is no move to redo.
+     */
+    public boolean redo() {
+        checkPlaying();
+        return moved(this.history.redo(this.board, this.round));
+    }
+
+    /**
+     * Finishes an undo or redo.
+     *
+     * @param round the round to return to, or -1 if nothing was changed.
+     * @return true if the game was changed.
+     */
+    private boolean moved(int round) {
+        if (round < 0) {
+            return false;
+        }
+        this.round = round;
+        this.snapshotDue = this.journal != null;
+        roundChanged();
+        return true;
+    } //moved
+
+    /**
+     * Subscribes to the events of this game. A listener added twice hears
+     * every event twice.
+     *
+     * @param listener the listener to add.
+     */
+    public void addListener(GameListener listener) {
+        GameListener[] more = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        more[this.listeners.length] = listener;
+        this.listeners = more;
+        attachListeners();
+    } //addListener
+
+    /**
+     * Unsubscribes a listener from the events of this game.
+     *
+     * @param listener the listener to remove.
+     */
+    public void removeListener(GameListener listener) {
+        for (int i = 0; i < this.listeners.length; i++) {
+            if (this.listeners[i] == listener) {
+                GameListener[] fewer = new GameListener[this.listeners.length - 1];
+                System.arraycopy(this.listeners, 0, fewer, 0, i);
+                System.arraycopy(this.listeners, i + 1, fewer, i, fewer.length - i);
+                this.listeners = fewer;
+                break;
+            }
+        }
+        attachListeners();
+    } //removeListener
+
+    /**
+     * Has the board report square changes if anyone is listening, so that a
+     * game nobody listens to pays nothing for events.
+     */
+    private void attachListeners() {
+        if (this.board != null) {
+            this.board.setListener((this.listeners.length == 0) ? null : this.events);
+        }
+    }
+
+    /**
+     * Tells every listener the new round count.
+     */
+    private void roundChanged() {
+        for (GameListener listener : this.listeners) {
+            listener.roundAdvanced(this.round);
+        }
+    }
+
+    /**
+     * Records every win of this game in a leaderboard. The leaderboard may
+     * be shared by any number of games.
+     *
+     * @param leaderboard the leaderboard, or null to record nothing.
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    /**
+     * Returns the leaderboard wins are recorded in.
+     *
+     * @return the leaderboard, or null if none is kept.
+     */
+    public Leaderboard getLeaderboard() {
+        return this.leaderboard;
+    }
+
+    /**
+     * Returns the best scores found by the last scores command.
+     *
+     * @return the entries, best first.
+     */
+    public List<Leaderboard.Entry> getScores() {
+        return this.scores;
+    }
+
+    /**
+     * Returns the number of rows of the boards the last scores command asked about.
+     *
+     * @return the rows.
+     */
+    public int getScoreRows() {
+        return this.scoreRows;
+    }
+
+    /**
+     * Returns the number of columns of the boards the last scores command asked about.
+     *
+     * @return the columns.
+     */
+    public int getScoreCols() {
+        return this.scoreCols;
+    }
+
+    /**
+     * Returns the row of the square the last view command asked to see.
+     *
+     * @return the row.
+     */
+    public int getViewRow() {
+        return this.viewRow;
+    }
+
+    /**
+     * Returns the column of the square the last view command asked to see.
+     *
+     * @return the column.
+     */
+    public int getViewCol() {
+        return this.viewCol;
+    }
+
+    /**
+     * Returns the undo history, for setting its memory limit.
+     *
+     * @return the history.
+     */
+    public UndoHistory getHistory() {
+        return this.history;
+    }
+
+    /**
+     * Checks that a command has no tokens after its arguments.
+     *
+     * @param commands the tokenizer holding the command.
+     * @param message the error to record if there are extra tokens.
+     * @return true if the line has no tokens left.
+     */
+    private boolean noExtraTokens(CommandTokenizer commands, String message) {
+        if (commands.hasNext()) {
+            this.error = message;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the squares of a reveal, mark or guess command: one or more
+     * pairs of a row and a column, where either may be a range written
+     * {@code first:last}, so that {@code 2:4 0:9} is a rectangle of thirty
+     * squares. Every square is checked before any is changed, so a batch
+     * with a square off the board leaves the game untouched.
+     *
+     * @param commands the tokenizer holding the command.
+     * @param message the error to record if a later row has no column.
+     * @return the number of rectangles read, or 0 if the error was recorded.
+     * @throws IndexOutOfBoundsException if a square is not on the board.
+     * @throws NoSuchElementException if the first row has no column.
+     * @throws NumberFormatException if a row or column is not a number.
+     */
+    private int readBatch(CommandTokenizer commands, String message) {
+        int count = 0;
+        do {
+            long rows = commands.nextRange();
+            if ((count > 0) && (commands.hasNext() == false)) {
+                //A lone token after a full square is an extra token, as it always was.
+                this.error = message;
+                return 0;
+            }
+            long cols = commands.nextRange();
+            int top = (int) (rows >> 32), bottom = (int) rows;
+            int left = (int) (cols >> 32), right = (int) cols;
+            this.board.index(top, left);
+            this.board.index(bottom, right);
+            if (count + 4 > this.batch.length) {
+                this.batch = Arrays.copyOf(this.batch, this.batch.length * 2);
+            }
+            this.batch[count++] = Math.min(top, bottom);
+            this.batch[count++] = Math.min(left, right);
+            this.batch[count++] = Math.max(top, bottom);
+            this.batch[count++] = Math.max(left, right);
+        } while (commands.hasNext());
+        return count / 4;
+    } //readBatch
+
+    /**
+     * Makes the same move on every square of the batch read by
+     * {@link #readBatch}, in row order within each rectangle. Each square
+     * uses up a round, as if it had been typed on its own, but the win is
+     * checked once, after the whole batch. A mine revealed anywhere in the
+     * batch ends the game there and the rest of the batch is skipped.
+     *
+     * <p>A batch too large for the journal to be worth keeping marks the
+     * snapshot due instead, so the game is saved once when it ends.
+     *
+     * @param op the move: {@link MoveJournal#REVEAL}, {@link MoveJournal#MARK}
+     *     or {@link MoveJournal#GUESS}.
+     * @param rectangles the number of rectangles in the batch.
+     */
+    private void runBatch(byte op, int rectangles) {
+        checkPlaying();
+        long squares = 0;
+        for (int k = 0; k < rectangles * 4; k += 4) {
+            squares += (long) (this.batch[k + 2] - this.batch[k] + 1) *
+                (this.batch[k + 3] - this.batch[k + 1] + 1);
+        }
+        if ((this.journal != null) && (squares > COMPACT_AFTER)) {
+            this.snapshotDue = true;
+        }
+        for (int k = 0; k < rectangles * 4; k += 4) {
+            for (int r = this.batch[k]; r <= this.batch[k + 2]; r++) {
+                for (int c = this.batch[k + 1]; c <= this.batch[k + 3]; c++) {
+                    if (op == MoveJournal.REVEAL) {
+                        if (revealSquare(r, c) == false) {
+                            return;
+                        }
+                    } else {
+                        setSquare(op, r, c);
+                    }
+                }
+            }
+        }
+        checkWon();
+    } //runBatch
+
+    /**
+     * Applies a journaled reveal, mark or guess without checking for a win.
+     * A batch is journaled square by square, and may pass through a winning
+     * board before its last square undoes it, so a replayed game is only
+     * checked for the win once the whole journal is in, by
+     * {@link #replayFinished()}.
+     *
+     * @param op the move: {@link MoveJournal#REVEAL}, {@link MoveJournal#MARK}
+     *     or {@link MoveJournal#GUESS}.
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @throws IndexOutOfBoundsException if the square is not on the board.
+     * @throws IllegalStateException if the game is already over.
+     */
+    void replayMove(byte op, int r, int c) {
+        checkPlaying();
+        if (op == MoveJournal.REVEAL) {
+            revealSquare(r, c);
+        } else {
+            setSquare(op, r, c);
+        }
+    } //replayMove
+
+    /**
+     * Checks a replayed game for the win. Every command played before the
+     * last one was checked when it was played, and found not to win.
+     */
+    void replayFinished() {
+        if (this.status == Status.PLAYING) {
+            checkWon();
+        }
+    }
+
+    /**
+     * Reveals a square. Revealing a mine loses the game; revealing a square
+     * with no adjacent mines also opens the surrounding empty region.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @throws IndexOutOfBoundsException if the square is not on the board.
+     */
+    public void reveal(int r, int c) {
+        checkPlaying();
+        if (revealSquare(r, c)) {
+            checkWon();
+        }
+    } //reveal
+
+    /**
+     * Reveals a square without checking for a win, placing the mines first
+     * if this is the first reveal of a generated game.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return false if the square held a mine and the game is lost.
+     */
+    private boolean revealSquare(int r, int c) {
+        int index = this.board.index(r, c);
+        if (this.generator != null) {
+            long seed = this.generatorSeed;
+            if (this.generator.isNoGuess()) {
+                seed = this.generator.noGuessSeed(seed, index);
+            }
+            this.generator.place(this.board, seed, index);
+            this.board.computeAdjacency();
+            this.generator = null;
+        }
+        record(MoveJournal.REVEAL, r, c);
+        if (this.board.isMine(index)) {
+            lose(r, c);
+            return false;
+        }
+        this.board.reveal(index);
+        this.round++;
+        roundChanged();
+        return true;
+    } //revealSquare
+
+    /**
+     * Flags a square as definitely containing a mine.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @throws IndexOutOfBoundsException if the square is not on the board.
+     */
+    public void mark(int r, int c) {
+        checkPlaying();
+        setSquare(MoveJournal.MARK, r, c);
+        checkWon();
+    } //mark
+
+    /**
+     * Marks a square as possibly containing a mine.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @throws IndexOutOfBoundsException if the square is not on the board.
+     */
+    public void guess(int r, int c) {
+        checkPlaying();
+        setSquare(MoveJournal.GUESS, r, c);
+        checkWon();
+    } //guess
+
+    /**
+     * Flags or guesses a square without checking for a win.
+     *
+     * @param op {@link MoveJournal#MARK} or {@link MoveJournal#GUESS}.
+     * @param r the row of the square.
+     * @param c the column of the square.
+     */
+    private void setSquare(byte op, int r, int c) {
+        this.board.setCell(this.board.index(r, c),
+            (op == MoveJournal.MARK) ? MineBoard.FLAG : MineBoard.GUESS);
+        record(op, r, c);
+        this.round++;
+        roundChanged();
+    } //setSquare
+
+    /**
+     * Chords a revealed number: if as many of its neighbours are flagged as
+     * it has adjacent mines, every other hidden or guessed neighbour is
+     * revealed in one move that uses up a single round. A wrongly placed
+     * flag means one of those neighbours is a mine, which loses the game.
+     *
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @return false if the square is not a revealed number with that many
+     *     flags around it, in which case the game is unchanged.
+     * @throws IndexOutOfBoundsException if the square is not on the board.
+     */
+    public boolean chord(int r, int c) {
+        checkPlaying();
+        byte state = this.board.getCell(this.board.index(r, c));
+        int rowStart = Math.max(r - 1, 0), rowEnd = Math.min(r + 1, this.board.getRows() - 1);
+        int colStart = Math.max(c - 1, 0), colEnd = Math.min(c + 1, this.board.getCols() - 1);
+        int flags = 0;
+        for (int nr = rowStart; nr <= rowEnd; nr++) {
+            for (int nc = colStart; nc <= colEnd; nc++) {
+                if (this.board.getCell(nr, nc) == MineBoard.FLAG) {
+                    flags++;
+                }
+            }
+        }
+        if ((state > 8) || (flags != state)) {
+            return false;
+        }
+        record(MoveJournal.CHORD, r, c);
+        for (int nr = rowStart; nr <= rowEnd; nr++) {
+            for (int nc = colStart; nc <= colEnd; nc++) {
+                int n = this.board.index(nr, nc);
+                byte neighbour = this.board.getCell(n);
+                if ((neighbour == MineBoard.HIDDEN) || (neighbour == MineBoard.GUESS)) {
+                    if (this.board.isMine(n)) {
+                        lose(nr, nc);
+                        return true;
+                    }
+                    this.board.reveal(n);
+                }
+            }
+        }
+        this.round++;
+        roundChanged();
+        checkWon();
+        return true;
+    } //chord
+
+    /**
+     * Uses up a round to look at the mines. The board itself is unchanged.
+     */
+    public void nofog() {
+        checkPlaying();
+        record(MoveJournal.ROUND, 0, 0);
+        this.round++;
+        roundChanged();
+    }
+
+    /**
+     * Uses up a round to look at the help text.
+     */
+    public void help() {
+        checkPlaying();
+        record(MoveJournal.ROUND, 0, 0);
+        this.round++;
+        roundChanged();
+    }
+
+    /**
+     * Uses up a round to ask the {@link MineSolver} for a move. The board
+     * itself is unchanged.
+     *
+     * @return the suggested move, or null if there is none.
+     */
+    public MineSolver.Hint hint() {
+        checkPlaying();
+        if (this.generator != null) {
+            //Before the mines are placed, any square is a safe first reveal.
+            this.hint = new MineSolver.Hint(this.board.getRows() / 2, this.board.getCols() / 2,
+                false, 0.0);
+        } else {
+            this.hint = new MineSolver(this.board).hint();
+        }
+        record(MoveJournal.ROUND, 0, 0);
+        this.round++;
+        roundChanged();
+        return this.hint;
+    } //hint
+
+    /**
+     * Lets the {@link MineSolver} play the rest of the game. Every move it
+     * makes uses up a round, as if the player had typed it.
+     *
+     * @return the outcome and the number of moves made.
+     */
+    public MineSolver.Result solve() {
+        checkPlaying();
+        if (this.generator != null) {
+            reveal(this.board.getRows() / 2, this.board.getCols() / 2);
+        }
+        this.solveResult = MineSolver.solve(this);
+        return this.solveResult;
+    } //solve
+
+    /**
+     * Ends the game at the player's request.
+     */
+    public void quit() {
+        checkPlaying();
+        this.status = Status.QUIT;
+    }
+
+    /**
+     * Throws an exception if the game is already over.
+     */
+    private void checkPlaying() {
+        if (this.status != Status.PLAYING) {
+            throw new IllegalStateException("The game is already over: " + this.status);
+        }
+    }
+
+    /**
+     * Ends the game as won if the board is in a winning state, and records
+     * the win in the leaderboard, if any. When assertions are enabled
+     * ({@code java -ea}) the constant-time check is verified against the
+     * full-grid scans.
+     */
+    private void checkWon() {
+        assert this.board.isWon() == (allSquaresRevealed() && minesRevealed())
+            : "win counters out of sync";
+        long start = GameMetrics.start();
+        boolean won = this.board.isWon();
+        GameMetrics.winCheck(start);
+        if (won) {
+            this.status = Status.WON;
+            if (this.leaderboard != null) {
+                this.leaderboard.add(this.board.layoutHash(), this.board.getRows(),
+                    this.board.getCols(), this.round, getScore());
+            }
+            for (GameListener listener : this.listeners) {
+                listener.gameWon(this.round, getScore());
+            }
+        }
+    }
+
+    /**
+     * Ends the game as lost.
+     *
+     * @param r the row of the mine that was revealed.
+     * @param c the column of the mine that was revealed.
+     */
+    private void lose(int r, int c) {
+        this.status = Status.LOST;
+        for (GameListener listener : this.listeners) {
+            listener.gameLost(r, c);
+        }
+    }
+
+    /**
+     * Returns the description of what was wrong with the last executed
+     * command, without the "Invalid Command: " prefix.
+     *
+     * @return the error, or null if the last command was valid.
+     */
+    public String getError() {
+        return this.error;
+    }
+
+    /**
+     * Returns the move suggested by the last hint command.
+     *
+     * @return the hint, or null if there was no move to suggest.
+     */
+    public MineSolver.Hint getHint() {
+        return this.hint;
+    }
+
+    /**
+     * Returns the outcome of the last solve command.
+     *
+     * @return the solver's result, or null if solve was never run.
+     */
+    public MineSolver.Result getSolveResult() {
+        return this.solveResult;
+    }
+
+    /**
+     * Returns the state of the game.
+     *
+     * @return the game status.
+     */
+    public Status getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Returns the board being played on.
+     *
+     * @return the board.
+     */
+    public MineBoard getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Returns the number of rounds completed.
+     *
+     * @return the round count.
+     */
+    public int getRound() {
+        return this.round;
+    }
+
+    /**
+     * Determines if all squares on the minefield grid that do not contain a mine
+     * have been revealed. Scans the whole grid; used as the reference for the
+     * constant-time check in {@link MineBoard#isWon()}.
+     *
+     * @return true if all squares not containing a mine have been revealed.
+     */
+    public boolean allSquaresRevealed() {
+        for (int i = 0; i < this.board.size(); i++) {
+            //Checks the contents of each square on the grid not containing a mine.
+            if ((this.board.isMine(i) == false) &&
+                (this.board.getCell(i) >= MineBoard.HIDDEN)) {
+                return false;
+            }
+        }
+        return true;
+    } //allSquaresRevealed
+
+    /**
+     * Determines if all squares containing a mine have been marked as definitely
+     * containing a mine. Scans the whole grid; used as the reference for the
+     * constant-time check in {@link MineBoard#isWon()}.
+     *
+     * @return true if all mine-containing squares have been marked.
+     */
+    public boolean minesRevealed() {
+        for (int i = 0; i < this.board.size(); i++) {
+            //if the square contains a mine, but has not been marked yet: false.
+            if ((this.board.isMine(i) == true) &&
+                (this.board.getCell(i) != MineBoard.FLAG)) {
+                return false;
+            }
+        }
+        return true;
+    } //minesRevealed
+
+    /**
+     * Calculates the user's score.
+     * @return score  The users score.
+     */
+    public double getScore() {
+        double score;
+        //Cast all ints to a double to ensure score holds a double value.
+        score = 100.00 * (double) this.board.getRows() * (double) this.board.getCols() /
+            (double) this.round;
+        if (score >= 99.999) {
+            score = 100.00;
+        }
+        //Round score to a double value with two decimal places.
+        double roundScore = Math.round(score * 100.0) / 100.0;
+        score = roundScore;
+        return score;
+    } //getScore
+} //MinesweeperEngine
@@ -1,445 +1,541 @@
 package cs1302.game;
 
 import java.util.Scanner;
-import java.io.File;
+import java.io.PrintStream;
 import java.io.FileNotFoundException;
-import java.util.NoSuchElementException;
+import java.io.IOException;
 import java.text.DecimalFormat;
-import java.util.InputMismatchException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 /**
  * This class represents an instance of Minesweeper Alpha. Each
  * Minesweeper game object is characterized by the size of the grid,
  * the number of mines on the grid, and a performance score based on
  * rounds played and the dimensions of the rows and columns.
+ * The rules live in a headless {@link MinesweeperEngine}; this class is the
+ * console front end that reads commands and prints the results.
  */
 public class MinesweeperGame {
-    private String [][] myGrid;
-    private boolean [][] mineGrid;
-    private int row, col, round, numOfMines;
-    private double score;
-    private final Scanner stdIn;
+    /** The largest number of rows or columns allowed by default. */
+    public static final int DEFAULT_MAX_SIZE = 10;
+    /** The number of rows shown at once when a board is too big to print whole. */
+    public static final int DEFAULT_VIEW_ROWS = 20;
+    /** The number of columns shown at once when a board is too big to print whole. */
+    public static final int DEFAULT_VIEW_COLS = 18;
+    //How the scores command prints when a game was won.
+    private static final DateTimeFormatter WON_AT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+
+    private MinesweeperEngine engine;
+    private MineBoard board;
+    private final int maxSize;
+    private final CommandTokenizer commands;
     private String seedFileName;
-    private Scanner inputParser;
+    //Where readSeed takes compiled boards from, or null to parse the seed file.
+    private BoardCache boardCache;
+    private boolean batchMode;
+    private PrintStream out = System.out;
+    private PrintStream err = System.err;
+    private MineFieldRenderer renderer = new MineFieldRenderer(System.out);
+    //The size of the viewport and the square at its top left corner.
+    private int viewRows = DEFAULT_VIEW_ROWS, viewCols = DEFAULT_VIEW_COLS;
+    private int viewTop, viewLeft;
+    //The console thread, once output is asynchronous.
+    private ConsoleView view;
+
+    /**
+     * Constructs an instance of a Minesweeper Game object limited to the
+     * default board size of {@value #DEFAULT_MAX_SIZE} rows and columns.
+     *
+     * @param stdIn the only scanner object in this class to accept standard input.
+     * @param seedFileName the String to read input from a seed file.
+     */
+    public MinesweeperGame (Scanner stdIn,String seedFileName) {
+        this(stdIn, seedFileName, DEFAULT_MAX_SIZE);
+    }
 
     /**
      * Constructs an instance of a Minesweeper Game object. Initalizes the
      * instance variables.
-     * Generates the game board with a two dimensional String array. Fills
-     * the String array with whitespaces to resemble undiscovered squares
-     * on the grid. Calls the readSeed method to instantiate rows, columns,
-     * number of mines, and the location of mines.
+     * Calls the readSeed method to instantiate rows, columns, number of mines,
+     * and the location of mines on a compact {@link MineBoard} whose squares
+     * all start out undiscovered.
      *
      * @param stdIn the only scanner object in this class to accept standard input.
      * @param seedFileName the String to read input from a seed file.
+     * @param maxSize the largest number of rows or columns the seed file may use.
      */
-    public MinesweeperGame (Scanner stdIn,String seedFileName) {
-        this.stdIn = stdIn;
+    public MinesweeperGame (Scanner stdIn,String seedFileName, int maxSize) {
+        this(new CommandTokenizer(stdIn), seedFileName, maxSize);
+    }
+
+    /**
+     * Constructs an instance of a Minesweeper Game object that reads its
+     * commands from the given tokenizer.
+     *
+     * @param commands the source of user commands.
+     * @param seedFileName the String to read input from a seed file.
+     * @param maxSize the largest number of rows or columns the seed file may use.
+     */
+    public MinesweeperGame (CommandTokenizer commands, String seedFileName, int maxSize) {
+        this(commands, seedFileName, maxSize, null);
+    }
+
+    /**
+     * Constructs an instance of a Minesweeper Game object whose board comes
+     * from a cache of compiled seed files, for processes that start many
+     * games on the same seed files.
+     *
+     * @param commands the source of user commands.
+     * @param seedFileName the String to read input from a seed file.
+     * @param maxSize the largest number of rows or columns the seed file may use.
+     * @param boardCache the cache, or null to parse the seed file.
+     */
+    public MinesweeperGame (CommandTokenizer commands, String seedFileName, int maxSize,
+        BoardCache boardCache) {
+        this.commands = commands;
         this.seedFileName = seedFileName;
-        this.round = 0;
+        this.maxSize = maxSize;
+        this.boardCache = boardCache;
         readSeed();
-        this.myGrid = new String[this.row][this.col];
-        for (int r = 0;r < this.row; r++) {
-            for (int c = 0;c < this.col;c++) {
-                myGrid[r][c] = " ";
-            }
-        }
     }
 
     /**
-     * Reads input from a seed file via a Scanner object. Parses the file to
+     * Constructs an instance of a Minesweeper Game object that plays an
+     * existing game, such as one on a generated board, instead of reading
+     * a seed file.
+     *
+     * @param commands the source of user commands.
+     * @param engine the game to play.
+     */
+    public MinesweeperGame (CommandTokenizer commands, MinesweeperEngine engine) {
+        this.commands = commands;
+        this.engine = engine;
+        this.board = engine.getBoard();
+        this.maxSize = Math.max(this.board.getRows(), this.board.getCols());
+    }
+
+    /**
+     * Reads input from a seed file via a {@link SeedParser}. Parses the file to
      * set the dimensions of the Minesweeper game grid. Checks for appropriate
-     * dimensions of rows, columns, number of mines, and location of mines.
+     * dimensions of rows, columns, number of mines, and location of mines,
+     * and rejects mine coordinates listed more than once. With a board cache
+     * a seed file already compiled is not read again.
      * Ensures that the program can properly handle incorrect input. Provides
-     * user with error message regarding the seed file.
+     * user with error message regarding the seed file and exits.
      */
     public void readSeed() {
         try {
-            File file = new File(this.seedFileName);
-            Scanner input = new Scanner(file);
-            this.row = input.nextInt();
-            this.col = input.nextInt();
-            //Rows & Columns must be greater than 5.
-            if ((this.row < 5) || (this.col < 5)) {
-                String underInputErrMsg = "Cannot create a mine field" +
-                    " with that number of rows and/or columns!";
-                System.err.println("\nSeed File Malformed Error: " + underInputErrMsg);
-                System.exit(3);
-            }
-            //Rows & Columns must be less than 11.
-            if ((this.row > 10) || (this.col > 10)) {
-                String overInputErrMsg = "Cannot create a mine field" +
-                    " with that many rows and/or columns!";
-                System.err.println("\nSeed File Malformed Error: " + overInputErrMsg);
-                System.exit(3);
-            }
-            this.numOfMines = input.nextInt();
-            //Number of Mines must be greater than 1 and less than row*col-1.
-            if ((this.numOfMines < 1) || (this.numOfMines > (this.row * this.col - 1))) {
-                String numMinesErrMsg = "Invalid mine count";
-                System.err.println("\nSeed File Malformed Error: " + numMinesErrMsg);
-                System.exit(3);
-            }
-            //Create boolean array to keep track of mine locations.
-            this.mineGrid = new boolean[this.row][this.col];
-            for (int i = 0; i < this.row; i++) {
-                for (int j = 0; j < this.col; j++) {
-                    mineGrid[i][j] = false;
-                }
-            }
-            //Check index of mines in seed file.
-            for (int k = 0; k < numOfMines; k++) {
-                String bombIndexErr = "Mine Coordinate Out of Bounds!";
-                int bombHereRow = input.nextInt();
-                if ((bombHereRow < 0) || (bombHereRow > this.row - 1)) {
-                    System.out.println("\nSeed File Malformed Error: " + bombIndexErr);
-                    System.exit(3);
-                }
-                int bombHereCol = input.nextInt();
-                if ((bombHereCol < 0) || (bombHereCol > this.col - 1)) {
-                    System.err.println("\nSeed File Malformed Error: " + bombIndexErr);
-                    System.exit(3);
-                }
-                mineGrid[bombHereRow][bombHereCol] = true;
-            }
+            this.engine = MinesweeperEngine.load(this.seedFileName, this.maxSize,
+                this.boardCache);
+            this.board = this.engine.getBoard();
         } catch (FileNotFoundException fnfe) {
-            System.err.println("\nSeed File Not Found Error: " + fnfe.getMessage());
+            this.err.println("\nSeed File Not Found Error: " + fnfe.getMessage());
             System.exit(2);
-        } catch (InputMismatchException ime) {
-            System.err.println("\nSeed File Malformed Error: Incorrect Datatype Detected");
-            System.exit(3);
-        } catch (NoSuchElementException nsee) {
-            System.err.println("\nSeed File Malformed Error: Missing Value");
+        } catch (SeedFormatException sfe) {
+            this.err.println("\nSeed File Malformed Error: " + sfe.getMessage());
             System.exit(3);
+        } catch (IOException ioe) {
+            this.err.println("\nSeed File Not Found Error: " + ioe.getMessage());
+            System.exit(2);
         }
     } //readSeed
 
+    /**
+     * Sets how much memory the undo history of the game may use. The
+     * oldest moves are forgotten once it is exceeded.
+     *
+     * @param bytes the approximate number of bytes.
+     */
+    public void setUndoLimit(long bytes) {
+        this.engine.getHistory().setLimit(bytes);
+    }
+
+    /**
+     * Records the game's win, if it is won, in a leaderboard, which the
+     * scores command then lists.
+     *
+     * @param leaderboard the leaderboard, or null to keep no scores.
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.engine.setLeaderboard(leaderboard);
+    }
+
+    /**
+     * Sets the size of the viewport. A board with more rows or columns than
+     * the viewport is drawn one window at a time, moved with the view
+     * command; smaller boards are always drawn whole.
+     *
+     * @param rows the number of rows shown at once.
+     * @param cols the number of columns shown at once.
+     */
+    public void setViewSize(int rows, int cols) {
+        this.viewRows = Math.max(1, rows);
+        this.viewCols = Math.max(1, cols);
+    }
+
+    /**
+     * Enables or disables ANSI diff rendering, which keeps the board at the
+     * top of the terminal and redraws only the rows changed by each command.
+     *
+     * @param ansiDiff true to enable diff rendering.
+     */
+    public void setAnsiDiff(boolean ansiDiff) {
+        this.renderer.setDiffMode(ansiDiff);
+    }
+
+    /**
+     * Sends the game's output somewhere other than standard output and
+     * standard error, so that several games can run in one process.
+     *
+     * @param out the stream for the minefield and messages.
+     * @param err the stream for error messages.
+     */
+    public void setOutput(PrintStream out, PrintStream err) {
+        boolean diffMode = this.renderer.isDiffMode();
+        this.out = out;
+        this.err = err;
+        this.renderer = new MineFieldRenderer(out);
+        this.renderer.setDiffMode(diffMode);
+    } //setOutput
+
+    /**
+     * Moves the game's output to a {@link ConsoleView} thread subscribed to
+     * the game's events, so that commands never wait for the terminal. When
+     * commands arrive faster than the terminal can draw, the board is drawn
+     * once for the whole burst; every message is still printed. Call this
+     * after {@link #setOutput} and {@link #setAnsiDiff}, if they are used.
+     */
+    public void setAsyncOutput() {
+        this.view = new ConsoleView(this.out, this.err, this, this::printMineField);
+        setOutput(this.view.getOut(), this.view.getErr());
+        this.engine.addListener(this.view);
+    } //setAsyncOutput
+
+    /**
+     * Writes any output still queued for the console thread and stops it.
+     */
+    private void closeView() {
+        if (this.view == null) {
+            return;
+        }
+        this.engine.removeListener(this.view);
+        try {
+            this.view.close();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    } //closeView
+
+    /**
+     * Enables or disables batch mode. In batch mode the welcome banner, the
+     * prompt and the board redraw after each command are skipped; the board
+     * is printed once when the commands run out.
+     *
+     * @param batchMode true to run commands without per-command output.
+     */
+    public void setBatchMode(boolean batchMode) {
+        this.batchMode = batchMode;
+    }
+
     /**
      * Displays the welcome banner to standard output.
      */
     public void printWelcome() {
-        System.out.println("        _");
-        System.out.println("  /\\/\\ (F)_ __   ___  _____      _____  ___ _ __   ___ _ __");
-        System.out.println(" /    \\| | '_ \\ / _ \\/ __\\ \\ /\\ /" +
+        this.out.println("        _");
+        this.out.println("  /\\/\\ (F)_ __   ___  _____      _____  ___ _ __   ___ _ __");
+        this.out.println(" /    \\| | '_ \\ / _ \\/ __\\ \\ /\\ /" +
                            " / _ \\/ _ \\ '_ \\ / _ \\ '__|");
-        System.out.println("/ /\\/\\ \\ | | | |  __/\\__ \\  V  V /  __/  __/ |_) |  __/ |   ");
-        System.out.println("\\/    \\/_|_| |_|\\___||___/ \\_/\\_/ \\___|\\___| .__/ \\___|_| ");
-        System.out.println("                             ALPHA EDITION |_| v2021.fa");
+        this.out.println("/ /\\/\\ \\ | | | |  __/\\__ \\  V  V /  __/  __/ |_) |  __/ |   ");
+        this.out.println("\\/    \\/_|_| |_|\\___||___/ \\_/\\_/ \\___|\\___| .__/ \\___|_| ");
+        this.out.println("                             ALPHA EDITION |_| v2021.fa");
         printMineField();
     } //printWelcome
 
     /**
      * Displays the number of rounds played and the current state of the
-     * Minesweeper grid to standard output.
+     * Minesweeper grid to standard output. The whole frame is written at once.
      */
     public void printMineField() {
-        System.out.println();
-        System.out.println(" Rounds completed: " + this.round);
-        for (int r = 0;r < this.row; r++) {
-            System.out.println();
-            System.out.print(" " + r + " ");
-            for (int c = 0; c < this.col; c++) {
-                System.out.print("| " + this.myGrid[r][c] + " ");
-                if (c >= this.col - 1) {
-                    System.out.print("|");
-                }
-            }
-        }
-        System.out.println();
-        System.out.print("     0");
-        for (int colIndex = 1; colIndex < this.col; colIndex++) {
-            System.out.print("   " + colIndex);
+        long start = GameMetrics.start();
+        if (isWindowed()) {
+            printWindow(false);
+        } else {
+            this.renderer.printMineField(this.board, this.engine.getRound());
         }
-        System.out.println("\n");
+        GameMetrics.render(start);
     } //printMineField
 
     /**
-     * Prints the game prompt to the user via standard output. Accepts
-     * and interprets user commands via standard input. Modifies
-     * the game grid based on the user-input commands. Handles
-     * inappropriate input and ensures the program doesn't crash abruptly.
+     * Determines if the board is too big for the viewport and is drawn one
+     * window at a time.
+     *
+     * @return true if the board has more rows or columns than the viewport.
      */
-    public void promptUser() {
-        System.out.print("minesweeper-alpha: ");
-        String fullCommand = stdIn.nextLine();
-        Scanner inputParser = new Scanner(fullCommand);
-        this.inputParser = inputParser;
-        String command = inputParser.next();
-        //Remove white spaces to help with parsing string.
-        String trimFullCommand = fullCommand.replace(" ", "");
-        try {
-            if ((command.equals("r")) || (command.equals("reveal"))) {
-                reveal();
-                //If the reveal command does not win the game, print the minefield.
-                if (isWon() == false) {
-                    this.round++;
-                    printMineField();
-                } else {
-                    this.round++;
-                }
-            }  else if ((command.equals("m")) || (command.equals("mark"))) {
-                mark();
-            }   else if ((command.equals("g")) || (command.equals("guess"))) {
-                guess();
-            }   else if (command.equals("nofog")) {
-                nofog();
-            } else if ((command.equals("h")) || (command.equals("help"))) {
-                help();
-            } else if ((command.equals("q")) || (command.equals("quit"))) {
-                quit();
-            }   else {
-                System.err.println();
-                System.err.println("Invalid Command: Command not recognized!");
-                printMineField();
-            }
-        } catch (IndexOutOfBoundsException ioobe) {
-            System.err.println("Invalid Command: " + ioobe.getMessage());
-            printMineField();
-        } catch (NoSuchElementException nsee) {
-            System.err.println("Invalid Command: " + nsee.getMessage());
-            printMineField();
-        } catch (NumberFormatException nfe) {
-            System.err.println("Invalid Command: " + nfe.getMessage());
-            printMineField();
-        }
-    } //promptUser
-
-/**
- * Helper method for the promptUser() command: reveal. Checks all
- * adjacent squares to the revealed square and displays the number
- * of mines located in adjacent squares.
- */
-    public void reveal() {
-        String parseRow = inputParser.next();
-        int revealRow = Integer.parseInt(parseRow);
-        String parseCol = inputParser.next();
-        int revealCol = Integer.parseInt(parseCol);
-        int mineCount = 0;
-        if (inputParser.hasNext()) {
-            System.err.println("Invalid Command: Command not recognized!");
-            printMineField();
-        } else {
-            if (this.mineGrid[revealRow][revealCol] == true) {
-                printLoss();
-            } //if mine revealed, end game.
-            if ((revealCol < this.col - 1) &&
-                (this.mineGrid[revealRow][revealCol + 1] == true)) {
-                mineCount++;
-                this.myGrid[revealRow][revealCol] = Integer.toString(mineCount);
-            } //if mine in square to the right of revealed square.
-            if ((revealCol > 0) && (this.mineGrid[revealRow][revealCol - 1] == true)) {
-                mineCount++;
-                this.myGrid[revealRow][revealCol] = Integer.toString(mineCount);
-            } //if mine in square to the left of revealed square.
-            if ((revealRow > 0) && (revealCol > 0)) {
-                if (this.mineGrid[revealRow - 1][revealCol - 1] == true) {
-                    mineCount++;
-                    this.myGrid[revealRow][revealCol] = Integer.toString(mineCount);
-                } //if mine in square up and left of revealed square.
-            }
-            if ((revealRow > 0) && (this.mineGrid[revealRow - 1][revealCol] == true)) {
-                mineCount++;
-                this.myGrid[revealRow][revealCol] = Integer.toString(mineCount);
-            } //if mine is in square above revealed square.
-            if ((revealRow > 0) && (revealCol < this.col - 1)) {
-                if (this.mineGrid[revealRow - 1][revealCol + 1] == true) {
-                    mineCount++;
-                    this.myGrid[revealRow][revealCol] = Integer.toString(mineCount);
-                } //if mine is up and right of revealed square.
-            }
-            if ((revealRow < this.row - 1) && (revealCol > 0)) {
-                if (this.mineGrid[revealRow + 1][revealCol - 1] == true) {
-                    mineCount++;
-                    this.myGrid[revealRow][revealCol] = Integer.toString(mineCount);
-                } //if mine is below and left of revealed square.
-            }
-            if ((revealRow < this.row - 1) &&
-                (this.mineGrid[revealRow + 1][revealCol] == true)) {
-                mineCount++;
-                this.myGrid[revealRow][revealCol] = Integer.toString(mineCount);
-            } //if mine is below the revealed square.
-            if ((revealRow < this.row - 1) && (revealCol < this.col - 1)) {
-                if (this.mineGrid[revealRow + 1][revealCol + 1] == true) {
-                    mineCount++;
-                    this.myGrid[revealRow][revealCol] = Integer.toString(mineCount);
-                } //if mine is below and right of the revealed square.
-            }
-            this.myGrid[revealRow][revealCol] = Integer.toString(mineCount);
-        }
+    private boolean isWindowed() {
+        return (this.board.getRows() > this.viewRows) || (this.board.getCols() > this.viewCols);
     }
 
-/**
- * Helper method for promptUser() command: mark. Adds an "F" to the
- * user specified square on the grid.
- */
-    public void mark() {
-        String parseRow = inputParser.next();
-        int markRow = Integer.parseInt(parseRow);
-        String parseCol = inputParser.next();
-        int markCol = Integer.parseInt(parseCol);
-        if (inputParser.hasNext()) {
-            System.err.println("Invalid Command: Command not recognized!");
-            printMineField();
+    /**
+     * Draws the part of the board inside the viewport. Only the squares in
+     * the window are visited, so the cost does not grow with the board.
+     *
+     * @param showMines true to surround squares containing a mine with "<>".
+     */
+    private void printWindow(boolean showMines) {
+        int height = Math.min(this.viewRows, this.board.getRows());
+        int width = Math.min(this.viewCols, this.board.getCols());
+        //Keep the window on the board if the board or viewport has changed.
+        this.viewTop = Math.max(0, Math.min(this.viewTop, this.board.getRows() - height));
+        this.viewLeft = Math.max(0, Math.min(this.viewLeft, this.board.getCols() - width));
+        this.renderer.printWindow(this.board, this.engine.getRound(), this.viewTop,
+            this.viewLeft, height, width, showMines);
+    } //printWindow
+
+    /**
+     * Redraws the minefield after a command, unless running in batch mode.
+     * With asynchronous output the console thread draws it later.
+     */
+    private void redraw() {
+        if (this.batchMode) {
+            return;
+        }
+        if (this.view != null) {
+            this.view.requestFrame();
         } else {
-            this.myGrid[markRow][markCol] = "F";
-            this.round++;
             printMineField();
         }
-    }
+    } //redraw
 
-/**
- * Helper method for promptUser() command: guess. Adds a "?" to the
- * user specified square on the grid.
- */
-    public void guess() {
-        String parseRow = inputParser.next();
-        int guessRow = Integer.parseInt(parseRow);
-        String parseCol = inputParser.next();
-        int guessCol = Integer.parseInt(parseCol);
-        if (inputParser.hasNext()) {
-            System.err.println("Invalid Command: Command not recognizd!");
-            printMineField();
-        }   else {
-            this.myGrid[guessRow][guessCol] = "?";
-            this.round++;
-            printMineField();
+    /**
+     * Prints the game prompt to the user via standard output. Accepts
+     * and interprets user commands via standard input. Modifies
+     * the game grid based on the user-input commands. Handles
+     * inappropriate input and ensures the program doesn't crash abruptly.
+     * Each command is carried out by the engine; this method only prints
+     * its outcome.
+     *
+     * @return false if there are no commands left to read.
+     */
+    public boolean promptUser() {
+        if (this.batchMode == false) {
+            this.out.print("minesweeper-alpha: ");
         }
-    }
+        if (commands.nextLine() == false) {
+            return false;
+        }
+        runCommand();
+        return true;
+    } //promptUser
 
     /**
-     * Helper method for promptUser() command: quit. Displays quit message
-     * to standard output and exits the program gracefully.
+     * Executes the command on the current line of the tokenizer and prints
+     * its outcome. The win and loss banners are left to {@link #printResult()}.
      */
-    public void quit() {
-        if (inputParser.hasNext()) {
-            System.err.println("Invalid Command: Command not recognized!");
-            printMineField();
-        } else {
-            System.out.println();
-            System.out.println("Quitting the game...");
-            System.out.println("Bye!");
-            System.exit(0);
+    public void runCommand() {
+        //The console thread, if any, draws the board while holding this lock.
+        synchronized (this) {
+            long start = GameMetrics.start();
+            MinesweeperEngine.Command command = this.engine.execute(this.commands);
+            printOutcome(command);
+            GameMetrics.command(command, this.engine.getError() == null, start);
         }
-    }
+    } //runCommand
 
     /**
-     * Helper method for promptUser() command: nofog. Displays the location
-     * of mines on the grid.
+     * Prints the outcome of a command the engine has just executed.
+     *
+     * @param command the command found on the line.
      */
-    public void nofog() {
-        if (inputParser.hasNext()) {
-            System.err.println("Invalid Command: Command not recognized!");
+    private void printOutcome(MinesweeperEngine.Command command) {
+        //A loaded game brings its own board; print that one from now on.
+        if (this.board != this.engine.getBoard()) {
+            this.board = this.engine.getBoard();
+            this.renderer.invalidate();
+        }
+        if (this.engine.getError() != null) {
+            if (command == MinesweeperEngine.Command.INVALID) {
+                this.err.println();
+            }
+            this.err.println("Invalid Command: " + this.engine.getError());
+            redraw();
+            return;
+        }
+        switch (command) {
+        case REVEAL:
+        case CHORD:
+            //If the reveal command does not end the game, print the minefield.
+            if (this.engine.getStatus() == MinesweeperEngine.Status.PLAYING) {
+                redraw();
+            }
+            break;
+        case MARK:
+        case GUESS:
+            redraw();
+            break;
+        case NOFOG:
+            //Prints the minefield but surrounds squares containing a mine with "<>"
+            if (isWindowed()) {
+                printWindow(true);
+            } else {
+                this.renderer.printNoFog(this.board, this.engine.getRound());
+            }
+            break;
+        case VIEW:
+            //Centre the viewport on the square; printWindow keeps it on the board.
+            this.viewTop = this.engine.getViewRow() - this.viewRows / 2;
+            this.viewLeft = this.engine.getViewCol() - this.viewCols / 2;
             printMineField();
-        }        else {
-            System.out.println();
-            round++;
-            System.out.println("Rounds completed: " + round);
-            //Prints the original mineGrid but replaces white spaces with "<>"
-            for (int r = 0; r < this.row; r++) {
-                System.out.println();
-                System.out.print(" " + r + " ");
-                for (int c = 0; c < this.col; c++) {
-                    if (this.mineGrid[r][c] == true) {
-                        System.out.print("|<" + this.myGrid[r][c] + ">");
-                    } else {
-                        System.out.print("| " + this.myGrid[r][c] + " ");
-                    }
-                    if (c >= this.col - 1) {
-                        System.out.print("|");
-                    }
-                }
+            break;
+        case OVERVIEW:
+            this.renderer.printOverview(this.board, this.engine.getRound(), this.viewRows,
+                this.viewCols);
+            break;
+        case HELP:
+            help();
+            break;
+        case HINT:
+            printHint(this.engine.getHint());
+            redraw();
+            break;
+        case SAVE:
+            this.out.println();
+            this.out.println("Game saved to " + this.engine.getSaveFileName());
+            redraw();
+            break;
+        case LOAD:
+            this.out.println();
+            this.out.println("Game loaded from " + this.engine.getSaveFileName());
+            if (this.engine.getStatus() == MinesweeperEngine.Status.PLAYING) {
+                redraw();
             }
-            System.out.println();
-            System.out.print("     0");
-            for (int colIndex = 1; colIndex < this.col; colIndex++) {
-                System.out.print("   " + colIndex);
+            break;
+        case SOLVE:
+            MineSolver.Result result = this.engine.getSolveResult();
+            this.out.println();
+            this.out.println("Solver made " + result.getReveals() + " reveals (" +
+                result.getGuesses() + " guessed) and " + result.getMarks() + " marks.");
+            if (this.engine.getStatus() == MinesweeperEngine.Status.PLAYING) {
+                redraw();
             }
-            System.out.println("\n");
+            break;
+        case UNDO:
+        case REDO:
+            redraw();
+            break;
+        case STATS:
+            this.out.println();
+            this.out.println(GameMetrics.report());
+            redraw();
+            break;
+        case SCORES:
+            printScores();
+            redraw();
+            break;
+        case QUIT:
+            quit();
+            break;
+        default:
+            break;
         }
-    }
+    } //printOutcome
 
     /**
-     * Helper method for promptUser() command: help. Displays five
-     * options to standard output.
+     * Helper method for promptUser() command: quit. Displays quit message
+     * to standard output.
      */
-    public void help() {
-        if (inputParser.hasNext()) {
-            System.err.println("Invalid Command: Command not recoginized!");
-            printMineField();
-        } else {
-            System.out.println();
-            System.out.println("Commands Available...");
-            System.out.println(" - Reveal: r/reveal row col");
-            System.out.println(" -   Mark: m/mark   row col" );
-            System.out.println(" -  Guess: g/guess  row col" );
-            System.out.println(" -   Help: h/help");
-            System.out.println(" -   Quit: q/quit" );
-            this.round++;
-            printMineField();
-        }
-    }
+    private void quit() {
+        this.out.println();
+        this.out.println("Quitting the game...");
+        this.out.println("Bye!");
+    } //quit
 
     /**
-     * Determines if all squares on the minefield grid that do not contain a mine
-     * have been revealed.
+     * Helper method for promptUser() command: hint. Displays the suggested
+     * move to standard output.
      *
-     * @return allSquaresRevealed returns true if all squares not containing a mine
-     * have been revealed. Otherwise, returns false.
+     * @param hint the move suggested by the solver, or null if there is none.
      */
-    public boolean allSquaresRevealed() {
-        boolean allSquaresRevealed = true;
-        for (int i = 0; i < this.row; i++) {
-            for (int j = 0; j < this.row; j++) {
-                //Checks the contents of each square on the grid not containing a mine.
-                if ((this.mineGrid[i][j] == false) && (this.myGrid[i][j].equals(" "))) {
-                    allSquaresRevealed = false;
-                    break;
-                } else if ((this.mineGrid[i][j] == false) && (this.myGrid[i][j].equals("?"))) {
-                    allSquaresRevealed = false;
-                    break;
-                } else if ((this.mineGrid[i][j] == false) && (this.myGrid[i][j].equals("F"))) {
-                    allSquaresRevealed = false;
-                    break;
-                }
-            }
+    private void printHint(MineSolver.Hint hint) {
+        this.out.println();
+        if (hint == null) {
+            this.out.println("Hint: no moves left to suggest.");
+        } else if (hint.isMine()) {
+            this.out.println("Hint: m " + hint.getRow() + " " + hint.getCol() +
+                " (certainly a mine)");
+        } else if (hint.isCertain()) {
+            this.out.println("Hint: r " + hint.getRow() + " " + hint.getCol() +
+                " (certainly safe)");
+        } else {
+            this.out.printf("Hint: r %d %d (no safe move; %.1f%% chance of a mine)%n",
+                hint.getRow(), hint.getCol(), 100.0 * hint.getProbability());
         }
-        return allSquaresRevealed;
-    } //allSquaresRevealed
+    } //printHint
 
     /**
-     * Determines if all squares containing a mine have been marked as definitely
-     * containing a mine.
-     *
-     * @return minesRevealed true if all mine-containing squares have been
-     * marked. Otherwise, returns false.
+     * Helper method for promptUser() command: scores. Displays the best
+     * scores on boards of the size asked for, and why new scores are not
+     * being saved, if a write to the score file failed.
      */
-    public boolean minesRevealed() {
-        boolean minesRevealed = true;
-        for (int i = 0; i < this.row; i++) {
-            for (int j = 0; j < this.col; j++) {
-                //if the square contains a mine, but has not been revealed yet: false.
-                if ((this.mineGrid[i][j] == true) && (!this.myGrid[i][j].equals("F"))) {
-                    minesRevealed = false;
-                    break;
-                }
-            }
+    private void printScores() {
+        int rows = this.engine.getScoreRows(), cols = this.engine.getScoreCols();
+        this.out.println();
+        if (this.engine.getScores().isEmpty()) {
+            this.out.println("No scores yet on " + rows + " x " + cols + " boards.");
+        } else {
+            this.out.println("High scores on " + rows + " x " + cols + " boards:");
+        }
+        int rank = 1;
+        for (Leaderboard.Entry entry : this.engine.getScores()) {
+            String wonAt = WON_AT.format(Instant.ofEpochMilli(entry.getTime()));
+            this.out.printf("%3d. %6.2f in %d rounds  %s  board %016x%n", rank++,
+                entry.getScore(), entry.getRounds(), wonAt, entry.getLayoutHash());
+        }
+        String error = this.engine.getLeaderboard().getError();
+        if (error != null) {
+            this.out.println("Score File Error: " + error + " (new scores are not saved)");
         }
-        return minesRevealed;
-    } //minesRevealed
+    } //printScores
+
+    /**
+     * Helper method for promptUser() command: help. Displays sixteen
+     * options to standard output.
+     */
+    private void help() {
+        this.out.println();
+        this.out.println("Commands Available...");
+        this.out.println(" - Reveal: r/reveal row col");
+        this.out.println(" -   Mark: m/mark   row col" );
+        this.out.println(" -  Guess: g/guess  row col" );
+        this.out.println("   (r, m and g take several squares, and ranges like 2:5 0:3)");
+        this.out.println(" -  Chord: chord  row col");
+        this.out.println(" -   Help: h/help");
+        this.out.println(" -   Hint: hint");
+        this.out.println(" -  Solve: solve");
+        this.out.println(" -   Save: save [file]");
+        this.out.println(" -   Load: load [file]");
+        this.out.println(" -   View: view   row col");
+        this.out.println(" - Overview: overview");
+        this.out.println(" -   Undo: undo");
+        this.out.println(" -   Redo: redo");
+        this.out.println(" -  Stats: stats");
+        this.out.println(" - Scores: scores [rows cols]");
+        this.out.println(" -   Quit: q/quit" );
+        redraw();
+    } //help
 
     /**
      * Determines if the user has satisfied both conditions required to win
-     * instance of a Minesweeper Alpha game.
+     * instance of a Minesweeper Alpha game. The board tracks both conditions
+     * as squares change state, so this check runs in constant time.
      *
      * @return isWon true if the user has revealed all squares not containing a
      * mine and marked all squares containing a mine. Otherwise, returns false.
      */
     public boolean isWon () {
-        boolean isWon = false;
-        if ((allSquaresRevealed() == true) && (minesRevealed() == true)) {
-            isWon = true;
-        }
-        return isWon;
+        return this.board.isWon();
     } //isWon
 
     /**
@@ -447,77 +543,102 @@ public class MinesweeperGame {
      * @return score  The users score.
      */
     public double getScore() {
-        double score;
-        //Cast all ints to a double to ensure score holds a double value.
-        score = 100.00 * (double)this.row * (double)this.col / (double)this.round;
-        if (score >= 99.999) {
-            score = 100.00;
-        }
-        //Round score to a double value with two decimal places.
-        double roundScore = Math.round(score * 100.0) / 100.0;
-        score = roundScore;
-        return score;
+        return this.engine.getScore();
     } //getScore
 
 /**
  * Displays the winning banner and the user's score to standard output.
- * Exits the program gracefully afterwards.
  */
     public void printWin() {
         //DecimalFormat object to ensure two decimal places in score print line.
         DecimalFormat dfScore = new DecimalFormat("##.00");
-        System.out.println();
-        System.out.println("░░░░░░░░░▄░░░░░░░░░░░░░░▄░░░░ \"So Doge\"");
-        System.out.println("░░░░░░░░▌▒█░░░░░░░░░░░▄▀▒▌░░░");
-        System.out.println("░░░░░░░░▌▒▒█░░░░░░░░▄▀▒▒▒▐░░░ \"Such Score\"");
-        System.out.println("░░░░░░░▐▄▀▒▒▀▀▀▀▄▄▄▀▒▒▒▒▒▐░░░");
-        System.out.println("░░░░░▄▄▀▒░▒▒▒▒▒▒▒▒▒█▒▒▄█▒▐░░░ \"Much Minesweeping\"");
-        System.out.println("░░░▄▀▒▒▒░░░▒▒▒░░░▒▒▒▀██▀▒▌░░░");
-        System.out.println("░░▐▒▒▒▄▄▒▒▒▒░░░▒▒▒▒▒▒▒▀▄▒▒▌░░ \"Wow\"");
-        System.out.println("░░▌░░▌█▀▒▒▒▒▒▄▀█▄▒▒▒▒▒▒▒█▒▐░░");
-        System.out.println("░▐░░░▒▒▒▒▒▒▒▒▌██▀▒▒░░░▒▒▒▀▄▌░");
-        System.out.println("░▌░▒▄██▄▒▒▒▒▒▒▒▒▒░░░░░░▒▒▒▒▌░");
-        System.out.println("▀▒▀▐▄█▄█▌▄░▀▒▒░░░░░░░░░░▒▒▒▐░");
-        System.out.println("▐▒▒▐▀▐▀▒░▄▄▒▄▒▒▒▒▒▒░▒░▒░▒▒▒▒▌");
-        System.out.println("▐▒▒▒▀▀▄▄▒▒▒▄▒▒▒▒▒▒▒▒░▒░▒░▒▒▐░");
-        System.out.println("░▌▒▒▒▒▒▒▀▀▀▒▒▒▒▒▒░▒░▒░▒░▒▒▒▌░");
-        System.out.println("░▐▒▒▒▒▒▒▒▒▒▒▒▒▒▒░▒░▒░▒▒▄▒▒▐░░");
-        System.out.println("░░▀▄▒▒▒▒▒▒▒▒▒▒▒░▒░▒░▒▄▒▒▒▒▌░░");
-        System.out.println("░░░░▀▄▒▒▒▒▒▒▒▒▒▒▄▄▄▀▒▒▒▒▄▀░░░ CONGRATULATIONS!");
-        System.out.println("░░░░░░▀▄▄▄▄▄▄▀▀▀▒▒▒▒▒▄▄▀░░░░░ YOU HAVE WON!");
-        System.out.println("░░░░░░░░░▒▒▒▒▒▒▒▒▒▒▀▀░░░░░░░░ SCORE: " + dfScore.format(getScore()));
-        System.out.println();
-        System.exit(0);
+        this.out.println();
+        this.out.println("░░░░░░░░░▄░░░░░░░░░░░░░░▄░░░░ \"So Doge\"");
+        this.out.println("░░░░░░░░▌▒█░░░░░░░░░░░▄▀▒▌░░░");
+        this.out.println("░░░░░░░░▌▒▒█░░░░░░░░▄▀▒▒▒▐░░░ \"Such Score\"");
+        this.out.println("░░░░░░░▐▄▀▒▒▀▀▀▀▄▄▄▀▒▒▒▒▒▐░░░");
+        this.out.println("░░░░░▄▄▀▒░▒▒▒▒▒▒▒▒▒█▒▒▄█▒▐░░░ \"Much Minesweeping\"");
+        this.out.println("░░░▄▀▒▒▒░░░▒▒▒░░░▒▒▒▀██▀▒▌░░░");
+        this.out.println("░░▐▒▒▒▄▄▒▒▒▒░░░▒▒▒▒▒▒▒▀▄▒▒▌░░ \"Wow\"");
+        this.out.println("░░▌░░▌█▀▒▒▒▒▒▄▀█▄▒▒▒▒▒▒▒█▒▐░░");
+        this.out.println("░▐░░░▒▒▒▒▒▒▒▒▌██▀▒▒░░░▒▒▒▀▄▌░");
+        this.out.println("░▌░▒▄██▄▒▒▒▒▒▒▒▒▒░░░░░░▒▒▒▒▌░");
+        this.out.println("▀▒▀▐▄█▄█▌▄░▀▒▒░░░░░░░░░░▒▒▒▐░");
+        this.out.println("▐▒▒▐▀▐▀▒░▄▄▒▄▒▒▒▒▒▒░▒░▒░▒▒▒▒▌");
+        this.out.println("▐▒▒▒▀▀▄▄▒▒▒▄▒▒▒▒▒▒▒▒░▒░▒░▒▒▐░");
+        this.out.println("░▌▒▒▒▒▒▒▀▀▀▒▒▒▒▒▒░▒░▒░▒░▒▒▒▌░");
+        this.out.println("░▐▒▒▒▒▒▒▒▒▒▒▒▒▒▒░▒░▒░▒▒▄▒▒▐░░");
+        this.out.println("░░▀▄▒▒▒▒▒▒▒▒▒▒▒░▒░▒░▒▄▒▒▒▒▌░░");
+        this.out.println("░░░░▀▄▒▒▒▒▒▒▒▒▒▒▄▄▄▀▒▒▒▒▄▀░░░ CONGRATULATIONS!");
+        this.out.println("░░░░░░▀▄▄▄▄▄▄▀▀▀▒▒▒▒▒▄▄▀░░░░░ YOU HAVE WON!");
+        this.out.println("░░░░░░░░░▒▒▒▒▒▒▒▒▒▒▀▀░░░░░░░░ SCORE: " + dfScore.format(getScore()));
+        this.out.println();
     } //printWin
 
 /**
  * Displays a loss message and the gameover banner to standard output.
- * Exits the program gracefully.
  */
     public static void printLoss() {
-        System.out.println();
-        System.out.println(" Oh no.... You revealed a mine!");
-        System.out.println("  __ _  __ _ _ __ ___   ___    _____   _____ _ __");
-        System.out.println(" / _` |/ _` | '_ ` _ \\ / _ \\  / _ \\ \\ / / _ \\ '__|");
-        System.out.println("| (_| | (_| | | | | | |  __/ | (_) \\ V /  __/ |");
-        System.out.println(" \\__, |\\__,_|_| |_| |_|\\___|  \\___/ \\_/ \\___|_|");
-        System.out.println(" |___/");
-        System.out.println();
-        System.exit(0);
+        printLoss(System.out);
+    } //printLoss
+
+/**
+ * Displays a loss message and the gameover banner to the given stream.
+ *
+ * @param out the stream to print to.
+ */
+    public static void printLoss(PrintStream out) {
+        out.println();
+        out.println(" Oh no.... You revealed a mine!");
+        out.println("  __ _  __ _ _ __ ___   ___    _____   _____ _ __");
+        out.println(" / _` |/ _` | '_ ` _ \\ / _ \\  / _ \\ \\ / / _ \\ '__|");
+        out.println("| (_| | (_| | | | | | |  __/ | (_) \\ V /  __/ |");
+        out.println(" \\__, |\\__,_|_| |_| |_|\\___|  \\___/ \\_/ \\___|_|");
+        out.println(" |___/");
+        out.println();
     } //printLoss
 
 /**
  * Provides the main game loop for an instance of a Minesweeper Alpha game.
+ * Returns once the game is won, lost or quit, or the commands run out.
+ *
+ * @return the state the game ended in.
  */
-    public void play() {
-        printWelcome();
-        do {
-            promptUser();
-            //Continue to promptthe user if the game is not completed.
-        } while (isWon() == false);
-
-        if (isWon()) {
-            printWin();
+    public MinesweeperEngine.Status play() {
+        if (this.batchMode == false) {
+            printWelcome();
         }
+        boolean moreCommands = true;
+        //Continue to prompt the user if the game is not completed.
+        while ((this.engine.getStatus() == MinesweeperEngine.Status.PLAYING) && moreCommands) {
+            moreCommands = promptUser();
+        }
+        printResult();
+        closeView();
+        return this.engine.getStatus();
     } //play
+
+    /**
+     * Determines if the game has ended, by a win, a loss or the player quitting.
+     *
+     * @return true if no more commands will be accepted.
+     */
+    public boolean isOver() {
+        return this.engine.getStatus() != MinesweeperEngine.Status.PLAYING;
+    }
+
+    /**
+     * Prints the banner for the way the game ended. A game still being
+     * played in batch mode ran out of commands, so the board is shown where
+     * the script left it.
+     */
+    public void printResult() {
+        if (this.engine.getStatus() == MinesweeperEngine.Status.WON) {
+            printWin();
+        } else if (this.engine.getStatus() == MinesweeperEngine.Status.LOST) {
+            printLoss(this.out);
+        } else if ((this.engine.getStatus() == MinesweeperEngine.Status.PLAYING) && this.batchMode) {
+            printMineField();
+        }
+    } //printResult
 } //MinesweeperGame
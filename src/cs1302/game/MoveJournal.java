@@ -0,0 +1,218 @@
+package cs1302.game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class is the append-only log of moves made since the last
+ * {@link GameSnapshot}. Each move is a fixed nine-byte record (an opcode
+ * and two ints) collected in a buffer and written through a
+ * {@link FileChannel} when the engine finishes a command. The journal
+ * header repeats the generation of the snapshot it belongs to, so a journal
+ * left over from an older snapshot is never replayed. A record cut short
+ * by a crash is dropped when the journal is reopened.
+ */
+public class MoveJournal implements AutoCloseable {
+    /** A reveal of the square in the record. */
+    static final byte REVEAL = 1;
+    /** A mark of the square in the record. */
+    static final byte MARK = 2;
+    /** A guess of the square in the record. */
+    static final byte GUESS = 3;
+    /** A round used up without changing the board (nofog, help, hint). */
+    static final byte ROUND = 4;
+    /** A chord of the square in the record. */
+    static final byte CHORD = 5;
+
+    private static final int MAGIC = 0x4D53574A;
+    private static final int HEADER_BYTES = 4 + 8;
+    private static final int RECORD_BYTES = 1 + 4 + 4;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * 512);
+    private int records;
+
+    /**
+     * Constructs a journal on an open channel.
+     *
+     * @param channel the channel of the journal file.
+     */
+    private MoveJournal(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Creates an empty journal for a snapshot, replacing any existing file.
+     *
+     * @param journalFileName the path of the journal file.
+     * @param generation the generation of the snapshot.
+     * @return the journal, positioned to append.
+     * @throws IOException if the file cannot be written.
+     */
+    public static MoveJournal create(String journalFileName, long generation)
+        throws IOException {
+        MoveJournal journal = new MoveJournal(FileChannel.open(Paths.get(journalFileName),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+        journal.reset(generation);
+        return journal;
+    } //create
+
+    /**
+     * Opens the journal of a snapshot and replays its moves into a game. If
+     * the file is missing or belongs to another generation it is started
+     * afresh. If a record cannot be replayed the file is closed untouched.
+     *
+     * @param journalFileName the path of the journal file.
+     * @param generation the generation of the snapshot the game was read from.
+     * @param engine the game restored from the snapshot, to replay into.
+     * @return the journal, positioned to append.
+     * @throws IOException if the file cannot be opened or read.
+     * @throws SaveFormatException if a record is not a valid move for the game.
+     */
+    public static MoveJournal open(String journalFileName, long generation,
+        MinesweeperEngine engine) throws IOException, SaveFormatException {
+        FileChannel channel = FileChannel.open(Paths.get(journalFileName),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean opened = false;
+        try {
+            MoveJournal journal = new MoveJournal(channel);
+            ByteBuffer contents = ByteBuffer.allocate((int) Math.min(channel.size(),
+                Integer.MAX_VALUE));
+            while (contents.hasRemaining() && (channel.read(contents) >= 0)) {
+                continue;
+            }
+            contents.flip();
+            if ((contents.remaining() < HEADER_BYTES) || (contents.getInt() != MAGIC) ||
+                (contents.getLong() != generation)) {
+                journal.reset(generation);
+            } else {
+                while (contents.remaining() >= RECORD_BYTES) {
+                    replay(engine, contents.get(), contents.getInt(), contents.getInt());
+                    journal.records++;
+                }
+                engine.replayFinished();
+                //Drop a partial record and append after the last complete one.
+                channel.truncate(HEADER_BYTES + (long) journal.records * RECORD_BYTES);
+                channel.position(channel.size());
+            }
+            opened = true;
+            return journal;
+        } finally {
+            if (opened == false) {
+                channel.close();
+            }
+        }
+    } //open
+
+    /**
+     * Applies one journaled move to a game. Reveals, marks and guesses are
+     * not checked for the win until the whole journal has been replayed,
+     * since a batch command journals them one square at a time.
+     *
+     * @param engine the game.
+     * @param op the opcode of the move.
+     * @param r the row of the square.
+     * @param c the column of the square.
+     * @throws SaveFormatException if the record is not a valid move for the game.
+     */
+    private static void replay(MinesweeperEngine engine, byte op, int r, int c)
+        throws SaveFormatException {
+        try {
+            switch (op) {
+            case REVEAL:
+            case MARK:
+            case GUESS:
+                engine.replayMove(op, r, c);
+                break;
+            case ROUND:
+                engine.nofog();
+                break;
+            case CHORD:
+                if (engine.chord(r, c) == false) {
+                    throw new SaveFormatException("Journal does not match the save file: " +
+                        "chord of " + r + " " + c);
+                }
+                break;
+            default:
+                throw new SaveFormatException("Invalid journal record " + op);
+            }
+        } catch (IndexOutOfBoundsException | IllegalStateException e) {
+            throw new SaveFormatException("Journal does not match the save file: " +
+                e.getMessage());
+        }
+    } //replay
+
+    /**
+     * Empties the journal and starts it for a new snapshot.
+     *
+     * @param generation the generation of the new snapshot.
+     * @throws IOException if the file cannot be written.
+     */
+    public void reset(long generation) throws IOException {
+        this.buffer.clear();
+        this.records = 0;
+        this.channel.truncate(0);
+        this.channel.position(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putLong(generation).flip();
+        while (header.hasRemaining()) {
+            this.channel.write(header);
+        }
+    } //reset
+
+    /**
+     * Adds a move to the journal. It reaches the file on the next
+     * {@link #flush()}, or sooner if the buffer fills up.
+     *
+     * @param op the opcode of the move.
+     * @param r the row of the square.
+     * @param c the column of the square.
+     */
+    public void append(byte op, int r, int c) {
+        if (this.buffer.remaining() < RECORD_BYTES) {
+            flush();
+        }
+        this.buffer.put(op).putInt(r).putInt(c);
+        this.records++;
+    }
+
+    /**
+     * Writes the buffered moves to the file.
+     */
+    public void flush() {
+        this.buffer.flip();
+        try {
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        } finally {
+            this.buffer.clear();
+        }
+    } //flush
+
+    /**
+     * Returns the number of moves in the journal.
+     *
+     * @return the record count.
+     */
+    public int size() {
+        return this.records;
+    }
+
+    /**
+     * Writes any buffered moves and closes the file.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        this.channel.close();
+    }
+} //MoveJournal
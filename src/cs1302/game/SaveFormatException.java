@@ -0,0 +1,18 @@
+package cs1302.game;
+
+/**
+ * Thrown when a save file is not a valid Minesweeper Alpha snapshot.
+ * The message is the part printed after "Save File Malformed Error: ".
+ */
+public class SaveFormatException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an exception with the given description of the problem.
+     *
+     * @param message a description of what is wrong with the save file.
+     */
+    public SaveFormatException(String message) {
+        super(message);
+    }
+} //SaveFormatException
@@ -0,0 +1,18 @@
+package cs1302.game;
+
+/**
+ * Thrown when a seed file does not describe a valid Minesweeper Alpha grid.
+ * The message is the part printed after "Seed File Malformed Error: ".
+ */
+public class SeedFormatException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an exception with the given description of the problem.
+     *
+     * @param message a description of what is wrong with the seed file.
+     */
+    public SeedFormatException(String message) {
+        super(message);
+    }
+} //SeedFormatException
@@ -0,0 +1,180 @@
+package cs1302.game;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class reads a seed file into a {@link MineBoard}. The file is read in
+ * large blocks through a {@link FileChannel} and integers are parsed straight
+ * from the bytes, so seed files with millions of mine coordinates load in a
+ * fraction of the time a {@link java.util.Scanner} needs. Tokens are separated
+ * by whitespace and validated in the same order and with the same messages as
+ * the original Scanner-based {@code readSeed()}. In addition, a coordinate
+ * listed more than once is rejected instead of being counted twice.
+ */
+public class SeedParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private boolean endOfFile;
+
+    /**
+     * Constructs a parser reading from an open channel. Small files get a
+     * buffer just large enough to hold them.
+     *
+     * @param channel the channel to read the seed file from.
+     * @throws IOException if the size of the file cannot be determined.
+     */
+    private SeedParser(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = Math.max(channel.size(), 1);
+        this.buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, size));
+        this.buffer.flip();
+    }
+
+    /**
+     * Reads and validates a seed file. The board's adjacency counts are not
+     * computed; callers do that once all validation has passed.
+     *
+     * @param seedFileName the path of the seed file.
+     * @param maxSize the largest number of rows or columns allowed.
+     * @return a board holding the mines listed in the seed file.
+     * @throws FileNotFoundException if the seed file cannot be opened.
+     * @throws IOException if the seed file cannot be read.
+     * @throws SeedFormatException if the seed file is malformed.
+     */
+    public static MineBoard parse(String seedFileName, int maxSize)
+        throws IOException, SeedFormatException {
+        try (FileInputStream in = new FileInputStream(seedFileName);
+             FileChannel channel = in.getChannel()) {
+            return new SeedParser(channel).readBoard(maxSize);
+        }
+    } //parse
+
+    /**
+     * Reads the dimensions, the mine count and every mine coordinate.
+     *
+     * @param maxSize the largest number of rows or columns allowed.
+     * @return the board described by the seed file.
+     * @throws IOException if the seed file cannot be read.
+     * @throws SeedFormatException if the seed file is malformed.
+     */
+    private MineBoard readBoard(int maxSize) throws IOException, SeedFormatException {
+        int rows = nextInt();
+        int cols = nextInt();
+        //Rows & Columns must be at least 5.
+        if ((rows < 5) || (cols < 5)) {
+            throw new SeedFormatException("Cannot create a mine field" +
+                " with that number of rows and/or columns!");
+        }
+        //Rows & Columns must not exceed the maximum size.
+        if ((rows > maxSize) || (cols > maxSize) ||
+            ((long) rows * cols > Integer.MAX_VALUE - 8)) {
+            throw new SeedFormatException("Cannot create a mine field" +
+                " with that many rows and/or columns!");
+        }
+        int numOfMines = nextInt();
+        //Number of Mines must be at least 1 and less than row*col.
+        if ((numOfMines < 1) || (numOfMines > rows * cols - 1)) {
+            throw new SeedFormatException("Invalid mine count");
+        }
+        MineBoard board = new MineBoard(rows, cols);
+        for (int k = 0; k < numOfMines; k++) {
+            String bombIndexErr = "Mine Coordinate Out of Bounds!";
+            int bombHereRow = nextInt();
+            if ((bombHereRow < 0) || (bombHereRow > rows - 1)) {
+                throw new SeedFormatException(bombIndexErr);
+            }
+            int bombHereCol = nextInt();
+            if ((bombHereCol < 0) || (bombHereCol > cols - 1)) {
+                throw new SeedFormatException(bombIndexErr);
+            }
+            if (board.setMine(bombHereRow, bombHereCol) == false) {
+                throw new SeedFormatException("Duplicate Mine Coordinate (" +
+                    bombHereRow + ", " + bombHereCol + ")!");
+            }
+        }
+        return board;
+    } //readBoard
+
+    /**
+     * Reads the next whitespace-separated token as an int.
+     *
+     * @return the value of the token.
+     * @throws IOException if the seed file cannot be read.
+     * @throws SeedFormatException if there is no token left or the token is
+     * not an int.
+     */
+    private int nextInt() throws IOException, SeedFormatException {
+        int b = nextByte();
+        while (isWhitespace(b)) {
+            b = nextByte();
+        }
+        if (b < 0) {
+            throw new SeedFormatException("Missing Value");
+        }
+        boolean negative = false;
+        if ((b == '-') || (b == '+')) {
+            negative = b == '-';
+            b = nextByte();
+        }
+        long value = 0;
+        boolean valid = (b >= '0') && (b <= '9');
+        while ((b >= 0) && !isWhitespace(b)) {
+            if ((b < '0') || (b > '9')) {
+                valid = false;
+            } else if (valid) {
+                value = value * 10 + (b - '0');
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    valid = false;
+                }
+            }
+            b = nextByte();
+        }
+        value = negative ? -value : value;
+        if (!valid || (value > Integer.MAX_VALUE)) {
+            throw new SeedFormatException("Incorrect Datatype Detected");
+        }
+        return (int) value;
+    } //nextInt
+
+    /**
+     * Returns the next byte of the file, refilling the buffer as needed.
+     *
+     * @return the next byte, or -1 at the end of the file.
+     * @throws IOException if the seed file cannot be read.
+     */
+    private int nextByte() throws IOException {
+        if (!this.buffer.hasRemaining()) {
+            if (this.endOfFile) {
+                return -1;
+            }
+            this.buffer.clear();
+            int read;
+            do {
+                read = this.channel.read(this.buffer);
+            } while (read == 0);
+            this.buffer.flip();
+            if (read < 0) {
+                this.endOfFile = true;
+                return -1;
+            }
+        }
+        return this.buffer.get() & 0xFF;
+    } //nextByte
+
+    /**
+     * Determines if a byte is whitespace as far as a seed file is concerned.
+     *
+     * @param b the byte to check.
+     * @return true for spaces, tabs, line breaks and form feeds.
+     */
+    private static boolean isWhitespace(int b) {
+        return (b == ' ') || (b == '\n') || (b == '\r') || (b == '\t') ||
+            (b == '\f') || (b == 0x0B);
+    }
+} //SeedParser
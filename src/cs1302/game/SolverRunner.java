@@ -0,0 +1,227 @@
+package cs1302.game;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lets the {@link MineSolver} play many boards headlessly on a thread pool
+ * and reports how fast it goes, in boards per second and in squares per
+ * second, along with how many boards it won. Boards come either from seed
+ * files or, when no paths are given, from a random generator.
+ *
+ * <p>Usage: {@code SolverRunner [--threads N] [--boards N] [--rows N]
+ * [--cols N] [--mines N] [--seed N] [--max-size N] [PATH...]} where each
+ * PATH is a seed file or a directory of {@code *.seed.txt} files.
+ */
+public class SolverRunner {
+    //Number of boards each pool task solves before reporting back.
+    private static final int BOARDS_PER_TASK = 16;
+    //Outcome slot used for seed files that fail to load.
+    private static final int SEED_ERROR = MinesweeperEngine.Status.values().length;
+
+    private final List<String> seeds = new ArrayList<>();
+    private final int maxSize;
+    private int rows = 16, cols = 30, mines = 99;
+    private long seed = 1;
+
+    /**
+     * Constructs a runner that loads seed files up to the given size.
+     *
+     * @param maxSize the largest number of rows or columns allowed.
+     */
+    public SolverRunner(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Adds a seed file, or every seed file in a directory.
+     *
+     * @param path a seed file or a directory of seed files.
+     */
+    public void add(File path) {
+        if (path.isDirectory()) {
+            File[] files = path.listFiles();
+            Arrays.sort(files);
+            for (File file : files) {
+                if (file.getName().endsWith(".seed.txt")) {
+                    this.seeds.add(file.getPath());
+                }
+            }
+        } else {
+            this.seeds.add(path.getPath());
+        }
+    } //add
+
+    /**
+     * Sets the shape of the random boards used when no seed files were added.
+     *
+     * @param rows the number of rows.
+     * @param cols the number of columns.
+     * @param mines the number of mines.
+     * @param seed the seed of the first board; board n uses seed + n.
+     */
+    public void setRandomBoards(int rows, int cols, int mines, long seed) {
+        this.rows = rows;
+        this.cols = cols;
+        this.mines = mines;
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the number of seed files added.
+     *
+     * @return the number of seed files.
+     */
+    public int size() {
+        return this.seeds.size();
+    }
+
+    /**
+     * Creates board number n: a seed file if any were added, otherwise a
+     * random board.
+     *
+     * @param n the number of the board.
+     * @return a board ready to play, with its adjacency computed.
+     * @throws IOException if the seed file cannot be read.
+     * @throws SeedFormatException if the seed file is malformed.
+     */
+    private MineBoard board(long n) throws IOException, SeedFormatException {
+        MineBoard board;
+        if (this.seeds.isEmpty() == false) {
+            board = SeedParser.parse(this.seeds.get((int) (n % this.seeds.size())), this.maxSize);
+        } else {
+            board = new MineBoard(this.rows, this.cols);
+            Random random = new Random(this.seed + n);
+            while (board.getMineCount() < this.mines) {
+                board.setMine(random.nextInt(this.rows), random.nextInt(this.cols));
+            }
+        }
+        board.computeAdjacency();
+        return board;
+    } //board
+
+    /**
+     * Solves boards number first (inclusive) to last (exclusive).
+     *
+     * @param first the number of the first board.
+     * @param last the number just past the last board.
+     * @return the number of boards ending in each outcome, followed by the
+     * total number of squares on the boards.
+     */
+    private long[] solveRange(long first, long last) {
+        long[] counts = new long[SEED_ERROR + 2];
+        for (long n = first; n < last; n++) {
+            MineBoard board;
+            try {
+                board = board(n);
+            } catch (IOException | SeedFormatException e) {
+                counts[SEED_ERROR]++;
+                continue;
+            }
+            MinesweeperEngine engine = new MinesweeperEngine(board);
+            counts[MineSolver.solve(engine).getStatus().ordinal()]++;
+            counts[SEED_ERROR + 1] += board.size();
+        }
+        return counts;
+    } //solveRange
+
+    /**
+     * Solves the given number of boards on a pool of threads.
+     *
+     * @param boards the number of boards to solve.
+     * @param threads the number of threads in the pool.
+     * @return the number of boards ending in each outcome, indexed by
+     * {@link MinesweeperEngine.Status} ordinal or {@link #SEED_ERROR},
+     * followed by the total number of squares solved.
+     * @throws InterruptedException if interrupted while waiting for the pool.
+     * @throws ExecutionException if a board throws an exception.
+     */
+    public long[] run(long boards, int threads) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> results = new ArrayList<>();
+        try {
+            for (long first = 0; first < boards; first += BOARDS_PER_TASK) {
+                long start = first;
+                long end = Math.min(boards, first + BOARDS_PER_TASK);
+                results.add(pool.submit(() -> solveRange(start, end)));
+            }
+            long[] totals = new long[SEED_ERROR + 2];
+            for (Future<long[]> result : results) {
+                long[] counts = result.get();
+                for (int k = 0; k < totals.length; k++) {
+                    totals[k] += counts[k];
+                }
+            }
+            return totals;
+        } finally {
+            pool.shutdownNow();
+        }
+    } //run
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long boards = 1000;
+        int maxSize = MinesweeperGame.DEFAULT_MAX_SIZE;
+        int rows = 16, cols = 30, mines = 99;
+        long seed = 1;
+        List<File> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--threads") && (i + 1 < args.length)) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--boards") && (i + 1 < args.length)) {
+                    boards = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--rows") && (i + 1 < args.length)) {
+                    rows = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--cols") && (i + 1 < args.length)) {
+                    cols = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--mines") && (i + 1 < args.length)) {
+                    mines = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--seed") && (i + 1 < args.length)) {
+                    seed = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--max-size") && (i + 1 < args.length)) {
+                    maxSize = Integer.parseInt(args[++i]);
+                } else {
+                    paths.add(new File(args[i]));
+                }
+            }
+        } catch (NumberFormatException nfe) {
+            threads = 0;
+        }
+        if ((threads < 1) || (boards < 1) || (rows < 1) || (cols < 1) || (mines < 0) ||
+            ((long) rows * cols <= mines)) {
+            System.err.println();
+            System.err.println("Usage: SolverRunner [--threads N] [--boards N] [--rows N] " +
+                "[--cols N] [--mines N] [--seed N] [--max-size N] [PATH...]");
+            System.exit(1);
+        }
+        SolverRunner runner = new SolverRunner(maxSize);
+        for (File path : paths) {
+            runner.add(path);
+        }
+        runner.setRandomBoards(rows, cols, mines, seed);
+
+        long start = System.nanoTime();
+        long[] totals = runner.run(boards, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        String source = (runner.size() > 0) ? runner.size() + " seed files"
+            : rows + "x" + cols + " random boards with " + mines + " mines";
+        System.out.printf("%,d boards from %s on %d threads in %.2f s%n",
+            boards, source, threads, seconds);
+        System.out.printf("%,.1f boards/s%n", boards / seconds);
+        System.out.printf("%,.0f cells/s%n", totals[SEED_ERROR + 1] / seconds);
+        for (MinesweeperEngine.Status status : MinesweeperEngine.Status.values()) {
+            System.out.printf("  %-10s %,d%n", status, totals[status.ordinal()]);
+        }
+        System.out.printf("  %-10s %,d%n", "SEED_ERROR", totals[SEED_ERROR]);
+    } //main
+} //SolverRunner
@@ -0,0 +1,343 @@
+package cs1302.game;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * This class keeps the undo and redo history of a game as cell deltas
+ * rather than board copies. While a move is being made the board reports
+ * the old state of every square it changes; when the move ends the deltas
+ * are sorted by square and coalesced into runs of consecutive squares that
+ * had the same old state, each packed into one long. A flood-fill reveal
+ * that opens a large region therefore costs a few bytes per row of the
+ * region, not a byte per square of the board. Each entry also remembers
+ * the round before the move, which is all the score depends on.
+ *
+ * <p>The history is bounded by an approximate number of bytes; when it
+ * grows past the limit the oldest undo entries are dropped first.
+ */
+public class UndoHistory {
+    /** The default memory limit of a game's history, in bytes. */
+    public static final long DEFAULT_LIMIT = 16L << 20;
+
+    //A run packs its first square into bits 33-63, its length - 1 into bits
+    //4-32 and the old state of its squares into bits 0-3.
+    private static final int START_SHIFT = 33;
+    private static final int LENGTH_SHIFT = 4;
+    private static final int MAX_RUN = 1 << (START_SHIFT - LENGTH_SHIFT);
+    private static final int STATE_MASK = 0x0F;
+    //Approximate heap cost of an entry apart from its runs.
+    private static final int ENTRY_BYTES = 48;
+
+    /** One move: the round before it and the old states of its squares. */
+    private static final class Entry {
+        final int round;
+        final long[] runs;
+
+        /**
+         * Constructs an entry.
+         *
+         * @param round the round to go back to.
+         * @param runs the packed runs of old states.
+         */
+        Entry(int round, long[] runs) {
+            this.round = round;
+            this.runs = runs;
+        }
+
+        /**
+         * Returns the approximate heap cost of the entry.
+         *
+         * @return the number of bytes.
+         */
+        long bytes() {
+            return ENTRY_BYTES + (long) this.runs.length * Long.BYTES;
+        }
+    } //Entry
+
+    private final ArrayDeque<Entry> undo = new ArrayDeque<>();
+    private final ArrayDeque<Entry> redo = new ArrayDeque<>();
+    private long limit = DEFAULT_LIMIT;
+    private long bytes;
+    //Deltas of the move in progress: the square in the high half of each key
+    //and the delta's sequence number in the low half, indexing its old state.
+    private long[] keys = new long[64];
+    private byte[] states = new byte[64];
+    private int size;
+    private MineBoard board;
+    private int round;
+    //The runs of the move being packed, and the run being built.
+    private long[] runs;
+    private int runCount;
+    private int runStart, runLength, runState;
+
+    /**
+     * Sets the memory limit and drops the oldest entries if it is exceeded.
+     *
+     * @param limit the approximate number of bytes the history may use.
+     */
+    public void setLimit(long limit) {
+        this.limit = Math.max(0, limit);
+        trim();
+    }
+
+    /**
+     * Starts collecting the deltas of a move.
+     *
+     * @param board the board the move is made on.
+     * @param round the round before the move.
+     */
+    void begin(MineBoard board, int round) {
+        this.board = board;
+        this.round = round;
+        this.size = 0;
+        board.setHistory(this);
+    }
+
+    /**
+     * Records the old state of a square changed by the move in progress.
+     * Called by the board.
+     *
+     * @param index the flat index of the square.
+     * @param old the state before the change.
+     */
+    void changed(int index, byte old) {
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            this.states = Arrays.copyOf(this.states, this.size * 2);
+        }
+        this.keys[this.size] = ((long) index << 32) | this.size;
+        this.states[this.size] = old;
+        this.size++;
+    } //changed
+
+    /**
+     * Ends the move in progress and adds it to the undo history. A move
+     * that changed nothing is dropped; any other move clears the redo
+     * history.
+     *
+     * @param round the round after the move.
+     */
+    void commit(int round) {
+        Entry entry = finish();
+        if ((entry.runs.length > 0) || (round != entry.round)) {
+            clear(this.redo);
+            push(this.undo, entry);
+        }
+    } //commit
+
+    /**
+     * Stops collecting deltas and packs the ones collected into an entry.
+     * A small move's deltas are sorted by square. A move that changed a
+     * sizable part of the board is instead spread over a bitset of the
+     * board and read back in square order, which is linear in the size of
+     * the board instead of n log n in the number of deltas.
+     *
+     * @return the entry for the move.
+     */
+    private Entry finish() {
+        int boardSize = this.board.size();
+        this.board.setHistory(null);
+        this.board = null;
+        this.runs = new long[Math.min(this.size, 16)];
+        this.runCount = 0;
+        this.runStart = -1;
+        this.runLength = 0;
+        if (this.size > (boardSize >>> 6)) {
+            long[] seen = new long[(boardSize + 63) >>> 6];
+            //Two old states per byte, low nibble first, like a save file.
+            byte[] first = new byte[(boardSize + 1) / 2];
+            for (int k = 0; k < this.size; k++) {
+                int index = (int) (this.keys[k] >>> 32);
+                if ((seen[index >>> 6] & (1L << index)) == 0) {
+                    seen[index >>> 6] |= 1L << index;
+                    first[index >>> 1] |= this.states[k] << ((index & 1) << 2);
+                }
+            }
+            for (int w = 0; w < seen.length; w++) {
+                for (long bits = seen[w]; bits != 0; bits &= bits - 1) {
+                    int index = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    addDelta(index, (first[index >>> 1] >>> ((index & 1) << 2)) & STATE_MASK);
+                }
+            }
+        } else {
+            Arrays.sort(this.keys, 0, this.size);
+            for (int k = 0; k < this.size; k++) {
+                int index = (int) (this.keys[k] >>> 32);
+                //If the square changed again, its first old state was kept.
+                if ((k == 0) || (index != (int) (this.keys[k - 1] >>> 32))) {
+                    addDelta(index, this.states[(int) this.keys[k]]);
+                }
+            }
+        }
+        addRun();
+        if (this.keys.length > 4096) {
+            //Do not keep the scratch space of one huge reveal for the rest of the game.
+            this.keys = new long[64];
+            this.states = new byte[64];
+        }
+        long[] packed = Arrays.copyOf(this.runs, this.runCount);
+        this.runs = null;
+        return new Entry(this.round, packed);
+    } //finish
+
+    /**
+     * Adds the old state of the next square, in square order, to the runs
+     * being built.
+     *
+     * @param index the flat index of the square.
+     * @param old the first old state of the square in the move.
+     */
+    private void addDelta(int index, int old) {
+        if ((index == this.runStart + this.runLength) && (old == this.runState) &&
+            (this.runLength < MAX_RUN)) {
+            this.runLength++;
+            return;
+        }
+        addRun();
+        this.runStart = index;
+        this.runLength = 1;
+        this.runState = old;
+    } //addDelta
+
+    /**
+     * Packs the run being built, if any, and adds it to the runs.
+     */
+    private void addRun() {
+        if (this.runLength == 0) {
+            return;
+        }
+        if (this.runCount == this.runs.length) {
+            this.runs = Arrays.copyOf(this.runs, Math.max(1, this.runCount * 2));
+        }
+        this.runs[this.runCount++] = ((long) this.runStart << START_SHIFT) |
+            ((long) (this.runLength - 1) << LENGTH_SHIFT) | this.runState;
+        this.runLength = 0;
+    } //addRun
+
+    /**
+     * Undoes the last move, saving it for redo.
+     *
+     * @param board the board to change.
+     * @param round the current round.
+     * @return the round to go back to, or -1 if there is nothing to undo.
+     */
+    int undo(MineBoard board, int round) {
+        return apply(this.undo, this.redo, board, round);
+    }
+
+    /**
+     * Redoes the last undone move, saving it for undo again.
+     *
+     * @param board the board to change.
+     * @param round the current round.
+     * @return the round to go forward to, or -1 if there is nothing to redo.
+     */
+    int redo(MineBoard board, int round) {
+        return apply(this.redo, this.undo, board, round);
+    }
+
+    /**
+     * Puts back the old states of the newest entry of one history, recording
+     * the states they replace as a new entry of the other.
+     *
+     * @param from the history to take the entry from.
+     * @param to the history to add the reverse entry to.
+     * @param board the board to change.
+     * @param round the current round.
+     * @return the round of the entry, or -1 if the history is empty.
+     */
+    private int apply(ArrayDeque<Entry> from, ArrayDeque<Entry> to, MineBoard board,
+        int round) {
+        Entry entry = from.pollFirst();
+        if (entry == null) {
+            return -1;
+        }
+        this.bytes -= entry.bytes();
+        begin(board, round);
+        for (long run : entry.runs) {
+            int start = (int) (run >>> START_SHIFT);
+            int length = (int) ((run >>> LENGTH_SHIFT) & (MAX_RUN - 1)) + 1;
+            byte state = (byte) (run & STATE_MASK);
+            for (int i = start; i < start + length; i++) {
+                board.setCell(i, state);
+            }
+        }
+        push(to, finish());
+        return entry.round;
+    } //apply
+
+    /**
+     * Adds an entry to a history and keeps the history within its limit.
+     *
+     * @param history the history.
+     * @param entry the entry to add as the newest.
+     */
+    private void push(ArrayDeque<Entry> history, Entry entry) {
+        history.addFirst(entry);
+        this.bytes += entry.bytes();
+        trim();
+    }
+
+    /**
+     * Drops the oldest entries, undo entries first, until the history fits
+     * its limit.
+     */
+    private void trim() {
+        while ((this.bytes > this.limit) && (this.undo.isEmpty() == false)) {
+            this.bytes -= this.undo.pollLast().bytes();
+        }
+        while ((this.bytes > this.limit) && (this.redo.isEmpty() == false)) {
+            this.bytes -= this.redo.pollLast().bytes();
+        }
+    } //trim
+
+    /**
+     * Empties one history.
+     *
+     * @param history the history.
+     */
+    private void clear(ArrayDeque<Entry> history) {
+        Iterator<Entry> entries = history.iterator();
+        while (entries.hasNext()) {
+            this.bytes -= entries.next().bytes();
+            entries.remove();
+        }
+    }
+
+    /**
+     * Forgets every move, for when the game is replaced by a saved one.
+     */
+    public void clear() {
+        clear(this.undo);
+        clear(this.redo);
+    }
+
+    /**
+     * Returns the number of moves that can be undone.
+     *
+     * @return the undo count.
+     */
+    public int getUndoCount() {
+        return this.undo.size();
+    }
+
+    /**
+     * Returns the number of moves that can be redone.
+     *
+     * @return the redo count.
+     */
+    public int getRedoCount() {
+        return this.redo.size();
+    }
+
+    /**
+     * Returns the approximate heap used by the history.
+     *
+     * @return the number of bytes.
+     */
+    public long getBytes() {
+        return this.bytes;
+    }
+} //UndoHistory
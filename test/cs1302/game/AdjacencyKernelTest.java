@@ -0,0 +1,104 @@
+package cs1302.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks every count of the {@link AdjacencyKernel} against the scalar
+ * {@link MineBoard#countAdjacentMines(int, int)}, on random boards whose
+ * widths straddle the 64-square words, on single rows and columns, on
+ * boards with no mines or only mines, and on boards big enough to be
+ * counted in parallel stripes.
+ */
+public class AdjacencyKernelTest {
+    private static final int[] WIDTHS = {1, 2, 63, 64, 65, 127, 128, 129};
+    private static final int[] HEIGHTS = {1, 2, 3, 63, 64, 65, 130};
+    private static final double[] DENSITIES = {0.0, 0.15, 0.5, 1.0};
+
+    @Test
+    public void matchesScalarOnRandomBoards() {
+        Random random = new Random(1302);
+        for (int cols : WIDTHS) {
+            for (int rows : HEIGHTS) {
+                for (double density : DENSITIES) {
+                    check(randomBoard(rows, cols, density, random), false);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void matchesScalarOnSingleRowsAndColumns() {
+        Random random = new Random(1302);
+        for (int length : new int[] {1, 2, 3, 63, 64, 65, 127, 1000}) {
+            check(randomBoard(1, length, 0.3, random), false);
+            check(randomBoard(length, 1, 0.3, random), false);
+        }
+    }
+
+    @Test
+    public void matchesScalarInParallelStripes() {
+        Random random = new Random(1302);
+        int[][] sizes = {{1031, 1031}, {65, 16200}, {16400, 65}};
+        for (int[] size : sizes) {
+            assertTrue((long) size[0] * size[1] >= AdjacencyKernel.PARALLEL_SQUARES);
+            check(randomBoard(size[0], size[1], 0.15, random), true);
+        }
+    }
+
+    /**
+     * Builds a board with mines placed at random and some squares flagged,
+     * guessed or revealed, so the kernel must keep every square's state.
+     *
+     * @param rows the number of rows.
+     * @param cols the number of columns.
+     * @param density the chance of each square holding a mine.
+     * @param random the source of the layout.
+     * @return the board, with adjacency not yet computed.
+     */
+    private static MineBoard randomBoard(int rows, int cols, double density, Random random) {
+        MineBoard board = new MineBoard(rows, cols);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (random.nextDouble() < density) {
+                    board.setMine(r, c);
+                }
+            }
+        }
+        byte[] states = {MineBoard.FLAG, MineBoard.GUESS, 0};
+        for (int i = 0; i < board.size(); i += 1 + random.nextInt(7)) {
+            board.setCell(i, states[random.nextInt(states.length)]);
+        }
+        return board;
+    } //randomBoard
+
+    /**
+     * Counts a board's adjacency with the kernel and compares every square
+     * with the scalar count, and its state with what it was before.
+     *
+     * @param board the board.
+     * @param parallel true to let the kernel count stripes in parallel.
+     */
+    private static void check(MineBoard board, boolean parallel) {
+        int rows = board.getRows(), cols = board.getCols();
+        byte[] before = new byte[board.size()];
+        for (int i = 0; i < before.length; i++) {
+            before[i] = board.getCell(i);
+        }
+        board.computeAdjacency(parallel);
+        for (int i = 0; i < board.size(); i++) {
+            int r = i / cols, c = i % cols;
+            if (board.getAdjacent(i) != board.countAdjacentMines(r, c)) {
+                assertEquals(board.countAdjacentMines(r, c), board.getAdjacent(i),
+                    "count of (" + r + ", " + c + ") on a " + rows + "x" + cols + " board");
+            }
+            if (board.getCell(i) != before[i]) {
+                assertEquals(before[i], board.getCell(i),
+                    "state of (" + r + ", " + c + ") on a " + rows + "x" + cols + " board");
+            }
+        }
+    } //check
+} //AdjacencyKernelTest
@@ -0,0 +1,140 @@
+package cs1302.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that games started from the {@link BoardCache} never see each
+ * other's moves, that every name of a seed file shares one entry, that a
+ * changed file is read again, and that failures match the parser's.
+ */
+public class BoardCacheTest {
+    private static final String SEED = "5 5 3\n0 0\n1 1\n4 4\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void sharedBoardsAreIsolated() throws Exception {
+        Path seed = write("seed.txt", SEED);
+        BoardCache cache = new BoardCache(BoardCache.DEFAULT_LIMIT);
+        MineBoard first = cache.load(seed.toString(), 10);
+        MineBoard second = cache.load(seed.toString(), 10);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        first.reveal(first.index(0, 4));
+        first.setCell(first.index(4, 4), MineBoard.FLAG);
+        second.setMine(2, 2);
+        MineBoard third = cache.load(seed.toString(), 10);
+        assertEquals(MineBoard.HIDDEN, second.getCell(0, 4));
+        assertEquals(MineBoard.HIDDEN, third.getCell(0, 4));
+        assertEquals(1, first.getBlockFlagged(0, 0));
+        assertEquals(0, second.getBlockFlagged(0, 0));
+        assertTrue(first.isRowDirty(0));
+        assertFalse(third.isRowDirty(0));
+        assertFalse(third.isMine(2, 2));
+        assertEquals(2, third.getAdjacent(third.index(0, 1)));
+        assertEquals(3, third.getMineCount());
+    }
+
+    @Test
+    public void namesOfOneFileShareAnEntry() throws Exception {
+        Path seed = write("seed.txt", SEED);
+        Path link = Files.createSymbolicLink(this.dir.resolve("link.txt"), seed);
+        BoardCache cache = new BoardCache(BoardCache.DEFAULT_LIMIT);
+        cache.load(seed.toString(), 10);
+        cache.load(this.dir.resolve(".").resolve("seed.txt").toString(), 10);
+        cache.load(link.toString(), 10);
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getRehashes());
+        assertEquals(2, cache.getHits());
+
+        //A link moved to another file is resolved again.
+        Path other = write("other.txt", "5 5 1\n4 0\n");
+        Files.delete(link);
+        Files.createSymbolicLink(link, other);
+        assertTrue(cache.load(link.toString(), 10).isMine(4, 0));
+    }
+
+    @Test
+    public void changedFilesAreReadAgain() throws Exception {
+        Path seed = write("seed.txt", SEED);
+        BoardCache cache = new BoardCache(BoardCache.DEFAULT_LIMIT);
+        cache.load(seed.toString(), 10);
+
+        //Touched but unchanged: hashed, not parsed.
+        Files.setLastModifiedTime(seed, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        cache.load(seed.toString(), 10);
+        assertEquals(1, cache.getRehashes());
+        assertEquals(1, cache.getMisses());
+
+        //Rewritten: parsed again.
+        Files.writeString(seed, "5 5 1\n2 2\n");
+        Files.setLastModifiedTime(seed, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        assertTrue(cache.load(seed.toString(), 10).isMine(2, 2));
+        assertEquals(2, cache.getMisses());
+
+        //Replaced by another file with the same time and size.
+        Path other = write("other.txt", "5 5 1\n3 3\n");
+        Files.setLastModifiedTime(other, Files.getLastModifiedTime(seed));
+        Files.move(other, seed, StandardCopyOption.REPLACE_EXISTING);
+        assertTrue(cache.load(seed.toString(), 10).isMine(3, 3));
+    }
+
+    @Test
+    public void failuresMatchTheParser() throws Exception {
+        Path bad = write("bad.txt", "5 5 1\n9 9\n");
+        BoardCache cache = new BoardCache(BoardCache.DEFAULT_LIMIT);
+        String expected = assertThrows(SeedFormatException.class,
+            () -> SeedParser.parse(bad.toString(), 10)).getMessage();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected, assertThrows(SeedFormatException.class,
+                () -> cache.load(bad.toString(), 10)).getMessage());
+        }
+        assertEquals(1, cache.getMisses());
+
+        Path seed = write("seed.txt", SEED);
+        assertEquals(assertThrows(SeedFormatException.class,
+            () -> SeedParser.parse(seed.toString(), 4)).getMessage(),
+            assertThrows(SeedFormatException.class,
+            () -> cache.load(seed.toString(), 4)).getMessage());
+        Path missing = this.dir.resolve("missing.txt");
+        assertEquals(assertThrows(IOException.class,
+            () -> SeedParser.parse(missing.toString(), 10)).getClass(),
+            assertThrows(IOException.class,
+            () -> cache.load(missing.toString(), 10)).getClass());
+    }
+
+    @Test
+    public void coldestBoardsAreEvicted() throws Exception {
+        BoardCache cache = new BoardCache(2000);
+        for (int i = 0; i < 20; i++) {
+            cache.load(write("seed" + i, "20 20 1\n" + i + " 0\n").toString(), 100);
+        }
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(cache.getMemoryBytes() <= 2000);
+    }
+
+    /**
+     * Writes a seed file in the temporary directory.
+     *
+     * @param name the name of the file.
+     * @param contents the contents.
+     * @return the path of the file.
+     * @throws Exception if the file cannot be written.
+     */
+    private Path write(String name, String contents) throws Exception {
+        return Files.writeString(this.dir.resolve(name), contents);
+    }
+} //BoardCacheTest
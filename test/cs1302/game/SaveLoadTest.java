@@ -0,0 +1,128 @@
+package cs1302.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that a saved game resumes where it was left, batches included,
+ * and that a save whose journal cannot be replayed is refused without
+ * touching the game that tried to load it.
+ */
+public class SaveLoadTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void batchesResume() throws Exception {
+        String save = this.dir.resolve("batches").toString();
+        MineBoard board = board(6, 6, 0, 0);
+        board.setMine(5, 5);
+        board.setMine(2, 3);
+        board.computeAdjacency();
+        MinesweeperEngine engine = new MinesweeperEngine(board);
+        run(engine, "save " + save);
+        run(engine, "r 4 0:2 0 3:5");
+        run(engine, "g 1:2 5");
+        run(engine, "m 2 3 5 5");
+        run(engine, "r 3:4 5");
+        assertNull(engine.getError());
+        assertResumes(engine, save);
+    }
+
+    @Test
+    public void batchWonPartwayResumes() throws Exception {
+        String save = this.dir.resolve("won").toString();
+        MineBoard board = board(5, 5, 0, 0);
+        board.setMine(0, 4);
+        board.computeAdjacency();
+        MinesweeperEngine engine = new MinesweeperEngine(board);
+        run(engine, "save " + save);
+        run(engine, "r 2 2");
+        //The game is won at the second square, with one more still to mark.
+        run(engine, "m 0 0 0 4 0 4");
+        assertEquals(MinesweeperEngine.Status.WON, engine.getStatus());
+        assertResumes(engine, save);
+    }
+
+    @Test
+    public void failedLoadLeavesTheGameAlone() throws Exception {
+        String save = this.dir.resolve("s1").toString();
+        MinesweeperEngine saved = new MinesweeperEngine(board(5, 5, 0, 0));
+        run(saved, "r 4 4");
+        run(saved, "save " + save);
+        assertNull(saved.getError());
+        //A record with an opcode no move has.
+        Files.write(Path.of(save + ".journal"), new byte[] {9, 0, 0, 0, 0, 0, 0, 0, 0},
+            StandardOpenOption.APPEND);
+
+        MineBoard board = board(6, 6, 5, 5);
+        MinesweeperEngine engine = new MinesweeperEngine(board);
+        run(engine, "m 1 1");
+        run(engine, "load " + save);
+        assertTrue(engine.getError().startsWith("Save File Malformed Error: "),
+            engine.getError());
+        assertSame(board, engine.getBoard());
+        assertEquals(1, engine.getRound());
+        assertNull(engine.getSaveFileName());
+        run(engine, "m 0 0");
+        assertEquals(MinesweeperEngine.Status.PLAYING, engine.getStatus());
+
+        assertThrows(SaveFormatException.class, () -> MinesweeperEngine.resume(save));
+    }
+
+    /**
+     * Resumes a game from its save file and compares it with the game.
+     *
+     * @param engine the game that was saved and played on.
+     * @param save the path of the save file.
+     * @throws Exception if the save file cannot be read.
+     */
+    private static void assertResumes(MinesweeperEngine engine, String save)
+        throws Exception {
+        MinesweeperEngine resumed = MinesweeperEngine.resume(save);
+        MineBoard board = engine.getBoard();
+        assertEquals(engine.getStatus(), resumed.getStatus());
+        assertEquals(engine.getRound(), resumed.getRound());
+        for (int i = 0; i < board.size(); i++) {
+            assertEquals(board.getCell(i), resumed.getBoard().getCell(i), "square " + i);
+        }
+    }
+
+    /**
+     * Builds a board with one mine and its adjacency computed.
+     *
+     * @param rows the number of rows.
+     * @param cols the number of columns.
+     * @param r the row of the mine.
+     * @param c the column of the mine.
+     * @return the board.
+     */
+    static MineBoard board(int rows, int cols, int r, int c) {
+        MineBoard board = new MineBoard(rows, cols);
+        board.setMine(r, c);
+        board.computeAdjacency();
+        return board;
+    }
+
+    /**
+     * Runs one command line on a game.
+     *
+     * @param engine the game.
+     * @param line the command line.
+     */
+    static void run(MinesweeperEngine engine, String line) {
+        CommandTokenizer commands = new CommandTokenizer(new StringReader(line));
+        commands.nextLine();
+        engine.execute(commands);
+    }
+} //SaveLoadTest
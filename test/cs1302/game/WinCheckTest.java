@@ -0,0 +1,99 @@
+package cs1302.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the constant-time win check in {@link MineBoard#isWon()} against
+ * the full-grid scans of the engine, on random sequences of reveals, marks,
+ * guesses, undos and redos over square and non-square boards.
+ */
+public class WinCheckTest {
+    //Board sizes to play on, as rows and columns.
+    private static final int[][] SIZES = {
+        {1, 1}, {1, 7}, {7, 1}, {3, 3}, {5, 9}, {9, 5}, {2, 17}, {17, 2}, {10, 10}, {4, 31}
+    };
+    private static final int GAMES = 200;
+    private static final int MOVES = 400;
+
+    @Test
+    public void isWonMatchesFullScan() {
+        Random random = new Random(1302);
+        int won = 0;
+        for (int[] size : SIZES) {
+            for (int game = 0; game < GAMES; game++) {
+                if (play(randomBoard(size[0], size[1], random), random)) {
+                    won++;
+                }
+            }
+        }
+        //The moves must reach the winning state often enough to test it.
+        assertTrue(won > GAMES, "only " + won + " games were won");
+    }
+
+    /**
+     * Builds a board with a random number of randomly placed mines and its
+     * adjacency computed.
+     *
+     * @param rows the number of rows.
+     * @param cols the number of columns.
+     * @param random the source of the layout.
+     * @return the board.
+     */
+    private static MineBoard randomBoard(int rows, int cols, Random random) {
+        MineBoard board = new MineBoard(rows, cols);
+        int mines = random.nextInt(board.size()) + 1;
+        for (int i = 0; i < mines; i++) {
+            board.setMine(random.nextInt(rows), random.nextInt(cols));
+        }
+        board.computeAdjacency();
+        return board;
+    }
+
+    /**
+     * Plays random moves on a board until the game ends or the moves run
+     * out, comparing the two win checks after every move.
+     *
+     * @param board the board to play on.
+     * @param random the source of the moves.
+     * @return true if the game was won.
+     */
+    private static boolean play(MineBoard board, Random random) {
+        MinesweeperEngine engine = new MinesweeperEngine(board);
+        int rows = board.getRows(), cols = board.getCols();
+        for (int move = 0; move < MOVES; move++) {
+            int r = random.nextInt(rows), c = random.nextInt(cols);
+            String line;
+            int pick = random.nextInt(10);
+            if (pick < 4) {
+                //Mostly reveal safe squares, so that games get far enough to be won.
+                if (board.isMine(r, c) && (random.nextInt(20) != 0)) {
+                    line = "mark " + r + " " + c;
+                } else {
+                    line = "reveal " + r + " " + c;
+                }
+            } else if (pick < 7) {
+                line = "mark " + r + " " + c;
+            } else if (pick < 8) {
+                line = "guess " + r + " " + c;
+            } else if (pick < 9) {
+                line = "undo";
+            } else {
+                line = "redo";
+            }
+            CommandTokenizer commands = new CommandTokenizer(new StringReader(line));
+            commands.nextLine();
+            engine.execute(commands);
+            assertEquals(engine.allSquaresRevealed() && engine.minesRevealed(), board.isWon(),
+                () -> rows + "x" + cols + " board after \"" + line + "\"");
+            if (engine.getStatus() != MinesweeperEngine.Status.PLAYING) {
+                break;
+            }
+        }
+        return engine.getStatus() == MinesweeperEngine.Status.WON;
+    } //play
+} //WinCheckTest